@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.benchmarks;
+
+import com.yahoo.ycsb.FastRandomByteIterator;
+import com.yahoo.ycsb.RandomByteIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field value generation, which the client does for every insert and update. Each thread has
+ * its own iterator; the multi threaded variant shows whether the random source scales.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ByteIteratorBenchmark {
+  private static final int THREADS = 4;
+
+  @Param({"100", "1000"})
+  private int fieldLength;
+
+  private RandomByteIterator iterator;
+  private FastRandomByteIterator fastIterator;
+  private byte[] buffer;
+
+  @Setup
+  public void setup() {
+    iterator = new RandomByteIterator(fieldLength);
+    fastIterator = new FastRandomByteIterator(fieldLength);
+    buffer = new byte[fieldLength];
+  }
+
+  /**
+   * Fills a value into a reused buffer, as a binding writing to a byte array would.
+   */
+  @Benchmark
+  @Threads(1)
+  public byte[] nextBuf() {
+    iterator.reuse(fieldLength).nextBuf(buffer, 0);
+    return buffer;
+  }
+
+  @Benchmark
+  @Threads(THREADS)
+  public byte[] nextBufThreads() {
+    iterator.reuse(fieldLength).nextBuf(buffer, 0);
+    return buffer;
+  }
+
+  /**
+   * Creates a fresh iterator and copies it out, as most bindings do.
+   */
+  @Benchmark
+  @Threads(1)
+  public byte[] toArray() {
+    return new RandomByteIterator(fieldLength).toArray();
+  }
+
+  /**
+   * The buffer-at-a-time generator behind valuegenerator=fast.
+   */
+  @Benchmark
+  @Threads(1)
+  public byte[] fastNextBuf() {
+    fastIterator.reuse(fieldLength).nextBuf(buffer, 0);
+    return buffer;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public byte[] fastToArray() {
+    return new FastRandomByteIterator(fieldLength).toArray();
+  }
+}
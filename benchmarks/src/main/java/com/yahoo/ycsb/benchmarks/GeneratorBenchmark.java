@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.benchmarks;
+
+import com.yahoo.ycsb.generator.AcknowledgedCounterGenerator;
+import com.yahoo.ycsb.generator.ScrambledZipfianGenerator;
+import com.yahoo.ycsb.generator.ZipfianGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key choosers shared by all client threads, as in CoreWorkload. The contended variants run
+ * with several threads on the same generator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+  private static final int CONTENDED_THREADS = 4;
+
+  @Param({"1000000", "100000000"})
+  private long items;
+
+  private ZipfianGenerator zipfian;
+  private ScrambledZipfianGenerator scrambled;
+  private AcknowledgedCounterGenerator counter;
+
+  @Setup
+  public void setup() {
+    zipfian = new ZipfianGenerator(items);
+    scrambled = new ScrambledZipfianGenerator(items);
+    counter = new AcknowledgedCounterGenerator(0);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public long zipfian() {
+    return zipfian.nextValue();
+  }
+
+  @Benchmark
+  @Threads(CONTENDED_THREADS)
+  public long zipfianContended() {
+    return zipfian.nextValue();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public long scrambledZipfian() {
+    return scrambled.nextValue();
+  }
+
+  @Benchmark
+  @Threads(CONTENDED_THREADS)
+  public long scrambledZipfianContended() {
+    return scrambled.nextValue();
+  }
+
+  /**
+   * Generates and acknowledges an insert key, as every insert transaction does.
+   */
+  @Benchmark
+  @Threads(1)
+  public long acknowledgedCounter() {
+    long value = counter.nextValue();
+    counter.acknowledge(value);
+    return value;
+  }
+
+  @Benchmark
+  @Threads(CONTENDED_THREADS)
+  public long acknowledgedCounterContended() {
+    long value = counter.nextValue();
+    counter.acknowledge(value);
+    return value;
+  }
+}
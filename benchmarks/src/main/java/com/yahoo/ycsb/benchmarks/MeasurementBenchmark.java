@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.benchmarks;
+
+import com.yahoo.ycsb.measurements.OneMeasurement;
+import com.yahoo.ycsb.measurements.OneMeasurementHdrHistogram;
+import com.yahoo.ycsb.measurements.OneMeasurementShardedHdrHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency recording, which every client thread does after every operation into a measurement
+ * shared with all other threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeasurementBenchmark {
+  private static final int CONTENDED_THREADS = 4;
+
+  @Param({"hdrhistogram", "shardedhdrhistogram"})
+  private String measurementType;
+
+  private OneMeasurement measurement;
+
+  @Setup
+  public void setup() {
+    if (measurementType.equals("shardedhdrhistogram")) {
+      measurement = new OneMeasurementShardedHdrHistogram("READ", new Properties());
+    } else {
+      measurement = new OneMeasurementHdrHistogram("READ", new Properties());
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void measure() {
+    measurement.measure(ThreadLocalRandom.current().nextInt(100, 10000));
+  }
+
+  @Benchmark
+  @Threads(CONTENDED_THREADS)
+  public void measureContended() {
+    measurement.measure(ThreadLocalRandom.current().nextInt(100, 10000));
+  }
+}
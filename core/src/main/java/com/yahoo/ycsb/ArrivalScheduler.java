@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single arrival process shared by all client threads.
+ * <p>
+ * Instead of pacing every thread on its own fixed grid, the scheduler generates one global
+ * sequence of intended start times for the whole "target" rate. Whichever client thread is
+ * free claims the next arrival, waits for it and issues the operation. When all threads are
+ * busy the arrival is claimed late and the time spent waiting is part of the intended latency,
+ * so queueing in the system under test is not hidden (coordinated omission).
+ * <p>
+ * The inter-arrival times come from the "arrival.process" property:
+ * <ul>
+ * <li><b>fixed</b>: a constant gap of 1/target.</li>
+ * <li><b>poisson</b>: exponentially distributed gaps with mean 1/target.</li>
+ * <li><b>trace</b>: gaps in microseconds read from "arrival.trace.file", one per line, replayed
+ * in a loop. The target is ignored.</li>
+ * </ul>
+ * With a {@link PhaseSchedule} whose phases set targets, the fixed or poisson gaps follow the
+ * target of the phase running at each arrival instead of "target", and the process defaults
+ * to fixed.
+ */
+public final class ArrivalScheduler {
+  /**
+   * The arrival process to use. If unset, each client thread paces itself as before.
+   */
+  public static final String ARRIVAL_PROCESS_PROPERTY = "arrival.process";
+
+  /**
+   * File of inter-arrival times in microseconds for the "trace" arrival process.
+   */
+  public static final String ARRIVAL_TRACE_FILE_PROPERTY = "arrival.trace.file";
+
+  /**
+   * Returned by {@link #next()} once all arrivals have been handed out.
+   */
+  public static final long NO_MORE_ARRIVALS = Long.MIN_VALUE;
+
+  private final AtomicLong nextArrivalNs = new AtomicLong();
+  private volatile boolean started;
+  private final AtomicLong issued = new AtomicLong();
+  private final AtomicLong traceIndex = new AtomicLong();
+  private final long maxArrivals;
+  private final double meanGapNs;
+  private final boolean poisson;
+  private final long[] traceGapsNs;
+  private final PhaseSchedule phases;
+
+  private ArrivalScheduler(double meanGapNs, boolean poisson, long[] traceGapsNs, long maxArrivals,
+                           PhaseSchedule phases) {
+    this.meanGapNs = meanGapNs;
+    this.poisson = poisson;
+    this.traceGapsNs = traceGapsNs;
+    this.maxArrivals = maxArrivals;
+    this.phases = phases;
+  }
+
+  /**
+   * Creates a scheduler issuing arrivals at a fixed rate.
+   *
+   * @param opsPerSec The arrival rate.
+   * @param maxArrivals The total number of arrivals to hand out, 0 for no limit.
+   */
+  public static ArrivalScheduler fixed(double opsPerSec, long maxArrivals) {
+    return new ArrivalScheduler(1e9 / opsPerSec, false, null, maxArrivals, null);
+  }
+
+  /**
+   * Creates a scheduler issuing arrivals as a Poisson process.
+   *
+   * @param opsPerSec The mean arrival rate.
+   * @param maxArrivals The total number of arrivals to hand out, 0 for no limit.
+   */
+  public static ArrivalScheduler poisson(double opsPerSec, long maxArrivals) {
+    return new ArrivalScheduler(1e9 / opsPerSec, true, null, maxArrivals, null);
+  }
+
+  /**
+   * Creates a scheduler replaying the given inter-arrival times in a loop.
+   *
+   * @param gapsNs The inter-arrival times in nanoseconds, must not be empty.
+   * @param maxArrivals The total number of arrivals to hand out, 0 for no limit.
+   */
+  public static ArrivalScheduler trace(long[] gapsNs, long maxArrivals) {
+    if (gapsNs.length == 0) {
+      throw new IllegalArgumentException("The arrival trace is empty.");
+    }
+    return new ArrivalScheduler(0, false, gapsNs, maxArrivals, null);
+  }
+
+  /**
+   * Creates a scheduler following the targets of the phases of a schedule.
+   *
+   * @param phases The schedule, its clock is started by the first arrival.
+   * @param poisson Whether to draw exponentially distributed gaps instead of fixed ones.
+   * @param maxArrivals The total number of arrivals to hand out, 0 for no limit.
+   */
+  public static ArrivalScheduler phased(PhaseSchedule phases, boolean poisson, long maxArrivals) {
+    return new ArrivalScheduler(0, poisson, null, maxArrivals, phases);
+  }
+
+  /**
+   * Creates the scheduler configured by the given properties.
+   *
+   * @param props The client properties.
+   * @param opsPerSec The "target" rate, 0 if none was given.
+   * @param maxArrivals The total number of operations to run, 0 for no limit.
+   * @return The scheduler, or null if no arrival process is configured.
+   */
+  public static ArrivalScheduler create(Properties props, double opsPerSec, long maxArrivals) throws IOException {
+    String process = props.getProperty(ARRIVAL_PROCESS_PROPERTY);
+    PhaseSchedule phases = PhaseSchedule.getCurrent();
+    if (phases != null && phases.hasTargets() && !"trace".equals(process)) {
+      if (process != null && !process.equals("fixed") && !process.equals("poisson")) {
+        throw new IllegalArgumentException("Unknown arrival process: " + process);
+      }
+      return phased(phases, "poisson".equals(process), maxArrivals);
+    }
+    if (process == null) {
+      return null;
+    }
+    if (process.equals("trace")) {
+      String file = props.getProperty(ARRIVAL_TRACE_FILE_PROPERTY);
+      if (file == null) {
+        throw new IllegalArgumentException("The trace arrival process requires " + ARRIVAL_TRACE_FILE_PROPERTY);
+      }
+      return trace(readTrace(file), maxArrivals);
+    }
+    if (opsPerSec <= 0) {
+      throw new IllegalArgumentException("The " + process + " arrival process requires a target rate.");
+    }
+    switch (process) {
+    case "fixed":
+      return fixed(opsPerSec, maxArrivals);
+    case "poisson":
+      return poisson(opsPerSec, maxArrivals);
+    default:
+      throw new IllegalArgumentException("Unknown arrival process: " + process);
+    }
+  }
+
+  private static long[] readTrace(String file) throws IOException {
+    List<Long> gaps = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          gaps.add((long) (Double.parseDouble(line) * 1000));
+        }
+      }
+    }
+    long[] result = new long[gaps.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = gaps.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * Claims the next arrival. The first call starts the clock.
+   *
+   * @return The intended start time of the operation in {@link System#nanoTime()} terms, or
+   *         {@link #NO_MORE_ARRIVALS} once the configured number of arrivals has been reached.
+   */
+  public long next() {
+    if (maxArrivals > 0 && issued.getAndIncrement() >= maxArrivals) {
+      return NO_MORE_ARRIVALS;
+    }
+    if (!started) {
+      synchronized (this) {
+        if (!started) {
+          nextArrivalNs.set(phases != null ? phases.start() : System.nanoTime());
+          started = true;
+        }
+      }
+    }
+    if (phases != null) {
+      return nextPhasedArrival();
+    }
+    return nextArrivalNs.getAndAdd(nextGapNs());
+  }
+
+  private long nextPhasedArrival() {
+    while (true) {
+      long current = nextArrivalNs.get();
+      double target = phases.targetAt(current);
+      long arrival;
+      long next;
+      if (target > 0) {
+        arrival = current;
+        next = current + gapNs(1e9 / target);
+      } else {
+        // unthrottled: issue right away, and start the next throttled phase from now
+        arrival = Math.max(current, System.nanoTime());
+        next = arrival;
+      }
+      if (nextArrivalNs.compareAndSet(current, next)) {
+        return arrival;
+      }
+    }
+  }
+
+  /**
+   * The number of arrivals still to be handed out, 0 if there is no limit.
+   */
+  public long getRemaining() {
+    return maxArrivals > 0 ? Math.max(0, maxArrivals - issued.get()) : 0;
+  }
+
+  private long nextGapNs() {
+    if (traceGapsNs != null) {
+      return traceGapsNs[(int) (traceIndex.getAndIncrement() % traceGapsNs.length)];
+    }
+    return gapNs(meanGapNs);
+  }
+
+  private long gapNs(double meanNs) {
+    if (poisson) {
+      // inverse transform sampling, 1 - u keeps the argument of log away from 0
+      return (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanNs);
+    }
+    return (long) meanNs;
+  }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A non-blocking layer for accessing a database to be benchmarked. Like {@link DB}, each client
+ * thread is given its own instance, constructed with a no-argument constructor and initialized
+ * through init().
+ * <p>
+ * Every operation returns immediately with a {@link CompletionStage} that completes once the
+ * database has answered. A client thread running in asynchronous mode (see the
+ * "async.inflight" property) keeps several operations in flight at a time, so a handful of
+ * threads can saturate a cluster that would otherwise require thousands of blocking threads.
+ * <p>
+ * Implementations must not block the calling thread, and must not touch the result
+ * containers passed in after the returned stage has completed.
+ */
+public abstract class AsyncDB {
+  /**
+   * Properties for configuring this DB.
+   */
+  private Properties properties = new Properties();
+
+  /**
+   * Lazily created blocking view of this DB.
+   */
+  private DB blockingView;
+
+  /**
+   * Set the properties for this DB.
+   */
+  public void setProperties(Properties p) {
+    properties = p;
+  }
+
+  /**
+   * Get the set of properties for this DB.
+   */
+  public Properties getProperties() {
+    return properties;
+  }
+
+  /**
+   * Initialize any state for this DB.
+   * Called once per DB instance; there is one DB instance per client thread.
+   */
+  public void init() throws DBException {
+  }
+
+  /**
+   * Cleanup any state for this DB. Called once per DB instance after all operations issued
+   * through it have completed.
+   */
+  public void cleanup() throws DBException {
+  }
+
+  /**
+   * Read a record from the database. Each field/value pair from the result will be stored in a HashMap.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param result A HashMap of field/value pairs for the result
+   * @return A stage completing with the result of the operation.
+   */
+  public abstract CompletionStage<Status> read(String table, String key, Set<String> fields,
+                                               Map<String, ByteIterator> result);
+
+  /**
+   * Perform a range scan for a set of records in the database. Each field/value pair from the result will be stored
+   * in a HashMap.
+   *
+   * @param table The name of the table
+   * @param startkey The record key of the first record to read.
+   * @param recordcount The number of records to read
+   * @param fields The list of fields to read, or null for all of them
+   * @param result A Vector of HashMaps, where each HashMap is a set field/value pairs for one record
+   * @return A stage completing with the result of the operation.
+   */
+  public abstract CompletionStage<Status> scan(String table, String startkey, int recordcount, Set<String> fields,
+                                               Vector<HashMap<String, ByteIterator>> result);
+
+  /**
+   * Update a record in the database. Any field/value pairs in the specified values HashMap will be written into the
+   * record with the specified record key, overwriting any existing values with the same field name.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to write.
+   * @param values A HashMap of field/value pairs to update in the record
+   * @return A stage completing with the result of the operation.
+   */
+  public abstract CompletionStage<Status> update(String table, String key, Map<String, ByteIterator> values);
+
+  /**
+   * Insert a record in the database. Any field/value pairs in the specified values HashMap will be written into the
+   * record with the specified record key.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to insert.
+   * @param values A HashMap of field/value pairs to insert in the record
+   * @return A stage completing with the result of the operation.
+   */
+  public abstract CompletionStage<Status> insert(String table, String key, Map<String, ByteIterator> values);
+
+  /**
+   * Delete a record from the database.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to delete.
+   * @return A stage completing with the result of the operation.
+   */
+  public abstract CompletionStage<Status> delete(String table, String key);
+
+  /**
+   * Returns a blocking view of this DB that waits for every operation to complete. This allows
+   * workloads that have no asynchronous implementation to run unchanged in asynchronous mode,
+   * albeit with a single operation in flight.
+   */
+  public DB toBlockingDB() {
+    if (blockingView == null) {
+      blockingView = new BlockingView(this);
+    }
+    return blockingView;
+  }
+
+  /**
+   * Waits for the stage to complete, mapping failures to {@link Status#ERROR}.
+   */
+  static Status await(CompletionStage<Status> stage) {
+    try {
+      Status status = stage.toCompletableFuture().join();
+      return status == null ? Status.ERROR : status;
+    } catch (CompletionException e) {
+      return Status.ERROR;
+    }
+  }
+
+  /**
+   * A {@link DB} that forwards to an {@link AsyncDB} and waits for each result.
+   */
+  private static final class BlockingView extends DB {
+    private final AsyncDB db;
+
+    private BlockingView(AsyncDB db) {
+      this.db = db;
+    }
+
+    @Override
+    public Properties getProperties() {
+      return db.getProperties();
+    }
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      return await(db.read(table, key, fields, result));
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return await(db.scan(table, startkey, recordcount, fields, result));
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      return await(db.update(table, key, values));
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      return await(db.insert(table, key, values));
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return await(db.delete(table, key));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Exposes a blocking {@link DB} through the {@link AsyncDB} interface. Each operation runs on
+ * the calling thread and returns an already completed stage, so bindings without native
+ * asynchronous support can still be driven by a client thread in asynchronous mode.
+ */
+public class AsyncDBAdapter extends AsyncDB {
+  private final DB db;
+
+  public AsyncDBAdapter(DB db) {
+    this.db = db;
+  }
+
+  @Override
+  public void setProperties(Properties p) {
+    db.setProperties(p);
+  }
+
+  @Override
+  public Properties getProperties() {
+    return db.getProperties();
+  }
+
+  @Override
+  public void init() throws DBException {
+    db.init();
+  }
+
+  @Override
+  public void cleanup() throws DBException {
+    db.cleanup();
+  }
+
+  @Override
+  public CompletionStage<Status> read(String table, String key, Set<String> fields,
+                                      Map<String, ByteIterator> result) {
+    return CompletableFuture.completedFuture(db.read(table, key, fields, result));
+  }
+
+  @Override
+  public CompletionStage<Status> scan(String table, String startkey, int recordcount, Set<String> fields,
+                                      Vector<HashMap<String, ByteIterator>> result) {
+    return CompletableFuture.completedFuture(db.scan(table, startkey, recordcount, fields, result));
+  }
+
+  @Override
+  public CompletionStage<Status> update(String table, String key, Map<String, ByteIterator> values) {
+    return CompletableFuture.completedFuture(db.update(table, key, values));
+  }
+
+  @Override
+  public CompletionStage<Status> insert(String table, String key, Map<String, ByteIterator> values) {
+    return CompletableFuture.completedFuture(db.insert(table, key, values));
+  }
+
+  @Override
+  public CompletionStage<Status> delete(String table, String key) {
+    return CompletableFuture.completedFuture(db.delete(table, key));
+  }
+}
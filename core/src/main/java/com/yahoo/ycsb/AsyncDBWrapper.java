@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.apache.htrace.core.TraceScope;
+import org.apache.htrace.core.Tracer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Wrapper around a "real" AsyncDB that measures latencies and counts return codes, the
+ * asynchronous counterpart of {@link DBWrapper}. The intended and actual start times are
+ * captured on the issuing thread and the latency is recorded when the operation completes,
+ * on whichever thread completes it.
+ */
+public class AsyncDBWrapper extends AsyncDB {
+  private final AsyncDB db;
+  private final Measurements measurements;
+  private final Tracer tracer;
+
+  private boolean reportLatencyForEachError = false;
+  private Set<String> latencyTrackedErrors = new HashSet<String>();
+
+  private final String scopeStringCleanup;
+  private final String scopeStringDelete;
+  private final String scopeStringInit;
+  private final String scopeStringInsert;
+  private final String scopeStringRead;
+  private final String scopeStringScan;
+  private final String scopeStringUpdate;
+
+  public AsyncDBWrapper(final AsyncDB db, final Tracer tracer) {
+    this.db = db;
+    measurements = Measurements.getMeasurements();
+    this.tracer = tracer;
+    final String simple = db.getClass().getSimpleName();
+    scopeStringCleanup = simple + "#cleanup";
+    scopeStringDelete = simple + "#delete";
+    scopeStringInit = simple + "#init";
+    scopeStringInsert = simple + "#insert";
+    scopeStringRead = simple + "#read";
+    scopeStringScan = simple + "#scan";
+    scopeStringUpdate = simple + "#update";
+  }
+
+  @Override
+  public void setProperties(Properties p) {
+    db.setProperties(p);
+  }
+
+  @Override
+  public Properties getProperties() {
+    return db.getProperties();
+  }
+
+  @Override
+  public void init() throws DBException {
+    try (final TraceScope span = tracer.newScope(scopeStringInit)) {
+      db.init();
+
+      this.reportLatencyForEachError = Boolean.parseBoolean(getProperties().
+          getProperty(DBWrapper.REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY,
+              DBWrapper.REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT));
+
+      if (!reportLatencyForEachError) {
+        String latencyTrackedErrorsProperty =
+            getProperties().getProperty(DBWrapper.LATENCY_TRACKED_ERRORS_PROPERTY, null);
+        if (latencyTrackedErrorsProperty != null) {
+          this.latencyTrackedErrors = new HashSet<String>(Arrays.asList(
+              latencyTrackedErrorsProperty.split(",")));
+        }
+      }
+
+      System.err.println("AsyncDBWrapper: report latency for each error is " +
+          this.reportLatencyForEachError + " and specific error codes to track" +
+          " for latency are: " + this.latencyTrackedErrors.toString());
+    }
+  }
+
+  @Override
+  public void cleanup() throws DBException {
+    try (final TraceScope span = tracer.newScope(scopeStringCleanup)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      db.cleanup();
+      long en = System.nanoTime();
+      measure("CLEANUP", null, Status.OK, ist, st, en);
+    }
+  }
+
+  @Override
+  public CompletionStage<Status> read(String table, String key, Set<String> fields,
+                                      Map<String, ByteIterator> result) {
+    try (final TraceScope span = tracer.newScope(scopeStringRead)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureOnCompletion("READ", table, db.read(table, key, fields, result), ist, st);
+    }
+  }
+
+  @Override
+  public CompletionStage<Status> scan(String table, String startkey, int recordcount, Set<String> fields,
+                                      Vector<HashMap<String, ByteIterator>> result) {
+    try (final TraceScope span = tracer.newScope(scopeStringScan)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureOnCompletion("SCAN", table, db.scan(table, startkey, recordcount, fields, result), ist, st);
+    }
+  }
+
+  @Override
+  public CompletionStage<Status> update(String table, String key, Map<String, ByteIterator> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureOnCompletion("UPDATE", table, db.update(table, key, values), ist, st);
+    }
+  }
+
+  @Override
+  public CompletionStage<Status> insert(String table, String key, Map<String, ByteIterator> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureOnCompletion("INSERT", table, db.insert(table, key, values), ist, st);
+    }
+  }
+
+  @Override
+  public CompletionStage<Status> delete(String table, String key) {
+    try (final TraceScope span = tracer.newScope(scopeStringDelete)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      return measureOnCompletion("DELETE", table, db.delete(table, key), ist, st);
+    }
+  }
+
+  /**
+   * Records the latency and status of the operation once the stage completes. A stage that
+   * completes exceptionally is reported as {@link Status#ERROR}.
+   */
+  private CompletionStage<Status> measureOnCompletion(final String op, final String table,
+                                                      CompletionStage<Status> stage,
+                                                      final long intendedStartTimeNanos,
+                                                      final long startTimeNanos) {
+    return stage.handle((status, error) -> {
+        long en = System.nanoTime();
+        Status res = (error != null || status == null) ? Status.ERROR : status;
+        measure(op, table, res, intendedStartTimeNanos, startTimeNanos, en);
+        measurements.reportStatus(op, res);
+        return res;
+      });
+  }
+
+  private void measure(String op, String table, Status result, long intendedStartTimeNanos,
+                       long startTimeNanos, long endTimeNanos) {
+    String measurementName = op;
+    if (!result.isOk()) {
+      if (this.reportLatencyForEachError ||
+          this.latencyTrackedErrors.contains(result.getName())) {
+        measurementName = op + "-" + result.getName();
+      } else {
+        measurementName = op + "-FAILED";
+      }
+    }
+    measurements.measure(measurementName, table,
+        (int) ((endTimeNanos - startTimeNanos) / 1000));
+    measurements.measureIntended(measurementName, table,
+        (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+  }
+}
@@ -18,6 +18,7 @@ package com.yahoo.ycsb;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -173,7 +174,23 @@ public class BasicTSDB extends BasicDB {
   @Override
   public Status insert(String table, String key, Map<String, ByteIterator> values) {
     delay();
-    
+    return record(table, key, values);
+  }
+
+  /**
+   * Inserts the batch, for example the data points written together with "insertbatchsize",
+   * with a single delay as one write.
+   */
+  @Override
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    delay();
+    for (int i = 0; i < keys.size(); i++) {
+      record(table, keys.get(i), values.get(i));
+    }
+    return Status.OK;
+  }
+
+  private Status record(String table, String key, Map<String, ByteIterator> values) {
     boolean isFloat = false;
     
     if (verbose) {
@@ -18,6 +18,7 @@
 package com.yahoo.ycsb;
 
 import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.PrometheusEndpoint;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
 import org.apache.htrace.core.HTraceConfiguration;
@@ -32,9 +33,13 @@ import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 /**
@@ -56,6 +61,9 @@ class StatusThread extends Thread {
   private final String label;
   private final boolean standardstatus;
 
+  // Splits the client thread time per interval, may be null.
+  private ClientOverhead overhead;
+
   // The interval for reporting status.
   private long sleeptimeNs;
 
@@ -107,6 +115,13 @@ class StatusThread extends Thread {
     this.trackJVMStats = trackJVMStats;
   }
 
+  /**
+   * Also reports how much of the client thread time the client spends on itself.
+   */
+  void setOverhead(ClientOverhead clientOverhead) {
+    overhead = clientOverhead;
+  }
+
   /**
    * Run and periodically report status.
    */
@@ -186,6 +201,9 @@ class StatusThread extends Thread {
       msg.append("est completion in ").append(RemainingFormatter.format(estremaining));
     }
 
+    if (overhead != null) {
+      overhead.appendInterval(msg);
+    }
     msg.append(Measurements.getMeasurements().getSummary());
 
     System.err.println(msg);
@@ -356,6 +374,122 @@ final class RemainingFormatter {
   }
 }
 
+/**
+ * Splits the time of the client threads into time spent in database calls and time the client
+ * spends on itself, to tell when a run measures the client rather than the database.
+ * <p>
+ * The busy time of a thread is its running time minus throttling. Of that, the time inside
+ * the DB calls is measured by {@link DBWrapper}, as is the time recording latencies; the rest
+ * goes to the workload (key choice, value generation, bookkeeping). An interval is flagged
+ * CLIENT-BOUND when the client's own share of the busy time reaches "clientbound.threshold",
+ * or when the process uses "clientbound.cpu" of all cores. The totals are only exported with
+ * "clientbound.export". Asynchronous client threads are not covered.
+ */
+final class ClientOverhead {
+  private final List<ClientThread> clients;
+  private final double threshold;
+  private final double cpuThreshold;
+  private final boolean exported;
+  private final int cores = Runtime.getRuntime().availableProcessors();
+
+  private long lastWallNs = System.nanoTime();
+  private long lastCpuNs = Utils.getProcessCpuTimeNs();
+  private final long[] last = new long[4];
+  private int intervals;
+  private int clientBoundIntervals;
+
+  ClientOverhead(Properties props, List<ClientThread> clients) {
+    this.clients = clients;
+    threshold = Double.parseDouble(props.getProperty(Client.CLIENT_BOUND_THRESHOLD_PROPERTY,
+        Client.CLIENT_BOUND_THRESHOLD_PROPERTY_DEFAULT));
+    cpuThreshold = Double.parseDouble(props.getProperty(Client.CLIENT_BOUND_CPU_PROPERTY,
+        Client.CLIENT_BOUND_CPU_PROPERTY_DEFAULT));
+    exported = Boolean.parseBoolean(props.getProperty(Client.CLIENT_BOUND_EXPORT_PROPERTY,
+        Client.CLIENT_BOUND_EXPORT_PROPERTY_DEFAULT));
+  }
+
+  /**
+   * Sums the active, throttle, DB and measurement time of all synchronous client threads.
+   */
+  private long[] totals() {
+    long[] totals = new long[4];
+    for (ClientThread client : clients) {
+      if (client.getDb() instanceof DBWrapper) {
+        DBWrapper db = (DBWrapper) client.getDb();
+        totals[0] += client.getActiveTimeNs();
+        totals[1] += client.getThrottleTimeNs();
+        totals[2] += db.getDbTimeNs();
+        totals[3] += db.getMeasurementTimeNs();
+      }
+    }
+    return totals;
+  }
+
+  /**
+   * Appends the overhead since the previous call to a status line.
+   */
+  void appendInterval(StringBuilder msg) {
+    long[] totals = totals();
+    long busy = (totals[0] - last[0]) - (totals[1] - last[1]);
+    long db = totals[2] - last[2];
+    long measurement = totals[3] - last[3];
+    System.arraycopy(totals, 0, last, 0, totals.length);
+
+    long wallNs = System.nanoTime();
+    long cpuNs = Utils.getProcessCpuTimeNs();
+    double cpu = cpuNs < 0 ? -1 : (double) (cpuNs - lastCpuNs) / ((wallNs - lastWallNs) * (double) cores);
+    lastWallNs = wallNs;
+    lastCpuNs = cpuNs;
+
+    if (busy <= 0) {
+      return;
+    }
+    intervals++;
+    double client = (double) (busy - db) / busy;
+    DecimalFormat d = new DecimalFormat("#.#");
+    msg.append("client ").append(d.format(100 * client)).append("% (measurement ")
+        .append(d.format(100.0 * measurement / busy)).append("%)");
+    if (cpu >= 0) {
+      msg.append(", cpu ").append(d.format(100 * cpu)).append('%');
+    }
+    msg.append("; ");
+    if (client >= threshold || cpu >= cpuThreshold) {
+      clientBoundIntervals++;
+      msg.append("CLIENT-BOUND, throughput reflects the client; ");
+    }
+  }
+
+  /**
+   * Writes the shares of the total busy thread time and the number of client bound intervals,
+   * if enabled, and warns when the run as a whole was client bound.
+   */
+  void export(MeasurementsExporter exporter) throws IOException {
+    long[] totals = totals();
+    long busy = totals[0] - totals[1];
+    if (busy <= 0) {
+      return;
+    }
+    if (exported) {
+      exportTotals(exporter, totals, busy);
+    }
+    if ((double) (busy - totals[2]) / busy >= threshold) {
+      System.err.println("WARNING: the client threads spent most of their time outside the DB, "
+          + "the reported throughput is likely limited by the client.");
+    }
+  }
+
+  private void exportTotals(MeasurementsExporter exporter, long[] totals, long busy) throws IOException {
+    exporter.write("CLIENT", "DBTime(%)", 100.0 * totals[2] / busy);
+    exporter.write("CLIENT", "WorkloadTime(%)", 100.0 * (busy - totals[2] - totals[3]) / busy);
+    exporter.write("CLIENT", "MeasurementTime(%)", 100.0 * totals[3] / busy);
+    exporter.write("CLIENT", "ThrottleTime(%)", 100.0 * totals[1] / totals[0]);
+    if (intervals > 0) {
+      exporter.write("CLIENT", "ClientBoundIntervals", clientBoundIntervals);
+      exporter.write("CLIENT", "Intervals", intervals);
+    }
+  }
+}
+
 /**
  * A thread for executing transactions or data inserts to the database.
  */
@@ -365,6 +499,11 @@ class ClientThread implements Runnable {
 
   private static boolean spinSleep;
   private DB db;
+  private AsyncDB asyncdb;
+  private ArrivalScheduler scheduler;
+  private int maxInFlight;
+  private final AtomicInteger asyncOpsDone = new AtomicInteger();
+  private volatile boolean asyncFailed;
   private boolean dotransactions;
   private Workload workload;
   private int opcount;
@@ -378,6 +517,11 @@ class ClientThread implements Runnable {
   private long targetOpsTickNs;
   private final Measurements measurements;
 
+  // time accounting read by the status thread, written only by this thread
+  private volatile long runStartNs;
+  private volatile long runEndNs;
+  private volatile long throttleTimeNs;
+
   /**
    * Constructor.
    *
@@ -406,6 +550,26 @@ class ClientThread implements Runnable {
     this.completeLatch = completeLatch;
   }
 
+  /**
+   * Constructor for a client thread that keeps several operations in flight against an
+   * asynchronous DB.
+   *
+   * @param asyncdb              the asynchronous DB implementation to use
+   * @param dotransactions       true to do transactions, false to insert data
+   * @param workload             the workload to use
+   * @param props                the properties defining the experiment
+   * @param opcount              the number of operations (transactions or inserts) to do
+   * @param targetperthreadperms target number of operations per thread per ms
+   * @param completeLatch        The latch tracking the completion of all clients.
+   */
+  public ClientThread(AsyncDB asyncdb, boolean dotransactions, Workload workload, Properties props, int opcount,
+                      double targetperthreadperms, CountDownLatch completeLatch) {
+    this((DB) null, dotransactions, workload, props, opcount, targetperthreadperms, completeLatch);
+    this.asyncdb = asyncdb;
+    this.maxInFlight = Math.max(1, Integer.parseInt(props.getProperty(Client.ASYNC_INFLIGHT_PROPERTY,
+        Client.ASYNC_INFLIGHT_PROPERTY_DEFAULT)));
+  }
+
   public void setThreadId(final int threadId) {
     threadid = threadId;
   }
@@ -413,13 +577,26 @@ class ClientThread implements Runnable {
   public void setThreadCount(final int threadCount) {
     threadcount = threadCount;
   }
+
+  /**
+   * Makes this thread take its intended start times from a scheduler shared with the other
+   * client threads instead of pacing itself. The scheduler also bounds the total operation count.
+   */
+  public void setArrivalScheduler(final ArrivalScheduler arrivalScheduler) {
+    scheduler = arrivalScheduler;
+    targetOpsPerMs = 0;
+  }
   
   public int getOpsDone() {
-    return opsdone;
+    return asyncdb == null ? opsdone : asyncOpsDone.get();
   }
 
   @Override
   public void run() {
+    if (asyncdb != null) {
+      runAsync();
+      return;
+    }
     try {
       db.init();
     } catch (DBException e) {
@@ -446,11 +623,12 @@ class ClientThread implements Runnable {
       long randomMinorDelay = ThreadLocalRandom.current().nextInt((int) targetOpsTickNs);
       sleepUntil(System.nanoTime() + randomMinorDelay);
     }
+    runStartNs = System.nanoTime();
     try {
       if (dotransactions) {
         long startTimeNanos = System.nanoTime();
 
-        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
+        while (hasNextOp() && !workload.isStopRequested()) {
 
           if (!workload.doTransaction(db, workloadstate)) {
             break;
@@ -463,7 +641,7 @@ class ClientThread implements Runnable {
       } else {
         long startTimeNanos = System.nanoTime();
 
-        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
+        while (hasNextOp() && !workload.isStopRequested()) {
 
           if (!workload.doInsert(db, workloadstate)) {
             break;
@@ -479,6 +657,8 @@ class ClientThread implements Runnable {
       e.printStackTrace(System.out);
       System.exit(0);
     }
+    finishThread(db);
+    runEndNs = System.nanoTime();
 
     try {
       measurements.setIntendedStartTimeNs(0);
@@ -491,6 +671,91 @@ class ClientThread implements Runnable {
     }
   }
 
+  /**
+   * Issues operations without waiting for them, keeping up to {@link #maxInFlight} outstanding.
+   * Throttling still applies to the issue rate, so with a target set this is an open-loop client.
+   */
+  private void runAsync() {
+    try {
+      asyncdb.init();
+    } catch (DBException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      return;
+    }
+
+    try {
+      workloadstate = workload.initThread(props, threadid, threadcount);
+    } catch (WorkloadException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      return;
+    }
+
+    if ((targetOpsPerMs > 0) && (targetOpsPerMs <= 1.0)) {
+      long randomMinorDelay = ThreadLocalRandom.current().nextInt((int) targetOpsTickNs);
+      sleepUntil(System.nanoTime() + randomMinorDelay);
+    }
+
+    final Semaphore inFlight = new Semaphore(maxInFlight);
+    try {
+      long startTimeNanos = System.nanoTime();
+
+      // opsdone counts the issued operations here, asyncOpsDone the completed ones.
+      while (hasNextOp() && !workload.isStopRequested() && !asyncFailed) {
+        inFlight.acquire();
+
+        CompletionStage<Boolean> op = dotransactions ?
+            workload.doTransactionAsync(asyncdb, workloadstate) :
+            workload.doInsertAsync(asyncdb, workloadstate);
+        op.whenComplete((ok, error) -> {
+            if (error != null || ok == null || !ok) {
+              if (error != null) {
+                error.printStackTrace();
+              }
+              asyncFailed = true;
+            } else {
+              asyncOpsDone.incrementAndGet();
+            }
+            inFlight.release();
+          });
+
+        opsdone++;
+
+        throttleNanos(startTimeNanos);
+      }
+
+      // wait for the stragglers before tearing down the DB
+      inFlight.acquire(maxInFlight);
+      finishThread(asyncdb.toBlockingDB());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      System.exit(0);
+    }
+
+    try {
+      measurements.setIntendedStartTimeNs(0);
+      asyncdb.cleanup();
+    } catch (DBException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+    } finally {
+      completeLatch.countDown();
+    }
+  }
+
+  private void finishThread(DB threadDB) {
+    try {
+      workload.finishThread(threadDB, workloadstate);
+    } catch (WorkloadException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+    }
+  }
+
   private static void sleepUntil(long deadline) {
     while (System.nanoTime() < deadline) {
       if (!spinSleep) {
@@ -499,12 +764,39 @@ class ClientThread implements Runnable {
     }
   }
 
+  /**
+   * Whether this thread should issue another operation. With a shared scheduler this waits for
+   * the next arrival and records it as the intended start time of the operation.
+   */
+  private boolean hasNextOp() {
+    if (scheduler == null) {
+      return (opcount == 0) || (opsdone < opcount);
+    }
+    long arrival = scheduler.next();
+    if (arrival == ArrivalScheduler.NO_MORE_ARRIVALS) {
+      return false;
+    }
+    throttleUntil(arrival);
+    measurements.setIntendedStartTimeNs(arrival);
+    return true;
+  }
+
+  private void throttleUntil(long deadline) {
+    long now = System.nanoTime();
+    if (now < deadline) {
+      sleepUntil(deadline);
+      throttleTimeNs += System.nanoTime() - now;
+    }
+  }
+
   private void throttleNanos(long startTimeNanos) {
+    // waits the workload did inside the operation, e.g. to replay a trace at its recorded pace
+    throttleTimeNs += measurements.takeThrottleTimeNs();
     //throttle the operations
     if (targetOpsPerMs > 0) {
       // delay until next tick
       long deadline = startTimeNanos + opsdone * targetOpsTickNs;
-      sleepUntil(deadline);
+      throttleUntil(deadline);
       measurements.setIntendedStartTimeNs(deadline);
     }
   }
@@ -513,9 +805,36 @@ class ClientThread implements Runnable {
    * The total amount of work this thread is still expected to do.
    */
   int getOpsTodo() {
-    int todo = opcount - opsdone;
+    if (scheduler != null) {
+      // arrivals go to whichever thread is free, so only the total is meaningful; report it once
+      return threadid == 0 ? (int) scheduler.getRemaining() : 0;
+    }
+    int todo = opcount - getOpsDone();
     return todo < 0 ? 0 : todo;
   }
+
+  /**
+   * The time this thread has spent running operations so far, including throttling.
+   */
+  long getActiveTimeNs() {
+    long start = runStartNs;
+    if (start == 0) {
+      return 0;
+    }
+    long end = runEndNs;
+    return (end == 0 ? System.nanoTime() : end) - start;
+  }
+
+  /**
+   * The time this thread has spent waiting to honor the target rate or the arrival schedule.
+   */
+  long getThrottleTimeNs() {
+    return throttleTimeNs;
+  }
+
+  DB getDb() {
+    return db;
+  }
 }
 
 /**
@@ -528,6 +847,38 @@ public final class Client {
 
   public static final String DEFAULT_RECORD_COUNT = "0";
 
+  /**
+   * Share of the busy client thread time spent outside DB calls from which a status interval
+   * is flagged as client bound.
+   */
+  public static final String CLIENT_BOUND_THRESHOLD_PROPERTY = "clientbound.threshold";
+
+  /**
+   * Default value of the client bound threshold.
+   */
+  public static final String CLIENT_BOUND_THRESHOLD_PROPERTY_DEFAULT = "0.5";
+
+  /**
+   * Process CPU utilization, as a share of all cores, from which a status interval is flagged
+   * as client bound.
+   */
+  public static final String CLIENT_BOUND_CPU_PROPERTY = "clientbound.cpu";
+
+  /**
+   * Default value of the client bound CPU utilization.
+   */
+  public static final String CLIENT_BOUND_CPU_PROPERTY_DEFAULT = "0.9";
+
+  /**
+   * Whether to export the client overhead totals as [CLIENT] at the end of the run.
+   */
+  public static final String CLIENT_BOUND_EXPORT_PROPERTY = "clientbound.export";
+
+  /**
+   * Default value of the client overhead export.
+   */
+  public static final String CLIENT_BOUND_EXPORT_PROPERTY_DEFAULT = "false";
+
   /**
    * The target number of operations to perform.
    */
@@ -582,6 +933,30 @@ public final class Client {
    */
   public static final String MAX_EXECUTION_TIME = "maxexecutiontime";
 
+  /**
+   * The number of operations each client thread keeps in flight. When greater than zero the
+   * DB is driven through the {@link AsyncDB} interface; blocking bindings are adapted.
+   */
+  public static final String ASYNC_INFLIGHT_PROPERTY = "async.inflight";
+
+  /**
+   * The default of zero runs every client thread in blocking, one-operation-at-a-time mode.
+   */
+  public static final String ASYNC_INFLIGHT_PROPERTY_DEFAULT = "0";
+
+  /**
+   * How the client threads are created: "platform" (one OS thread per client thread),
+   * "virtual" (one virtual thread per client thread, requires a JDK with virtual threads)
+   * or the fully qualified name of a {@link ThreadFactory} implementation with a
+   * no-argument constructor.
+   */
+  public static final String THREAD_FACTORY_PROPERTY = "threadfactory";
+
+  /**
+   * The default is to run each client thread on its own platform thread.
+   */
+  public static final String THREAD_FACTORY_PROPERTY_DEFAULT = "platform";
+
   /**
    * Whether or not this is the transaction phase (run) or not (load).
    */
@@ -641,6 +1016,8 @@ public final class Client {
     System.out.println("To run the load phase from multiple servers, start a separate client on each; additionally,");
     System.out.println("use the \"insertcount\" and \"insertstart\" properties to divide up the records " +
         "to be inserted");
+    System.out.println("Alternatively, set \"" + Coordinator.WORKERS_PROPERTY + "\" to run several coordinated " +
+        "clients with merged results (see the workload_template).");
   }
 
   public static boolean checkRequiredProperties(Properties props) {
@@ -653,37 +1030,66 @@ public final class Client {
   }
 
 
+  /**
+   * Creates the exporter selected by the "exporter" property, writing to the "exportfile"
+   * or to stdout.
+   */
+  static MeasurementsExporter openExporter(Properties props) throws IOException {
+    // if no destination file is provided the results will be written to stdout
+    OutputStream out;
+    String exportFile = props.getProperty(EXPORT_FILE_PROPERTY);
+    if (exportFile == null) {
+      out = System.out;
+    } else {
+      out = new FileOutputStream(exportFile);
+    }
+
+    // if no exporter is provided the default text one will be used
+    String exporterStr = props.getProperty(EXPORTER_PROPERTY,
+        "com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter");
+    try {
+      return (MeasurementsExporter) Class.forName(exporterStr).getConstructor(OutputStream.class)
+          .newInstance(out);
+    } catch (Exception e) {
+      System.err.println("Could not find exporter " + exporterStr
+          + ", will use default text reporter.");
+      e.printStackTrace();
+      return new TextMeasurementsExporter(out);
+    }
+  }
+
+  /**
+   * Starts serving the interval latencies for Prometheus if a port is configured. The endpoint
+   * is fed by the status thread and stopped once the measurements have been exported.
+   */
+  private static PrometheusEndpoint startPrometheus(Properties props) {
+    String port = props.getProperty(Measurements.PROMETHEUS_PORT_PROPERTY);
+    if (port == null) {
+      return null;
+    }
+    try {
+      PrometheusEndpoint endpoint = new PrometheusEndpoint(Integer.parseInt(port));
+      System.err.println("Serving interval latencies on http://localhost:" + endpoint.getPort() + "/metrics");
+      Measurements.getMeasurements().addIntervalSink(endpoint);
+      return endpoint;
+    } catch (IOException | NumberFormatException e) {
+      System.err.println("Could not serve the interval latencies on port " + port + ": " + e);
+      System.exit(-1);
+      return null;
+    }
+  }
+
   /**
    * Exports the measurements to either sysout or a file using the exporter
    * loaded from conf.
    *
    * @throws IOException Either failed to write to output stream or failed to close it.
    */
-  private static void exportMeasurements(Properties props, int opcount, long runtime)
+  private static void exportMeasurements(Properties props, int opcount, long runtime, ClientOverhead overhead)
       throws IOException {
     MeasurementsExporter exporter = null;
     try {
-      // if no destination file is provided the results will be written to stdout
-      OutputStream out;
-      String exportFile = props.getProperty(EXPORT_FILE_PROPERTY);
-      if (exportFile == null) {
-        out = System.out;
-      } else {
-        out = new FileOutputStream(exportFile);
-      }
-
-      // if no exporter is provided the default text one will be used
-      String exporterStr = props.getProperty(EXPORTER_PROPERTY,
-          "com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter");
-      try {
-        exporter = (MeasurementsExporter) Class.forName(exporterStr).getConstructor(OutputStream.class)
-            .newInstance(out);
-      } catch (Exception e) {
-        System.err.println("Could not find exporter " + exporterStr
-            + ", will use default text reporter.");
-        e.printStackTrace();
-        exporter = new TextMeasurementsExporter(out);
-      }
+      exporter = openExporter(props);
 
       exporter.write("OVERALL", "RunTime(ms)", runtime);
       double throughput = 1000.0 * (opcount) / (runtime);
@@ -704,6 +1110,7 @@ public final class Client {
 
       exporter.write("TOTAL_GC_TIME", "Time(ms)", totalGCTime);
       exporter.write("TOTAL_GC_TIME_%", "Time(%)", ((double) totalGCTime / runtime) * (double) 100);
+      overhead.export(exporter);
       if (statusthread != null && statusthread.trackJVMStats()) {
         exporter.write("MAX_MEM_USED", "MBs", statusthread.getMaxUsedMem());
         exporter.write("MIN_MEM_USED", "MBs", statusthread.getMinUsedMem());
@@ -725,7 +1132,15 @@ public final class Client {
   public static void main(String[] args) {
     Properties props = parseArguments(args);
 
-    boolean status = Boolean.valueOf(props.getProperty(STATUS_PROPERTY, String.valueOf(false)));
+    if (Coordinator.isCoordinator(props)) {
+      Coordinator.run(args, props);
+    }
+    final CoordinatedWorker worker = CoordinatedWorker.connect(props);
+
+    // interval histogram outputs are fed by the status thread
+    boolean status = Boolean.valueOf(props.getProperty(STATUS_PROPERTY, String.valueOf(false)))
+        || props.getProperty(Measurements.INTERVAL_LOG_PROPERTY) != null
+        || props.getProperty(Measurements.PROMETHEUS_PORT_PROPERTY) != null;
     String label = props.getProperty(LABEL_PROPERTY, "");
 
     long maxExecutionTime = Integer.parseInt(props.getProperty(MAX_EXECUTION_TIME, "0"));
@@ -746,6 +1161,7 @@ public final class Client {
     warningthread.start();
 
     Measurements.setProperties(props);
+    final PrometheusEndpoint prometheus = startPrometheus(props);
 
     Workload workload = getWorkload(props);
 
@@ -758,6 +1174,7 @@ public final class Client {
 
     final List<ClientThread> clients = initDb(dbname, props, threadcount, targetperthreadperms,
         workload, tracer, completeLatch);
+    final ClientOverhead overhead = new ClientOverhead(props, clients);
 
     if (status) {
       boolean standardstatus = false;
@@ -769,6 +1186,7 @@ public final class Client {
           Measurements.MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT).equals("true");
       statusthread = new StatusThread(completeLatch, clients, label, standardstatus, statusIntervalSeconds,
           trackJVMStats);
+      statusthread.setOverhead(overhead);
       statusthread.start();
     }
 
@@ -779,13 +1197,20 @@ public final class Client {
 
     try (final TraceScope span = tracer.newScope(CLIENT_WORKLOAD_SPAN)) {
 
+      final ThreadFactory threadFactory = getThreadFactory(props);
       final Map<Thread, ClientThread> threads = new HashMap<>(threadcount);
       for (ClientThread client : clients) {
-        threads.put(new Thread(tracer.wrap(client, "ClientThread")), client);
+        threads.put(threadFactory.newThread(tracer.wrap(client, "ClientThread")), client);
       }
 
+      if (worker != null) {
+        worker.awaitStart(props);
+      }
       st = System.currentTimeMillis();
 
+      if (PhaseSchedule.getCurrent() != null) {
+        PhaseSchedule.getCurrent().run(workload);
+      }
       for (Thread t : threads.keySet()) {
         t.start();
       }
@@ -837,13 +1262,20 @@ public final class Client {
 
     try {
       try (final TraceScope span = tracer.newScope(CLIENT_EXPORT_MEASUREMENTS_SPAN)) {
-        exportMeasurements(props, opsDone, en - st);
+        if (worker != null) {
+          worker.finish(opsDone, en - st);
+        } else {
+          exportMeasurements(props, opsDone, en - st, overhead);
+        }
       }
     } catch (IOException e) {
       System.err.println("Could not export measurements, error: " + e.getMessage());
       e.printStackTrace();
       System.exit(-1);
     }
+    if (prometheus != null) {
+      prometheus.close();
+    }
 
     System.exit(0);
   }
@@ -853,6 +1285,7 @@ public final class Client {
                                            CountDownLatch completeLatch) {
     boolean initFailed = false;
     boolean dotransactions = Boolean.valueOf(props.getProperty(DO_TRANSACTIONS_PROPERTY, String.valueOf(true)));
+    int inflight = Integer.parseInt(props.getProperty(ASYNC_INFLIGHT_PROPERTY, ASYNC_INFLIGHT_PROPERTY_DEFAULT));
 
     final List<ClientThread> clients = new ArrayList<>(threadcount);
     try (final TraceScope span = tracer.newScope(CLIENT_INIT_SPAN)) {
@@ -867,16 +1300,16 @@ public final class Client {
         }
       }
 
-      for (int threadid = 0; threadid < threadcount; threadid++) {
-        DB db;
-        try {
-          db = DBFactory.newDB(dbname, props, tracer);
-        } catch (UnknownDBException e) {
-          System.out.println("Unknown DB " + dbname);
-          initFailed = true;
-          break;
-        }
+      ArrivalScheduler scheduler = null;
+      try {
+        scheduler = ArrivalScheduler.create(props, Double.parseDouble(props.getProperty(TARGET_PROPERTY, "0")),
+            opcount);
+      } catch (IOException | IllegalArgumentException e) {
+        System.err.println("Unable to set up the arrival scheduler: " + e.getMessage());
+        System.exit(0);
+      }
 
+      for (int threadid = 0; threadid < threadcount; threadid++) {
         int threadopcount = opcount / threadcount;
 
         // ensure correct number of operations, in case opcount is not a multiple of threadcount
@@ -884,10 +1317,30 @@ public final class Client {
           ++threadopcount;
         }
 
-        ClientThread t = new ClientThread(db, dotransactions, workload, props, threadopcount, targetperthreadperms,
-            completeLatch);
+        ClientThread t;
+        try {
+          if (inflight > 0) {
+            AsyncDB db = DBFactory.newAsyncDB(dbname, props, tracer);
+            if (db == null) {
+              throw new UnknownDBException();
+            }
+            t = new ClientThread(db, dotransactions, workload, props, threadopcount, targetperthreadperms,
+                completeLatch);
+          } else {
+            DB db = DBFactory.newDB(dbname, props, tracer);
+            t = new ClientThread(db, dotransactions, workload, props, threadopcount, targetperthreadperms,
+                completeLatch);
+          }
+        } catch (UnknownDBException e) {
+          System.out.println("Unknown DB " + dbname);
+          initFailed = true;
+          break;
+        }
         t.setThreadId(threadid);
         t.setThreadCount(threadcount);
+        if (scheduler != null) {
+          t.setArrivalScheduler(scheduler);
+        }
         clients.add(t);
       }
 
@@ -908,10 +1361,13 @@ public final class Client {
   private static void initWorkload(Properties props, Thread warningthread, Workload workload, Tracer tracer) {
     try {
       try (final TraceScope span = tracer.newScope(CLIENT_WORKLOAD_INIT_SPAN)) {
+        if (Boolean.valueOf(props.getProperty(DO_TRANSACTIONS_PROPERTY, String.valueOf(true)))) {
+          PhaseSchedule.setCurrent(PhaseSchedule.create(props));
+        }
         workload.init(props);
         warningthread.interrupt();
       }
-    } catch (WorkloadException e) {
+    } catch (WorkloadException | IllegalArgumentException e) {
       e.printStackTrace();
       e.printStackTrace(System.out);
       System.exit(0);
@@ -945,6 +1401,38 @@ public final class Client {
     };
   }
 
+  /**
+   * Returns the factory used to create the client threads as configured by the
+   * {@link #THREAD_FACTORY_PROPERTY} property. Virtual threads are looked up reflectively so the
+   * client still builds and runs on JDKs without them; there we fall back to platform threads.
+   */
+  static ThreadFactory getThreadFactory(Properties props) {
+    String kind = props.getProperty(THREAD_FACTORY_PROPERTY, THREAD_FACTORY_PROPERTY_DEFAULT);
+    if (kind.equals("platform")) {
+      return Thread::new;
+    }
+    if (kind.equals("virtual")) {
+      try {
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "ClientThread-", 0L);
+        return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      } catch (ReflectiveOperationException e) {
+        System.err.println("Virtual threads are not supported by this JVM (" + System.getProperty("java.version") +
+            "), falling back to platform threads.");
+        return Thread::new;
+      }
+    }
+    try {
+      return (ThreadFactory) Client.class.getClassLoader().loadClass(kind).newInstance();
+    } catch (Exception e) {
+      System.err.println("Unable to create thread factory " + kind + ": " + e);
+      e.printStackTrace(System.out);
+      System.exit(0);
+    }
+    return null;
+  }
+
   private static Workload getWorkload(Properties props) {
     ClassLoader classLoader = Client.class.getClassLoader();
 
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.DataFormatException;
+
+/**
+ * The worker side of a coordinated run, see {@link Coordinator}.
+ * <p>
+ * A client started with "coordinator.address" connects to the coordinator before doing
+ * anything else and receives its share of the key space or of the operations. Once it is
+ * set up it reports ready and waits for the common start time. While running it streams its
+ * interval latency histograms back instead of printing status, and when done it sends its
+ * return code counts and operation count instead of exporting measurements itself.
+ * <p>
+ * The protocol is line based; worker to coordinator: HELLO, READY, HIST name histogram,
+ * STATUS name status count and DONE operations runtime; coordinator to worker:
+ * ASSIGN key=value... and START epoch-millis.
+ */
+public final class CoordinatedWorker {
+  private final Socket socket;
+  private final BufferedReader in;
+  private final PrintWriter out;
+  private Thread streamer;
+
+  private CoordinatedWorker(Socket socket) throws IOException {
+    this.socket = socket;
+    in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Connects to the coordinator if "coordinator.address" is set, and applies the assignment
+   * it hands out to the properties.
+   *
+   * @return The connected worker, or null when not running under a coordinator.
+   */
+  public static CoordinatedWorker connect(Properties props) {
+    String address = props.getProperty(Coordinator.ADDRESS_PROPERTY);
+    if (address == null) {
+      return null;
+    }
+    try {
+      int colon = address.lastIndexOf(':');
+      CoordinatedWorker worker = new CoordinatedWorker(
+          new Socket(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+      worker.send("HELLO");
+      String[] assignment = worker.expect("ASSIGN");
+      for (int i = 1; i < assignment.length; i++) {
+        int eq = assignment[i].indexOf('=');
+        props.setProperty(assignment[i].substring(0, eq), assignment[i].substring(eq + 1));
+      }
+      System.err.println("Coordinated by " + address + ", assigned " + String.join(" ",
+          Arrays.copyOfRange(assignment, 1, assignment.length)));
+
+      // the coordinator reports status and needs histograms to merge
+      props.setProperty(Client.STATUS_PROPERTY, "false");
+      String type = props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "hdrhistogram");
+      if (!type.equals("hdrhistogram") && !type.equals("shardedhdrhistogram")) {
+        System.err.println("Coordinated runs need HdrHistogram measurements, ignoring " +
+            Measurements.MEASUREMENT_TYPE_PROPERTY + "=" + type);
+        props.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "hdrhistogram");
+      }
+      return worker;
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Could not connect to coordinator " + address + ": " + e);
+      e.printStackTrace();
+      System.exit(-1);
+    }
+    return null;
+  }
+
+  /**
+   * Reports this worker as ready, waits for the common start time and starts streaming
+   * interval histograms every "status.interval" seconds.
+   */
+  public void awaitStart(Properties props) {
+    try {
+      send("READY");
+      long startAt = Long.parseLong(expect("START")[1]);
+      long delay = startAt - System.currentTimeMillis();
+      if (delay > 0) {
+        Thread.sleep(delay);
+      }
+    } catch (IOException | InterruptedException e) {
+      System.err.println("Lost the coordinator while waiting for the start: " + e);
+      System.exit(-1);
+    }
+
+    final long intervalMs = 1000L * Integer.parseInt(props.getProperty("status.interval", "10"));
+    streamer = new Thread("CoordinatedWorker") {
+      @Override
+      public void run() {
+        try {
+          while (true) {
+            Thread.sleep(intervalMs);
+            sendIntervals();
+          }
+        } catch (InterruptedException e) {
+          // finishing
+        }
+      }
+    };
+    streamer.setDaemon(true);
+    streamer.start();
+  }
+
+  /**
+   * Sends the remaining latencies, the return code counts and the totals of this worker.
+   */
+  public void finish(long opsDone, long runtimeMs) {
+    streamer.interrupt();
+    try {
+      streamer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    sendIntervals();
+    for (Map.Entry<String, Map<Status, Integer>> measurement :
+        Measurements.getMeasurements().getStatusCounts().entrySet()) {
+      for (Map.Entry<Status, Integer> count : measurement.getValue().entrySet()) {
+        send("STATUS " + measurement.getKey() + " " + count.getKey().getName() + " " + count.getValue());
+      }
+    }
+    for (Map.Entry<String, Long> keys : Measurements.getMeasurements().getKeyCounts().entrySet()) {
+      send("KEYS " + keys.getKey() + " " + keys.getValue());
+    }
+    send("DONE " + opsDone + " " + runtimeMs);
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // the coordinator has everything it needs
+    }
+  }
+
+  private void sendIntervals() {
+    for (Map.Entry<String, Histogram> entry : Measurements.getMeasurements().getIntervalHistograms().entrySet()) {
+      if (entry.getValue().getTotalCount() > 0) {
+        send("HIST " + entry.getKey() + " " + encode(entry.getValue()));
+      }
+    }
+  }
+
+  private synchronized void send(String line) {
+    out.println(line);
+    out.flush();
+  }
+
+  private String[] expect(String command) throws IOException {
+    String line = in.readLine();
+    if (line == null || !line.startsWith(command)) {
+      throw new IOException("Expected " + command + " from the coordinator but got: " + line);
+    }
+    return line.split(" ");
+  }
+
+  static String encode(Histogram histogram) {
+    ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+    int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+    return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+  }
+
+  static Histogram decode(String encoded) throws DataFormatException {
+    return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+  }
+}
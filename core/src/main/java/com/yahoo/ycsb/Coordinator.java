@@ -0,0 +1,426 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.OneMeasurementHdrHistogram;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import com.yahoo.ycsb.workloads.CoreWorkload;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+
+/**
+ * Drives several client processes as one benchmark.
+ * <p>
+ * Running the client with "coordinator.workers" set to N turns it into a coordinator: it
+ * listens for N workers (by default it also starts them as local JVMs with the same command
+ * line), splits the inserts or the operations between them, starts them all at the same wall
+ * clock time, and merges the latency histograms they stream back. The final report is the
+ * usual one, except that percentiles are computed over the merged histograms of all workers
+ * instead of being averaged, and the throughput is that of all workers together.
+ * <p>
+ * Workers on other machines are started by hand with "-p coordinator.address=host:port" and
+ * otherwise the same arguments; set "coordinator.spawn" to false on the coordinator then.
+ * The worker clocks are assumed to be synchronized, e.g. by NTP.
+ */
+public final class Coordinator {
+  /**
+   * The number of workers to coordinate. Zero (the default) runs a normal client.
+   */
+  public static final String WORKERS_PROPERTY = "coordinator.workers";
+
+  /**
+   * Set on workers: the host:port of the coordinator to connect to.
+   */
+  public static final String ADDRESS_PROPERTY = "coordinator.address";
+
+  /**
+   * The port the coordinator listens on, 0 for any free port.
+   */
+  public static final String PORT_PROPERTY = "coordinator.port";
+
+  /**
+   * Whether the coordinator starts the workers as local processes.
+   */
+  public static final String SPAWN_PROPERTY = "coordinator.spawn";
+
+  /**
+   * How far in the future, in milliseconds, the common start time is set once all workers
+   * are ready.
+   */
+  public static final String START_DELAY_PROPERTY = "coordinator.startdelay";
+
+  /**
+   * Extra JVM arguments for spawned workers, separated by spaces.
+   */
+  public static final String JVM_ARGS_PROPERTY = "coordinator.jvmargs";
+
+  /**
+   * How long, in milliseconds, the coordinator waits for each worker to connect.
+   */
+  public static final String ACCEPT_TIMEOUT_PROPERTY = "coordinator.accepttimeout";
+
+  private final Properties props;
+  private final Map<String, OneMeasurementHdrHistogram> merged = new TreeMap<>();
+  private final Map<String, Histogram> interval = new TreeMap<>();
+  private long opsDone;
+  private long runtimeMs;
+  private int finished;
+
+  Coordinator(Properties props) {
+    this.props = props;
+  }
+
+  /**
+   * Whether the properties ask for a coordinator instead of a normal client.
+   */
+  public static boolean isCoordinator(Properties props) {
+    return Integer.parseInt(props.getProperty(WORKERS_PROPERTY, "0")) > 0;
+  }
+
+  /**
+   * Runs a coordinated benchmark and exits.
+   *
+   * @param args The command line, passed on to spawned workers.
+   * @param props The parsed command line.
+   */
+  public static void run(String[] args, Properties props) {
+    try {
+      new Coordinator(props).coordinate(args);
+    } catch (IOException | InterruptedException e) {
+      System.err.println("Coordinated run failed: " + e);
+      e.printStackTrace();
+      System.exit(-1);
+    }
+    System.exit(0);
+  }
+
+  private void coordinate(String[] args) throws IOException, InterruptedException {
+    int workers = Integer.parseInt(props.getProperty(WORKERS_PROPERTY));
+    try (ServerSocket server = new ServerSocket(Integer.parseInt(props.getProperty(PORT_PROPERTY, "0")))) {
+      System.err.println("Coordinator waiting for " + workers + " workers on port " + server.getLocalPort());
+      List<Process> processes = new ArrayList<>();
+      if (Boolean.parseBoolean(props.getProperty(SPAWN_PROPERTY, "true"))) {
+        for (int i = 0; i < workers; i++) {
+          processes.add(spawn(args, server.getLocalPort(), i));
+        }
+      }
+
+      List<Connection> connections = new ArrayList<>(workers);
+      server.setSoTimeout(Integer.parseInt(props.getProperty(ACCEPT_TIMEOUT_PROPERTY, "120000")));
+      for (int i = 0; i < workers; i++) {
+        Connection connection;
+        try {
+          connection = new Connection(server.accept());
+        } catch (SocketTimeoutException e) {
+          for (Process process : processes) {
+            process.destroy();
+          }
+          throw new IOException("Only " + i + " of " + workers + " workers connected within " +
+              server.getSoTimeout() + " ms, see " + ACCEPT_TIMEOUT_PROPERTY, e);
+        }
+        connection.expect("HELLO");
+        connection.send("ASSIGN " + assignment(i, workers));
+        connections.add(connection);
+      }
+      for (Connection connection : connections) {
+        connection.expect("READY");
+      }
+
+      long startAt = System.currentTimeMillis() + Long.parseLong(props.getProperty(START_DELAY_PROPERTY, "2000"));
+      for (Connection connection : connections) {
+        connection.send("START " + startAt);
+      }
+      System.err.println("Starting test.");
+
+      List<Thread> readers = new ArrayList<>(workers);
+      for (final Connection connection : connections) {
+        Thread reader = new Thread("Coordinator-reader") {
+          @Override
+          public void run() {
+            collect(connection);
+          }
+        };
+        reader.start();
+        readers.add(reader);
+      }
+      Thread status = startStatus(startAt);
+      for (Thread reader : readers) {
+        reader.join();
+      }
+      if (status != null) {
+        status.interrupt();
+      }
+      for (Process process : processes) {
+        process.waitFor();
+      }
+    }
+
+    if (finished < workers) {
+      System.err.println("WARNING: only " + finished + " of " + workers + " workers finished, " +
+          "the results are incomplete.");
+    }
+    export();
+  }
+
+  /**
+   * Splits the inserts (load) or the operations (run) evenly between the workers, as well as
+   * the target and phase target rates so that all workers together offer the requested rate.
+   */
+  String assignment(int worker, int workers) {
+    return counts(worker, workers) + rates(worker, workers);
+  }
+
+  private String counts(int worker, int workers) {
+    boolean dotransactions = Boolean.valueOf(props.getProperty(Client.DO_TRANSACTIONS_PROPERTY, "true"));
+    if (dotransactions) {
+      long opcount = Long.parseLong(props.getProperty(Client.OPERATION_COUNT_PROPERTY, "0"));
+      return Client.OPERATION_COUNT_PROPERTY + "=" + share(0, opcount, worker, workers)[1];
+    }
+    long recordcount = Long.parseLong(props.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT));
+    long insertstart = Long.parseLong(props.getProperty(CoreWorkload.INSERT_START_PROPERTY, "0"));
+    long insertcount = Long.parseLong(props.getProperty(Client.INSERT_COUNT_PROPERTY,
+        String.valueOf(recordcount - insertstart)));
+    long[] range = share(insertstart, insertcount, worker, workers);
+    return CoreWorkload.INSERT_START_PROPERTY + "=" + range[0] + " " + Client.INSERT_COUNT_PROPERTY + "=" + range[1];
+  }
+
+  private String rates(int worker, int workers) {
+    StringBuilder rates = new StringBuilder();
+    long target = Long.parseLong(props.getProperty(Client.TARGET_PROPERTY, "0"));
+    if (target > 0) {
+      // a share of 0 would mean unthrottled
+      rates.append(' ').append(Client.TARGET_PROPERTY).append('=')
+          .append(Math.max(1, share(0, target, worker, workers)[1]));
+    }
+    for (String key : props.stringPropertyNames()) {
+      if (key.startsWith(PhaseSchedule.PHASE_PROPERTY_PREFIX)
+          && (key.endsWith(".target") || key.endsWith(".targetend"))) {
+        rates.append(' ').append(key).append('=').append(Double.parseDouble(props.getProperty(key)) / workers);
+      }
+    }
+    return rates.toString();
+  }
+
+  static long[] share(long start, long count, int worker, int workers) {
+    long lo = start + count * worker / workers;
+    long hi = start + count * (worker + 1) / workers;
+    return new long[] {lo, hi - lo};
+  }
+
+  private Process spawn(String[] args, int port, final int worker) throws IOException {
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    String jvmArgs = props.getProperty(JVM_ARGS_PROPERTY, "").trim();
+    if (!jvmArgs.isEmpty()) {
+      command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+    }
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(Client.class.getName());
+    command.addAll(Arrays.asList(args));
+    command.add("-p");
+    command.add(WORKERS_PROPERTY + "=0");
+    command.add("-p");
+    command.add(ADDRESS_PROPERTY + "=127.0.0.1:" + port);
+
+    final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    // keep the coordinator's stdout for the merged report
+    Thread pump = new Thread("Coordinator-worker-" + worker) {
+      @Override
+      public void run() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+            StandardCharsets.UTF_8))) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            System.err.println("[worker " + worker + "] " + line);
+          }
+        } catch (IOException e) {
+          // the worker is gone
+        }
+      }
+    };
+    pump.setDaemon(true);
+    pump.start();
+    return process;
+  }
+
+  private void collect(Connection connection) {
+    try {
+      String line;
+      while ((line = connection.in.readLine()) != null) {
+        String[] parts = line.split(" ");
+        switch (parts[0]) {
+        case "HIST":
+          addHistogram(parts[1], CoordinatedWorker.decode(parts[2]));
+          break;
+        case "STATUS":
+          measurement(parts[1]).reportStatus(new Status(parts[2], ""), Integer.parseInt(parts[3]));
+          break;
+        case "KEYS":
+          measurement(parts[1]).reportKeys(Long.parseLong(parts[2]));
+          break;
+        case "DONE":
+          done(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+          return;
+        default:
+          System.err.println("Ignoring unexpected message from worker: " + line);
+        }
+      }
+      System.err.println("A worker disconnected before finishing.");
+    } catch (IOException | DataFormatException | RuntimeException e) {
+      System.err.println("Lost a worker: " + e);
+    } finally {
+      connection.close();
+    }
+  }
+
+  private synchronized OneMeasurementHdrHistogram measurement(String name) {
+    OneMeasurementHdrHistogram m = merged.get(name);
+    if (m == null) {
+      m = new OneMeasurementHdrHistogram(name, props);
+      merged.put(name, m);
+    }
+    return m;
+  }
+
+  private synchronized void addHistogram(String name, Histogram histogram) {
+    measurement(name).addToTotals(histogram);
+    Histogram current = interval.get(name);
+    if (current == null) {
+      interval.put(name, histogram);
+    } else {
+      current.add(histogram);
+    }
+  }
+
+  private synchronized void done(long ops, long runtime) {
+    opsDone += ops;
+    runtimeMs = Math.max(runtimeMs, runtime);
+    finished++;
+  }
+
+  /**
+   * Prints the merged interval latencies every "status.interval" seconds if status was requested.
+   */
+  private Thread startStatus(final long startAt) {
+    if (!Boolean.valueOf(props.getProperty(Client.STATUS_PROPERTY, "false"))) {
+      return null;
+    }
+    final long intervalMs = 1000L * Integer.parseInt(props.getProperty("status.interval", "10"));
+    Thread status = new Thread("Coordinator-status") {
+      @Override
+      public void run() {
+        DecimalFormat d = new DecimalFormat("#.##");
+        try {
+          while (true) {
+            Thread.sleep(intervalMs);
+            StringBuilder msg = new StringBuilder();
+            msg.append((System.currentTimeMillis() - startAt) / 1000).append(" sec:");
+            synchronized (Coordinator.this) {
+              for (Map.Entry<String, Histogram> entry : interval.entrySet()) {
+                Histogram h = entry.getValue();
+                msg.append(" [").append(entry.getKey()).append(": Count=").append(h.getTotalCount())
+                    .append(", Avg=").append(d.format(h.getMean()))
+                    .append(", 99=").append(h.getValueAtPercentile(99)).append("]");
+              }
+              interval.clear();
+            }
+            System.err.println(msg);
+          }
+        } catch (InterruptedException e) {
+          // done
+        }
+      }
+    };
+    status.setDaemon(true);
+    status.start();
+    return status;
+  }
+
+  private synchronized void export() throws IOException {
+    MeasurementsExporter exporter = null;
+    try {
+      exporter = Client.openExporter(props);
+      exporter.write("OVERALL", "RunTime(ms)", runtimeMs);
+      exporter.write("OVERALL", "Throughput(ops/sec)", 1000.0 * opsDone / runtimeMs);
+      exporter.write("OVERALL", "Workers", finished);
+      for (OneMeasurementHdrHistogram m : merged.values()) {
+        m.exportMeasurements(exporter);
+      }
+    } finally {
+      if (exporter != null) {
+        exporter.close();
+      }
+    }
+  }
+
+  /**
+   * The coordinator end of a worker connection.
+   */
+  private static final class Connection {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    private Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      InputStream input = socket.getInputStream();
+      in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+      out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    private void send(String line) {
+      out.println(line);
+      out.flush();
+    }
+
+    private void expect(String command) throws IOException {
+      String line = in.readLine();
+      if (line == null || !line.startsWith(command)) {
+        throw new IOException("Expected " + command + " from a worker but got: " + line);
+      }
+    }
+
+    private void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // nothing left to do
+      }
+    }
+  }
+}
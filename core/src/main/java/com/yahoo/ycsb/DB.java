@@ -18,6 +18,7 @@
 package com.yahoo.ycsb;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -132,4 +133,94 @@ public abstract class DB {
    * @return The result of the operation.
    */
   public abstract Status delete(String table, String key);
+
+  /**
+   * Read several records from the database in one batch. Bindings whose database supports
+   * multi-gets or pipelining should override this; the default reads the keys one by one.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param results One map per key, in the order of the keys, filled with the field/value pairs of that record
+   * @return OK if every record was read, otherwise the status of the first failed read.
+   */
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    Status status = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      status = firstFailure(status, read(table, keys.get(i), fields, results.get(i)));
+    }
+    return status;
+  }
+
+  /**
+   * Insert several records in the database in one batch. Bindings whose database supports
+   * batched writes or pipelining should override this; the default inserts the keys one by one.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to insert.
+   * @param values One map of field/value pairs per key, in the order of the keys
+   * @return OK if every record was inserted, otherwise the status of the first failed insert.
+   */
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    Status status = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      status = firstFailure(status, insert(table, keys.get(i), values.get(i)));
+    }
+    return status;
+  }
+
+  /**
+   * Load a batch of new records during a bulk load (see the "bulkload" property of the core
+   * workload). The keys of one call are in ascending order, and the records are not read before
+   * the load is complete, so bindings can write them as sorted files or through a native bulk
+   * import instead of regular inserts. Only the keys of one call are sorted: successive calls are
+   * in key order with ordered inserts, for which the workload requires enough zero padding, but
+   * with hashed keys their key ranges overlap. The default inserts them through
+   * {@link #batchInsert(String, List, List)}.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to load, in ascending order.
+   * @param values One map of field/value pairs per key, in the order of the keys
+   * @return OK if every record was loaded, otherwise the status of the first failure.
+   */
+  public Status bulkLoad(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    return batchInsert(table, keys, values);
+  }
+
+  /**
+   * Update several records in the database in one batch. Bindings whose database supports
+   * batched writes or pipelining should override this; the default updates the keys one by one.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to write.
+   * @param values One map of field/value pairs per key, in the order of the keys
+   * @return OK if every record was updated, otherwise the status of the first failed update.
+   */
+  public Status batchUpdate(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    Status status = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      status = firstFailure(status, update(table, keys.get(i), values.get(i)));
+    }
+    return status;
+  }
+
+  /**
+   * Delete several records from the database in one batch. The default deletes the keys one by one.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to delete.
+   * @return OK if every record was deleted, otherwise the status of the first failed delete.
+   */
+  public Status batchDelete(String table, List<String> keys) {
+    Status status = Status.OK;
+    for (String key : keys) {
+      status = firstFailure(status, delete(table, key));
+    }
+    return status;
+  }
+
+  private static Status firstFailure(Status current, Status next) {
+    return (current == null || !current.isOk()) ? current : next;
+  }
 }
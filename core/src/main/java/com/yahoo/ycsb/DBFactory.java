@@ -48,4 +48,33 @@ public final class DBFactory {
     return new DBWrapper(ret, tracer);
   }
 
+  /**
+   * Creates an asynchronous DB layer. If the class is an {@link AsyncDB} it is used directly,
+   * otherwise the blocking {@link DB} is exposed through an {@link AsyncDBAdapter}.
+   */
+  public static AsyncDB newAsyncDB(String dbname, Properties properties, final Tracer tracer)
+      throws UnknownDBException {
+    ClassLoader classLoader = DBFactory.class.getClassLoader();
+
+    AsyncDB ret;
+
+    try {
+      Class dbclass = classLoader.loadClass(dbname);
+
+      Object instance = dbclass.newInstance();
+      if (instance instanceof AsyncDB) {
+        ret = (AsyncDB) instance;
+      } else {
+        ret = new AsyncDBAdapter((DB) instance);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      return null;
+    }
+
+    ret.setProperties(properties);
+
+    return new AsyncDBWrapper(ret, tracer);
+  }
+
 }
@@ -28,18 +28,30 @@ import java.util.*;
  * Wrapper around a "real" DB that measures latencies and counts return codes.
  * Also reports latency separately between OK and failed operations.
  */
-public class DBWrapper extends DB {
+public class DBWrapper extends DB implements TimeseriesStore {
   private final DB db;
   private final Measurements measurements;
+  private TimeseriesAdapter timeseriesAdapter;
   private final Tracer tracer;
 
   private boolean reportLatencyForEachError = false;
   private Set<String> latencyTrackedErrors = new HashSet<String>();
 
-  private static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY = "reportlatencyforeacherror";
-  private static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT = "false";
+  /**
+   * Measurement names of failed operations by operation and status name, so that the names are
+   * only built once per wrapper instead of on every failure. Keyed by the name rather than the
+   * status, as bindings put per key details in the description.
+   */
+  private final Map<String, Map<String, String>> failedMeasurementNames = new HashMap<>();
+
+  // written only by the owning client thread, read by the status thread
+  private volatile long dbTimeNs;
+  private volatile long measurementTimeNs;
 
-  private static final String LATENCY_TRACKED_ERRORS_PROPERTY = "latencytrackederrors";
+  static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY = "reportlatencyforeacherror";
+  static final String REPORT_LATENCY_FOR_EACH_ERROR_PROPERTY_DEFAULT = "false";
+
+  static final String LATENCY_TRACKED_ERRORS_PROPERTY = "latencytrackederrors";
 
   private final String scopeStringCleanup;
   private final String scopeStringDelete;
@@ -48,6 +60,11 @@ public class DBWrapper extends DB {
   private final String scopeStringRead;
   private final String scopeStringScan;
   private final String scopeStringUpdate;
+  private final String scopeStringBatchRead;
+  private final String scopeStringBatchInsert;
+  private final String scopeStringBatchUpdate;
+  private final String scopeStringBatchDelete;
+  private final String scopeStringBulkLoad;
 
   public DBWrapper(final DB db, final Tracer tracer) {
     this.db = db;
@@ -61,6 +78,11 @@ public class DBWrapper extends DB {
     scopeStringRead = simple + "#read";
     scopeStringScan = simple + "#scan";
     scopeStringUpdate = simple + "#update";
+    scopeStringBatchRead = simple + "#batchRead";
+    scopeStringBatchInsert = simple + "#batchInsert";
+    scopeStringBatchUpdate = simple + "#batchUpdate";
+    scopeStringBatchDelete = simple + "#batchDelete";
+    scopeStringBulkLoad = simple + "#bulkLoad";
   }
 
   /**
@@ -113,7 +135,8 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       db.cleanup();
       long en = System.nanoTime();
-      measure("CLEANUP", Status.OK, ist, st, en);
+      // cleanup runs after the client thread has stopped its clock, keep it out of the totals
+      record("CLEANUP", null, Status.OK, ist, st, en);
     }
   }
 
@@ -134,7 +157,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.read(table, key, fields, result);
       long en = System.nanoTime();
-      measure("READ", res, ist, st, en);
+      measure("READ", table, res, ist, st, en);
       measurements.reportStatus("READ", res);
       return res;
     }
@@ -158,27 +181,73 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.scan(table, startkey, recordcount, fields, result);
       long en = System.nanoTime();
-      measure("SCAN", res, ist, st, en);
+      measure("SCAN", table, res, ist, st, en);
       measurements.reportStatus("SCAN", res);
       return res;
     }
   }
 
-  private void measure(String op, Status result, long intendedStartTimeNanos,
+  private void measure(String op, String table, Status result, long intendedStartTimeNanos,
                        long startTimeNanos, long endTimeNanos) {
+    record(op, table, result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+    account(startTimeNanos, endTimeNanos);
+  }
+
+  /**
+   * Adds one call to the time spent in the DB and the time spent measuring it since the call
+   * returned.
+   */
+  private void account(long startTimeNanos, long endTimeNanos) {
+    dbTimeNs += endTimeNanos - startTimeNanos;
+    measurementTimeNs += System.nanoTime() - endTimeNanos;
+  }
+
+  /**
+   * The total time spent in calls to the wrapped DB.
+   */
+  long getDbTimeNs() {
+    return dbTimeNs;
+  }
+
+  /**
+   * The total time spent recording the latencies of the calls to the wrapped DB.
+   */
+  long getMeasurementTimeNs() {
+    return measurementTimeNs;
+  }
+
+  private void record(String op, String table, Status result, long intendedStartTimeNanos,
+                      long startTimeNanos, long endTimeNanos) {
     String measurementName = op;
     if (result == null || !result.isOk()) {
+      measurementName = failedMeasurementName(op, result);
+    }
+    measurements.measure(measurementName, table,
+        (int) ((endTimeNanos - startTimeNanos) / 1000));
+    measurements.measureIntended(measurementName, table,
+        (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+  }
+
+  private String failedMeasurementName(String op, Status result) {
+    if (result == null) {
+      return op + "-FAILED";
+    }
+    Map<String, String> names = failedMeasurementNames.get(op);
+    if (names == null) {
+      names = new HashMap<>();
+      failedMeasurementNames.put(op, names);
+    }
+    String name = names.get(result.getName());
+    if (name == null) {
       if (this.reportLatencyForEachError ||
           this.latencyTrackedErrors.contains(result.getName())) {
-        measurementName = op + "-" + result.getName();
+        name = op + "-" + result.getName();
       } else {
-        measurementName = op + "-FAILED";
+        name = op + "-FAILED";
       }
+      names.put(result.getName(), name);
     }
-    measurements.measure(measurementName,
-        (int) ((endTimeNanos - startTimeNanos) / 1000));
-    measurements.measureIntended(measurementName,
-        (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+    return name;
   }
 
   /**
@@ -197,7 +266,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.update(table, key, values);
       long en = System.nanoTime();
-      measure("UPDATE", res, ist, st, en);
+      measure("UPDATE", table, res, ist, st, en);
       measurements.reportStatus("UPDATE", res);
       return res;
     }
@@ -220,7 +289,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.insert(table, key, values);
       long en = System.nanoTime();
-      measure("INSERT", res, ist, st, en);
+      measure("INSERT", table, res, ist, st, en);
       measurements.reportStatus("INSERT", res);
       return res;
     }
@@ -239,9 +308,205 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       Status res = db.delete(table, key);
       long en = System.nanoTime();
-      measure("DELETE", res, ist, st, en);
+      measure("DELETE", table, res, ist, st, en);
       measurements.reportStatus("DELETE", res);
       return res;
     }
   }
+
+  /**
+   * Read a time series data point through the typed operation of the DB, or through
+   * {@link #read(String, String, Set, Map)} if the DB has none. Measured as "READ".
+   */
+  @Override
+  public Status readPoint(String table, TimeseriesQuery query, Map<String, ByteIterator> result) {
+    if (!(db instanceof TimeseriesStore)) {
+      return timeseriesAdapter().readPoint(table, query, result);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringRead)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = ((TimeseriesStore) db).readPoint(table, query, result);
+      long en = System.nanoTime();
+      measure("READ", table, res, ist, st, en);
+      measurements.reportStatus("READ", res);
+      return res;
+    }
+  }
+
+  /**
+   * Scan a time series range through the typed operation of the DB, or through
+   * {@link #scan(String, String, int, Set, Vector)} if the DB has none. Measured as "SCAN".
+   */
+  @Override
+  public Status scanSeries(String table, TimeseriesQuery query, Vector<HashMap<String, ByteIterator>> result) {
+    if (!(db instanceof TimeseriesStore)) {
+      return timeseriesAdapter().scanSeries(table, query, result);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringScan)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = ((TimeseriesStore) db).scanSeries(table, query, result);
+      long en = System.nanoTime();
+      measure("SCAN", table, res, ist, st, en);
+      measurements.reportStatus("SCAN", res);
+      return res;
+    }
+  }
+
+  /**
+   * Insert a time series data point through the typed operation of the DB, or through
+   * {@link #insert(String, String, Map)} if the DB has none. Measured as "INSERT".
+   */
+  @Override
+  public Status insertPoint(String table, TimeseriesPoint point) {
+    if (!(db instanceof TimeseriesStore)) {
+      return timeseriesAdapter().insertPoint(table, point);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = ((TimeseriesStore) db).insertPoint(table, point);
+      long en = System.nanoTime();
+      measure("INSERT", table, res, ist, st, en);
+      measurements.reportStatus("INSERT", res);
+      return res;
+    }
+  }
+
+  /**
+   * Insert time series data points in one write through the typed operation of the DB, or
+   * through {@link #batchInsert(String, List, List)} if the DB has none. Measured as
+   * "BATCH-INSERT".
+   */
+  @Override
+  public Status insertPoints(String table, List<TimeseriesPoint> points) {
+    if (!(db instanceof TimeseriesStore)) {
+      return timeseriesAdapter().insertPoints(table, points);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringBatchInsert)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = ((TimeseriesStore) db).insertPoints(table, points);
+      long en = System.nanoTime();
+      measureBatch("BATCH-INSERT", table, points.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  /**
+   * Update a time series data point through the typed operation of the DB, or through
+   * {@link #update(String, String, Map)} if the DB has none. Measured as "UPDATE".
+   */
+  @Override
+  public Status updatePoint(String table, TimeseriesPoint point) {
+    if (!(db instanceof TimeseriesStore)) {
+      return timeseriesAdapter().updatePoint(table, point);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = ((TimeseriesStore) db).updatePoint(table, point);
+      long en = System.nanoTime();
+      measure("UPDATE", table, res, ist, st, en);
+      measurements.reportStatus("UPDATE", res);
+      return res;
+    }
+  }
+
+  /**
+   * Encodes the typed time series operations for a DB without them, running them through this
+   * wrapper so they are measured as usual.
+   */
+  private TimeseriesAdapter timeseriesAdapter() {
+    if (timeseriesAdapter == null) {
+      timeseriesAdapter = new TimeseriesAdapter(this, getProperties());
+    }
+    return timeseriesAdapter;
+  }
+
+  /**
+   * Read several records in one batch. The batch is measured as "BATCH-READ", which also counts
+   * its keys. The keys are not measured one by one as the batch does not tell what each took.
+   */
+  @Override
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchRead)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchRead(table, keys, fields, results);
+      long en = System.nanoTime();
+      measureBatch("BATCH-READ", table, keys.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  /**
+   * Insert several records in one batch, measured as "BATCH-INSERT".
+   */
+  @Override
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchInsert)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchInsert(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch("BATCH-INSERT", table, keys.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  /**
+   * Load a batch of new records, measured as "BULK-LOAD".
+   */
+  @Override
+  public Status bulkLoad(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBulkLoad)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.bulkLoad(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch("BULK-LOAD", table, keys.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  /**
+   * Update several records in one batch, measured as "BATCH-UPDATE".
+   */
+  @Override
+  public Status batchUpdate(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchUpdate)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchUpdate(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch("BATCH-UPDATE", table, keys.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  /**
+   * Delete several records in one batch, measured as "BATCH-DELETE".
+   */
+  @Override
+  public Status batchDelete(String table, List<String> keys) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchDelete)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchDelete(table, keys);
+      long en = System.nanoTime();
+      measureBatch("BATCH-DELETE", table, keys.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  private void measureBatch(String batchOp, String table, int size, Status result,
+                            long intendedStartTimeNanos, long startTimeNanos, long endTimeNanos) {
+    record(batchOp, table, result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+    measurements.reportStatus(batchOp, result);
+    measurements.reportKeys(batchOp, size);
+    account(startTimeNanos, endTimeNanos);
+  }
 }
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A ByteIterator producing a reproducible sequence of printable bytes derived from a record
+ * key and field name, for writing values that can be verified when they are read back.
+ * <p>
+ * Each 8 bytes of the sequence are one output of a counter-mode generator (a SplitMix64
+ * finalizer applied to the seed plus a multiple of the block index), so any position can be
+ * computed independently and whole buffers are filled without strings, hashing of
+ * intermediate text or per-byte random number calls. {@link #verify} compares a returned
+ * value against the sequence as it streams through, without building the expected value.
+ */
+public class DeterministicByteIterator extends ByteIterator {
+  private static final long GAMMA = 0x9E3779B97F4A7C15L;
+  private static final int VERIFY_BUFFER_SIZE = 4096;
+
+  private static final ThreadLocal<byte[]> VERIFY_BUFFER = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[VERIFY_BUFFER_SIZE];
+    }
+  };
+
+  private long seed;
+  private long len;
+  private long off;
+
+  public DeterministicByteIterator(String key, String field, long len) {
+    reuse(key, field, len);
+  }
+
+  /**
+   * Starts over with the sequence of another key and field.
+   */
+  public DeterministicByteIterator reuse(String key, String field, long length) {
+    this.seed = seed(key, field);
+    this.len = length;
+    this.off = 0;
+    return this;
+  }
+
+  /**
+   * The FNV-1a hash of the key and field, separated by a zero.
+   */
+  static long seed(String key, String field) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+    }
+    hash *= 0x100000001B3L;
+    for (int i = 0; i < field.length(); i++) {
+      hash = (hash ^ field.charAt(i)) * 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  /**
+   * The 8 bytes of the sequence starting at position 8 * block, low byte first.
+   */
+  static long block(long seed, long block) {
+    long z = seed + (block + 1) * GAMMA;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Maps the low 6 bits of a value to the printable characters '0' to 'o'.
+   */
+  static byte printable(long bits) {
+    return (byte) ('0' + (bits & 63));
+  }
+
+  @Override
+  public boolean hasNext() {
+    return off < len;
+  }
+
+  @Override
+  public byte nextByte() {
+    byte b = printable(block(seed, off >>> 3) >>> ((off & 7) << 3));
+    off++;
+    return b;
+  }
+
+  @Override
+  public int nextBuf(byte[] buffer, int bufOffset) {
+    int n = (int) Math.min(len - off, buffer.length - bufOffset);
+    fill(seed, off, buffer, bufOffset, n);
+    off += n;
+    return bufOffset + n;
+  }
+
+  /**
+   * Writes n bytes of the sequence of the given seed starting at position pos into the buffer.
+   */
+  static void fill(long seed, long pos, byte[] buffer, int offset, int n) {
+    int i = 0;
+    // leading bytes up to a block boundary
+    while (i < n && ((pos + i) & 7) != 0) {
+      buffer[offset + i] = printable(block(seed, (pos + i) >>> 3) >>> (((pos + i) & 7) << 3));
+      i++;
+    }
+    // whole blocks, mapped to printable bytes all at once and stored with one write
+    if (n - i >= 8) {
+      ByteBuffer out = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+      for (; i + 8 <= n; i += 8) {
+        out.putLong(offset + i, (block(seed, (pos + i) >>> 3) & 0x3F3F3F3F3F3F3F3FL) + 0x3030303030303030L);
+      }
+    }
+    if (i < n) {
+      long bits = block(seed, (pos + i) >>> 3);
+      for (int shift = 0; i < n; i++, shift += 8) {
+        buffer[offset + i] = printable(bits >>> shift);
+      }
+    }
+  }
+
+  @Override
+  public long bytesLeft() {
+    return len - off;
+  }
+
+  @Override
+  public void reset() {
+    off = 0;
+  }
+
+  /**
+   * Checks that a value read back is the sequence written for the key and field, consuming
+   * the value.
+   *
+   * @param length The expected length of the value.
+   * @return Whether the value has the expected length and content.
+   */
+  public static boolean verify(String key, String field, long length, ByteIterator value) {
+    if (value.bytesLeft() != length) {
+      return false;
+    }
+    long seed = seed(key, field);
+    byte[] buffer = VERIFY_BUFFER.get();
+    long pos = 0;
+    long bits = 0;
+    while (value.hasNext()) {
+      int n = value.nextBuf(buffer, 0);
+      for (int i = 0; i < n; i++, pos++) {
+        if ((pos & 7) == 0) {
+          bits = block(seed, pos >>> 3);
+        }
+        if (buffer[i] != printable(bits >>> ((pos & 7) << 3))) {
+          return false;
+        }
+      }
+    }
+    return pos == length;
+  }
+}
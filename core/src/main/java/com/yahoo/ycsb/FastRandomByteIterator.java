@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A ByteIterator that generates random printable bytes a whole buffer at a time, optionally
+ * with a target compression ratio.
+ * <p>
+ * Every value draws one random seed and expands it with the same counter-mode generator as
+ * {@link DeterministicByteIterator}, writing 8 bytes per generator step directly into the
+ * buffers passed to {@link #nextBuf(byte[], int)} and {@link #toArray()}. With a compression
+ * ratio r above 1, only the first 1/r of a value is random and the rest repeats it, so block
+ * compressors (LZ4, Snappy, Zstd) shrink the value by about r, as in the compressible values
+ * of RocksDB's db_bench.
+ */
+public class FastRandomByteIterator extends ByteIterator {
+  private final double compressionRatio;
+  private long seed;
+  private long len;
+  private long off;
+  private long period;
+
+  public FastRandomByteIterator(long len) {
+    this(len, 1.0);
+  }
+
+  /**
+   * @param len The length of the value.
+   * @param compressionRatio The ratio of the length to the random part of the value, at least 1.
+   */
+  public FastRandomByteIterator(long len, double compressionRatio) {
+    if (!(compressionRatio >= 1.0)) {
+      throw new IllegalArgumentException("The compression ratio must be at least 1: " + compressionRatio);
+    }
+    this.compressionRatio = compressionRatio;
+    reuse(len);
+  }
+
+  /**
+   * Starts over with a fresh random value of the given length.
+   */
+  public FastRandomByteIterator reuse(long length) {
+    this.seed = ThreadLocalRandom.current().nextLong();
+    this.len = length;
+    this.off = 0;
+    this.period = Math.max(1, (long) Math.ceil(length / compressionRatio));
+    return this;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return off < len;
+  }
+
+  @Override
+  public byte nextByte() {
+    long pos = off % period;
+    off++;
+    long bits = DeterministicByteIterator.block(seed, pos >>> 3);
+    return DeterministicByteIterator.printable(bits >>> ((pos & 7) << 3));
+  }
+
+  @Override
+  public int nextBuf(byte[] buffer, int bufOffset) {
+    int n = (int) Math.min(len - off, buffer.length - bufOffset);
+    int end = bufOffset + n;
+    int at = bufOffset;
+    while (at < end) {
+      long pos = off % period;
+      int chunk = (int) Math.min(end - at, period - pos);
+      if (at - period >= bufOffset) {
+        // the same part of the previous period is already in the buffer
+        System.arraycopy(buffer, (int) (at - period), buffer, at, chunk);
+      } else {
+        DeterministicByteIterator.fill(seed, pos, buffer, at, chunk);
+      }
+      at += chunk;
+      off += chunk;
+    }
+    return end;
+  }
+
+  @Override
+  public long bytesLeft() {
+    return len - off;
+  }
+
+  @Override
+  public void reset() {
+    off = 0;
+  }
+}
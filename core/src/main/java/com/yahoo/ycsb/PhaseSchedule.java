@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A sequence of timed phases that changes the load during a run.
+ * <p>
+ * The "phases" property lists the phase names in order. Each phase runs for
+ * "phase.NAME.duration" seconds, and the run ends after the last one. The rate ramps linearly
+ * from "phase.NAME.target" to "phase.NAME.targetend" operations per second over the phase
+ * (0 for unthrottled); the arrivals are generated by an {@link ArrivalScheduler}, using
+ * "arrival.process" fixed (the default) or poisson. Any other "phase.NAME.*" property overrides
+ * the workload property of the same name for that phase, so the core workload can switch its
+ * operation mix and request distribution. Latencies are recorded both under the operation
+ * name and under "OPERATION@NAME" for the phase running when they are recorded.
+ */
+public final class PhaseSchedule {
+  /**
+   * The comma separated names of the phases, in order.
+   */
+  public static final String PHASES_PROPERTY = "phases";
+
+  /**
+   * The prefix of the per phase properties.
+   */
+  public static final String PHASE_PROPERTY_PREFIX = "phase.";
+
+  private static volatile PhaseSchedule current;
+
+  private final List<Phase> phases;
+  private final long[] endOffsetsNs;
+  private volatile long startNs;
+
+  /**
+   * One phase of the schedule.
+   */
+  public static final class Phase {
+    private final String name;
+    private final long durationNs;
+    private final double target;
+    private final double targetEnd;
+    private final Properties properties;
+    private final Properties overrides;
+
+    private Phase(String name, long durationNs, double target, double targetEnd, Properties properties,
+                  Properties overrides) {
+      this.name = name;
+      this.durationNs = durationNs;
+      this.target = target;
+      this.targetEnd = targetEnd;
+      this.properties = properties;
+      this.overrides = overrides;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getDurationNs() {
+      return durationNs;
+    }
+
+    /**
+     * The properties of this phase: its overrides backed by the run properties.
+     */
+    public Properties getProperties() {
+      return properties;
+    }
+
+    /**
+     * The overrides of this phase backed by other properties, such as those of one table.
+     */
+    public Properties getProperties(Properties defaults) {
+      Properties props = new Properties(defaults);
+      props.putAll(overrides);
+      return props;
+    }
+
+    /**
+     * Whether this phase overrides the given property.
+     */
+    public boolean overrides(String property) {
+      return overrides.containsKey(property);
+    }
+  }
+
+  private PhaseSchedule(List<Phase> phases) {
+    this.phases = Collections.unmodifiableList(phases);
+    endOffsetsNs = new long[phases.size()];
+    long end = 0;
+    for (int i = 0; i < endOffsetsNs.length; i++) {
+      end += phases.get(i).durationNs;
+      endOffsetsNs[i] = end;
+    }
+  }
+
+  /**
+   * Parses the phases from the given properties.
+   *
+   * @return The schedule, or null if no phases are configured.
+   * @throws IllegalArgumentException if a phase has no positive duration or a negative target.
+   */
+  public static PhaseSchedule create(Properties props) {
+    String names = props.getProperty(PHASES_PROPERTY, "").trim();
+    if (names.isEmpty()) {
+      return null;
+    }
+    List<Phase> phases = new ArrayList<>();
+    for (String name : names.split("\\s*,\\s*")) {
+      String prefix = PHASE_PROPERTY_PREFIX + name + ".";
+      Properties overrides = new Properties();
+      for (String key : props.stringPropertyNames()) {
+        if (key.startsWith(prefix)) {
+          overrides.setProperty(key.substring(prefix.length()), props.getProperty(key));
+        }
+      }
+      Properties properties = new Properties(props);
+      properties.putAll(overrides);
+
+      double seconds = Double.parseDouble(overrides.getProperty("duration", "0"));
+      if (seconds <= 0) {
+        throw new IllegalArgumentException("Phase " + name + " needs a positive " + prefix + "duration");
+      }
+      double target = Double.parseDouble(overrides.getProperty("target", "0"));
+      double targetEnd = Double.parseDouble(overrides.getProperty("targetend", String.valueOf(target)));
+      if (target < 0 || targetEnd < 0) {
+        throw new IllegalArgumentException("Phase " + name + " has a negative target");
+      }
+      phases.add(new Phase(name, (long) (seconds * 1e9), target, targetEnd, properties, overrides));
+    }
+    return new PhaseSchedule(phases);
+  }
+
+  /**
+   * The schedule of the current run, null if it has none.
+   */
+  public static PhaseSchedule getCurrent() {
+    return current;
+  }
+
+  /**
+   * Sets the schedule of the current run. Called by the client before the workload is
+   * initialized.
+   */
+  public static void setCurrent(PhaseSchedule schedule) {
+    current = schedule;
+  }
+
+  public List<Phase> getPhases() {
+    return phases;
+  }
+
+  /**
+   * The length of the whole schedule.
+   */
+  public long getDurationNs() {
+    return endOffsetsNs[endOffsetsNs.length - 1];
+  }
+
+  /**
+   * Whether any phase limits the rate.
+   */
+  public boolean hasTargets() {
+    for (Phase phase : phases) {
+      if (phase.target > 0 || phase.targetEnd > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Starts the clock of the schedule if it is not running yet.
+   *
+   * @return The start time in {@link System#nanoTime()} terms.
+   */
+  public synchronized long start() {
+    if (startNs == 0) {
+      startNs = System.nanoTime();
+    }
+    return startNs;
+  }
+
+  /**
+   * The index of the phase running at the given time. Before the start this is the first phase,
+   * after the end the last one.
+   */
+  public int phaseAt(long nanoTime) {
+    long offset = startNs == 0 ? 0 : nanoTime - startNs;
+    for (int i = 0; i < endOffsetsNs.length - 1; i++) {
+      if (offset < endOffsetsNs[i]) {
+        return i;
+      }
+    }
+    return endOffsetsNs.length - 1;
+  }
+
+  /**
+   * The index of the phase running now.
+   */
+  public int currentPhase() {
+    return phaseAt(System.nanoTime());
+  }
+
+  /**
+   * The target rate at the given time in operations per second, 0 for unthrottled. Ramps of
+   * throttled phases never go below one operation per second.
+   */
+  public double targetAt(long nanoTime) {
+    int index = phaseAt(nanoTime);
+    Phase phase = phases.get(index);
+    long phaseStart = index == 0 ? 0 : endOffsetsNs[index - 1];
+    double progress = (double) ((startNs == 0 ? 0 : nanoTime - startNs) - phaseStart) / phase.durationNs;
+    progress = Math.max(0, Math.min(1, progress));
+    if (phase.target == 0 && phase.targetEnd == 0) {
+      return 0;
+    }
+    return Math.max(1, phase.target + (phase.targetEnd - phase.target) * progress);
+  }
+
+  /**
+   * Starts the clock and a daemon thread that tags the measurements with the running phase and
+   * asks the workload to stop when the last phase is over.
+   */
+  public void run(final Workload workload) {
+    final long start = start();
+    Thread thread = new Thread("PhaseSchedule") {
+      @Override
+      public void run() {
+        for (int i = 0; i < phases.size(); i++) {
+          Phase phase = phases.get(i);
+          Measurements.getMeasurements().setPhase(phase.name);
+          System.err.println("Starting phase " + phase.name + " for "
+              + TimeUnit.NANOSECONDS.toSeconds(phase.durationNs) + " seconds");
+          sleepUntil(start + endOffsetsNs[i]);
+        }
+        System.err.println("Phase schedule complete, stopping the workload.");
+        workload.requestStop();
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void sleepUntil(long deadline) {
+    long now;
+    while ((now = System.nanoTime()) < deadline) {
+      LockSupport.parkNanos(deadline - now);
+    }
+  }
+}
@@ -62,11 +62,21 @@ public class RandomByteIterator extends ByteIterator {
   }
 
   public RandomByteIterator(long len) {
-    this.len = len;
     this.buf = new byte[6];
+    reuse(len);
+  }
+
+  /**
+   * Starts over with a fresh random sequence of the given length, so that one instance
+   * can be handed out again instead of allocating a new one for every value.
+   */
+  public RandomByteIterator reuse(long length) {
+    this.len = length;
+    this.off = 0;
     this.bufOff = buf.length;
     fillBytes();
     this.off = 0;
+    return this;
   }
 
   public byte nextByte() {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018 YCSB Contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The asynchronous form of {@link SimulatedDB}. Operations return immediately and their
+ * stages are completed by a small pool of timer threads at the modeled completion time, so a
+ * client thread can keep up to {@code async.inflight} operations queued on the simulated
+ * workers. Takes the same {@code simulateddb.*} properties and shares the same model.
+ */
+public class SimulatedAsyncDB extends AsyncDB {
+  private SimulatedDB.Server server;
+
+  @Override
+  public void init() throws DBException {
+    server = SimulatedDB.Server.acquire(getProperties());
+  }
+
+  @Override
+  public void cleanup() throws DBException {
+    SimulatedDB.Server.release();
+  }
+
+  @Override
+  public CompletionStage<Status> read(String table, String key, Set<String> fields,
+                                      Map<String, ByteIterator> result) {
+    return serve("READ");
+  }
+
+  @Override
+  public CompletionStage<Status> scan(String table, String startkey, int recordcount, Set<String> fields,
+                                      Vector<HashMap<String, ByteIterator>> result) {
+    return serve("SCAN");
+  }
+
+  @Override
+  public CompletionStage<Status> update(String table, String key, Map<String, ByteIterator> values) {
+    return serve("UPDATE");
+  }
+
+  @Override
+  public CompletionStage<Status> insert(String table, String key, Map<String, ByteIterator> values) {
+    return serve("INSERT");
+  }
+
+  @Override
+  public CompletionStage<Status> delete(String table, String key) {
+    return serve("DELETE");
+  }
+
+  private CompletionStage<Status> serve(final String operation) {
+    final long completion = server.admit(operation);
+    if (completion == SimulatedDB.Server.REJECTED) {
+      return CompletableFuture.completedFuture(Status.SERVICE_UNAVAILABLE);
+    }
+    final long remaining = completion - System.nanoTime();
+    if (remaining <= 0) {
+      server.leave();
+      return CompletableFuture.completedFuture(Status.OK);
+    }
+    final CompletableFuture<Status> future = new CompletableFuture<>();
+    server.completer().schedule(() -> {
+        server.leave();
+        future.complete(Status.OK);
+      }, remaining, TimeUnit.NANOSECONDS);
+    return future;
+  }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2018 YCSB Contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * An in-process DB that models a server with a number of workers and a FIFO queue
+ * in front of them (M/M/c by default) without doing any I/O. Each operation arrives
+ * at the current time, waits for the earliest free worker and is served for a time
+ * drawn from the configured distribution. The calling thread parks until the modeled
+ * completion time. Operations arriving while the queue is full are rejected with
+ * {@link Status#SERVICE_UNAVAILABLE}.
+ * <p>
+ * One model is shared by all client threads so the workers are a common resource. The
+ * modeled response times, which are free of any client side effects, are reported to
+ * the measurements as {@code SIMULATED-<OPERATION>} so they can be compared with the
+ * latencies, and the intended latencies, the client measured. Once the last instance is
+ * cleaned up, the operation and rejection counts and the utilization of the workers are
+ * exported as {@code [SIMULATED]}. Use {@link SimulatedAsyncDB} to keep more operations in
+ * flight than there are client threads.
+ * <p>
+ * Properties:
+ * <ul>
+ * <li><b>simulateddb.servers</b>: The number of workers serving operations in parallel.</li>
+ * <li><b>simulateddb.servicetime</b>: The mean service time in microseconds.</li>
+ * <li><b>simulateddb.distribution</b>: How service times are distributed, one of
+ * {@code exponential}, {@code constant} or {@code uniform} (from zero to twice the mean).</li>
+ * <li><b>simulateddb.queuedepth</b>: The number of operations that may wait for a worker,
+ * negative for an unbounded queue.</li>
+ * <li><b>simulateddb.measure</b>: Whether or not to report the modeled response times.</li>
+ * <li><b>simulateddb.completers</b>: The number of threads completing the operations of
+ * {@link SimulatedAsyncDB}, which also run the callbacks of the completed operations
+ * (default: the number of processors).</li>
+ * </ul>
+ */
+public class SimulatedDB extends DB {
+  public static final String SERVERS = "simulateddb.servers";
+  public static final String SERVERS_DEFAULT = "1";
+
+  public static final String SERVICE_TIME = "simulateddb.servicetime";
+  public static final String SERVICE_TIME_DEFAULT = "100";
+
+  public static final String DISTRIBUTION = "simulateddb.distribution";
+  public static final String DISTRIBUTION_DEFAULT = "exponential";
+
+  public static final String QUEUE_DEPTH = "simulateddb.queuedepth";
+  public static final String QUEUE_DEPTH_DEFAULT = "-1";
+
+  public static final String MEASURE = "simulateddb.measure";
+  public static final String MEASURE_DEFAULT = "true";
+
+  public static final String COMPLETERS = "simulateddb.completers";
+
+  private Server server;
+
+  @Override
+  public void init() throws DBException {
+    server = Server.acquire(getProperties());
+  }
+
+  @Override
+  public void cleanup() throws DBException {
+    Server.release();
+  }
+
+  @Override
+  public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    return serve("READ");
+  }
+
+  @Override
+  public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                     Vector<HashMap<String, ByteIterator>> result) {
+    return serve("SCAN");
+  }
+
+  @Override
+  public Status update(String table, String key, Map<String, ByteIterator> values) {
+    return serve("UPDATE");
+  }
+
+  @Override
+  public Status insert(String table, String key, Map<String, ByteIterator> values) {
+    return serve("INSERT");
+  }
+
+  @Override
+  public Status delete(String table, String key) {
+    return serve("DELETE");
+  }
+
+  private Status serve(final String operation) {
+    final long completion = server.admit(operation);
+    if (completion == Server.REJECTED) {
+      return Status.SERVICE_UNAVAILABLE;
+    }
+    try {
+      long remaining = completion - System.nanoTime();
+      while (remaining > 0) {
+        if (Thread.interrupted()) {
+          // stop waiting but leave the interrupt to the caller
+          Thread.currentThread().interrupt();
+          break;
+        }
+        LockSupport.parkNanos(remaining);
+        remaining = completion - System.nanoTime();
+      }
+    } finally {
+      server.leave();
+    }
+    return Status.OK;
+  }
+
+  /**
+   * The queueing model shared by every {@link SimulatedDB} and {@link SimulatedAsyncDB}
+   * instance in the JVM. The times the workers become idle are kept in a min-heap so an
+   * arrival is assigned to the earliest free worker in logarithmic time.
+   */
+  static final class Server {
+    /** Returned by {@link #admit(String)} when the queue is full. */
+    static final long REJECTED = Long.MIN_VALUE;
+
+    private static final Object MUTEX = new Object();
+    private static Server instance;
+    private static int references;
+
+    private final long[] idleAt;
+    private final int capacity;
+    private final long meanServiceNs;
+    private final String distribution;
+    private final boolean measure;
+    private final long createdNs;
+    private final AtomicInteger inSystem = new AtomicInteger();
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong busyNs = new AtomicLong();
+    private final ScheduledThreadPoolExecutor completer;
+
+    Server(final Properties p) throws DBException {
+      final int servers;
+      final int queueDepth;
+      final int completers;
+      try {
+        servers = Integer.parseInt(p.getProperty(SERVERS, SERVERS_DEFAULT));
+        completers = Integer.parseInt(p.getProperty(COMPLETERS,
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        queueDepth = Integer.parseInt(p.getProperty(QUEUE_DEPTH, QUEUE_DEPTH_DEFAULT));
+        meanServiceNs = TimeUnit.MICROSECONDS.toNanos(
+            Long.parseLong(p.getProperty(SERVICE_TIME, SERVICE_TIME_DEFAULT)));
+      } catch (NumberFormatException e) {
+        throw new DBException("Invalid simulated DB setting: " + e.getMessage(), e);
+      }
+      if (servers < 1 || meanServiceNs < 0 || completers < 1) {
+        throw new DBException(SERVERS + " and " + COMPLETERS + " must be at least 1 and " + SERVICE_TIME
+            + " must not be negative");
+      }
+      distribution = p.getProperty(DISTRIBUTION, DISTRIBUTION_DEFAULT);
+      if (!distribution.equals("exponential") && !distribution.equals("constant")
+          && !distribution.equals("uniform")) {
+        throw new DBException("Unknown " + DISTRIBUTION + ": " + distribution);
+      }
+      measure = Boolean.parseBoolean(p.getProperty(MEASURE, MEASURE_DEFAULT));
+      idleAt = new long[servers];
+      capacity = queueDepth < 0 ? Integer.MAX_VALUE : servers + queueDepth;
+      createdNs = System.nanoTime();
+      for (int i = 0; i < servers; i++) {
+        idleAt[i] = createdNs;
+      }
+      // the threads are only started once asynchronous operations are scheduled
+      completer = new ScheduledThreadPoolExecutor(completers, new ThreadFactory() {
+          private final AtomicInteger count = new AtomicInteger();
+
+          @Override
+          public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "simulateddb-completer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+      completer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Returns the shared model, creating it from the properties on first use.
+     */
+    static Server acquire(final Properties p) throws DBException {
+      synchronized (MUTEX) {
+        if (instance == null) {
+          instance = new Server(p);
+        }
+        references++;
+        return instance;
+      }
+    }
+
+    /**
+     * Drops a reference to the shared model, reporting its summary once the last user is done.
+     */
+    static void release() {
+      synchronized (MUTEX) {
+        if (instance == null || --references > 0) {
+          return;
+        }
+        instance.shutdown();
+        instance = null;
+      }
+    }
+
+    /**
+     * Admits an operation arriving now.
+     * @param operation The operation name used for measurements.
+     * @return The {@link System#nanoTime()} at which the operation completes or
+     * {@link #REJECTED} if the queue is full. Admitted operations must call {@link #leave()}
+     * once they completed.
+     */
+    long admit(final String operation) {
+      if (inSystem.incrementAndGet() > capacity) {
+        inSystem.decrementAndGet();
+        rejected.incrementAndGet();
+        return REJECTED;
+      }
+      final long service = nextServiceNs();
+      final long arrival = System.nanoTime();
+      final long completion;
+      synchronized (idleAt) {
+        completion = Math.max(arrival, idleAt[0]) + service;
+        siftDown(completion);
+      }
+      operations.incrementAndGet();
+      busyNs.addAndGet(service);
+      if (measure) {
+        Measurements.getMeasurements().measure("SIMULATED-" + operation,
+            (int) TimeUnit.NANOSECONDS.toMicros(completion - arrival));
+      }
+      return completion;
+    }
+
+    /**
+     * Marks an admitted operation as completed, freeing its place in the queue.
+     */
+    void leave() {
+      inSystem.decrementAndGet();
+    }
+
+    /**
+     * The threads that complete asynchronous operations at their modeled time. The callbacks of
+     * the operations run on them, so there are several to keep the callbacks from serializing.
+     */
+    ScheduledThreadPoolExecutor completer() {
+      return completer;
+    }
+
+    long nextServiceNs() {
+      if (meanServiceNs == 0) {
+        return 0;
+      }
+      switch (distribution) {
+      case "constant":
+        return meanServiceNs;
+      case "uniform":
+        return ThreadLocalRandom.current().nextLong(2 * meanServiceNs + 1);
+      default:
+        return (long) (-meanServiceNs * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+      }
+    }
+
+    /**
+     * Replaces the root of the heap, the earliest idle worker, and restores the heap order.
+     */
+    private void siftDown(final long value) {
+      int i = 0;
+      final int half = idleAt.length >>> 1;
+      while (i < half) {
+        int child = 2 * i + 1;
+        if (child + 1 < idleAt.length && idleAt[child + 1] < idleAt[child]) {
+          child++;
+        }
+        if (value <= idleAt[child]) {
+          break;
+        }
+        idleAt[i] = idleAt[child];
+        i = child;
+      }
+      idleAt[i] = value;
+    }
+
+    private void shutdown() {
+      completer.shutdown();
+      final long elapsedNs = Math.max(1, System.nanoTime() - createdNs);
+      final Measurements measurements = Measurements.getMeasurements();
+      measurements.reportTotal("SIMULATED", "Operations", operations.get());
+      measurements.reportTotal("SIMULATED", "Rejected", rejected.get());
+      measurements.reportTotal("SIMULATED", "Utilization(%)",
+          (100.0 * busyNs.get()) / ((double) elapsedNs * idleAt.length));
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018 YCSB Contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.workloads.TimeSeriesWorkload;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.Vector;
+
+/**
+ * Runs the typed time series operations against a DB that only has the plain operations,
+ * encoding queries into field strings and data points into value maps as described in
+ * {@link TimeSeriesWorkload}.
+ */
+public class TimeseriesAdapter implements TimeseriesStore {
+  private final DB db;
+  private final String timestampKey;
+  private final String valueKey;
+  private final String tagPairDelimiter;
+  private final String queryTimeSpanDelimiter;
+  private final String groupByKey;
+  private final String downsamplingKey;
+  private final String groupByFunction;
+  private final String downsamplingFunction;
+
+  /**
+   * @param db The DB to run the operations against.
+   * @param p The workload properties with the keys and delimiters of the encoding.
+   */
+  public TimeseriesAdapter(DB db, Properties p) {
+    this.db = db;
+    timestampKey = p.getProperty(TimeSeriesWorkload.TIMESTAMP_KEY_PROPERTY,
+        TimeSeriesWorkload.TIMESTAMP_KEY_PROPERTY_DEFAULT);
+    valueKey = p.getProperty(TimeSeriesWorkload.VALUE_KEY_PROPERTY,
+        TimeSeriesWorkload.VALUE_KEY_PROPERTY_DEFAULT);
+    tagPairDelimiter = p.getProperty(TimeSeriesWorkload.PAIR_DELIMITER_PROPERTY,
+        TimeSeriesWorkload.PAIR_DELIMITER_PROPERTY_DEFAULT);
+    queryTimeSpanDelimiter = p.getProperty(TimeSeriesWorkload.QUERY_TIMESPAN_DELIMITER_PROPERTY,
+        TimeSeriesWorkload.QUERY_TIMESPAN_DELIMITER_PROPERTY_DEFAULT);
+    groupByKey = p.getProperty(TimeSeriesWorkload.GROUPBY_KEY_PROPERTY,
+        TimeSeriesWorkload.GROUPBY_KEY_PROPERTY_DEFAULT);
+    downsamplingKey = p.getProperty(TimeSeriesWorkload.DOWNSAMPLING_KEY_PROPERTY,
+        TimeSeriesWorkload.DOWNSAMPLING_KEY_PROPERTY_DEFAULT);
+    groupByFunction = p.getProperty(TimeSeriesWorkload.GROUPBY_PROPERTY, "");
+    downsamplingFunction = p.getProperty(TimeSeriesWorkload.DOWNSAMPLING_FUNCTION_PROPERTY, "");
+  }
+
+  /**
+   * The DB the operations run against.
+   */
+  public DB getDB() {
+    return db;
+  }
+
+  @Override
+  public Status readPoint(String table, TimeseriesQuery query, Map<String, ByteIterator> result) {
+    return db.read(table, query.getMetric(), fields(query, false), result);
+  }
+
+  @Override
+  public Status scanSeries(String table, TimeseriesQuery query, Vector<HashMap<String, ByteIterator>> result) {
+    return db.scan(table, query.getMetric(), query.getLimit(), fields(query, true), result);
+  }
+
+  @Override
+  public Status insertPoint(String table, TimeseriesPoint point) {
+    return db.insert(table, point.getMetric(), values(point));
+  }
+
+  /**
+   * Inserts the data points with one {@link DB#batchInsert(String, List, List)}.
+   */
+  @Override
+  public Status insertPoints(String table, List<TimeseriesPoint> points) {
+    List<String> keys = new ArrayList<>(points.size());
+    List<Map<String, ByteIterator>> values = new ArrayList<>(points.size());
+    for (TimeseriesPoint point : points) {
+      keys.add(point.getMetric());
+      values.add(values(point));
+    }
+    return db.batchInsert(table, keys, values);
+  }
+
+  @Override
+  public Status updatePoint(String table, TimeseriesPoint point) {
+    return db.update(table, point.getMetric(), values(point));
+  }
+
+  /**
+   * Encodes a query into the fields of a read or scan. The group-by and downsampling functions
+   * are given as configured in the workload properties, e.g. "avg" rather than "AVERAGE", and
+   * scans separate the downsampling function from the interval with the tag pair delimiter.
+   */
+  public Set<String> fields(TimeseriesQuery query, boolean scan) {
+    Set<String> fields = new HashSet<>();
+    for (Map.Entry<String, List<String>> tag : query.getTags().entrySet()) {
+      for (String value : tag.getValue()) {
+        fields.add(tag.getKey() + tagPairDelimiter + value);
+      }
+    }
+    fields.addAll(query.getGroupByKeys());
+    if (query.isRange()) {
+      fields.add(timestampKey + tagPairDelimiter + query.getStartTimestamp() + queryTimeSpanDelimiter
+          + query.getEndTimestamp());
+    } else {
+      fields.add(timestampKey + tagPairDelimiter + query.getStartTimestamp());
+    }
+    if (query.getGroupByFunction() != TimeseriesDB.AggregationOperation.NONE) {
+      fields.add(groupByKey + tagPairDelimiter + configured(groupByFunction, query.getGroupByFunction()));
+    }
+    if (query.getDownsamplingFunction() != TimeseriesDB.AggregationOperation.NONE) {
+      fields.add(downsamplingKey + tagPairDelimiter
+          + configured(downsamplingFunction, query.getDownsamplingFunction())
+          + (scan ? tagPairDelimiter : "") + query.getDownsamplingInterval());
+    }
+    return fields;
+  }
+
+  private static String configured(String function, TimeseriesDB.AggregationOperation operation) {
+    return function.isEmpty() ? operation.toString() : function;
+  }
+
+  /**
+   * Encodes a data point into the values of an insert or update.
+   */
+  public Map<String, ByteIterator> values(TimeseriesPoint point) {
+    Map<String, ByteIterator> values = new TreeMap<>();
+    for (Map.Entry<String, String> tag : point.getTags().entrySet()) {
+      values.put(tag.getKey(), new StringByteIterator(tag.getValue()));
+    }
+    values.put(timestampKey, new NumericByteIterator(point.getTimestamp()));
+    values.put(valueKey, point.isFloatingPoint() ?
+        new NumericByteIterator(point.getDouble()) : new NumericByteIterator(point.getLong()));
+    return values;
+  }
+}
@@ -33,10 +33,16 @@ import java.util.concurrent.TimeUnit;
  * It also contains some minor utility methods relevant to Timeseries databases.
  * </p>
  *
+ * <p>
+ * The workload calls the typed {@link TimeseriesStore} operations, which skip the parsing and
+ * go straight to the abstract methods below. Override them to take the query or data point as
+ * is, e.g. to avoid copying the tags of every data point.
+ * </p>
+ *
  * @implSpec It's vital to call <tt>super.init()</tt> when overwriting the init method
  * to correctly initialize the workload-parsing.
  */
-public abstract class TimeseriesDB extends DB {
+public abstract class TimeseriesDB extends DB implements TimeseriesStore {
 
   // defaults for downsampling. Basically we ignore it
   private static final String DOWNSAMPLING_FUNCTION_PROPERTY_DEFAULT = "NONE";
@@ -131,6 +137,14 @@ public abstract class TimeseriesDB extends DB {
     return read(table, timestamp, tagQueries);
   }
 
+  @Override
+  public Status readPoint(String table, TimeseriesQuery query, Map<String, ByteIterator> result) {
+    if (query.isRange()) {
+      return Status.BAD_REQUEST;
+    }
+    return read(table, query.getStartTimestamp(), query.getTags());
+  }
+
   /**
    * Read a record from the database. Each value from the result will be stored in a HashMap
    *
@@ -196,6 +210,21 @@ public abstract class TimeseriesDB extends DB {
     return scan(table, start, end, tagQueries, downsamplingFunction, downsamplingInterval, timestampUnit);
   }
 
+  @Override
+  public Status scanSeries(String table, TimeseriesQuery query, Vector<HashMap<String, ByteIterator>> result) {
+    if (!query.isRange()) {
+      return Status.NOT_IMPLEMENTED;
+    }
+    if (query.getDownsamplingFunction() != AggregationOperation.NONE
+        && (query.getDownsamplingFunction() != downsamplingFunction
+        || query.getDownsamplingInterval() != downsamplingInterval)) {
+      System.err.print("Downsampling specification for Scan did not match configured downsampling");
+      return Status.BAD_REQUEST;
+    }
+    return scan(table, query.getStartTimestamp(), query.getEndTimestamp(), query.getTags(),
+        downsamplingFunction, downsamplingInterval, timestampUnit);
+  }
+
   /**
    * Perform a range scan for a set of records in the database. Each value from the result will be stored in a
    * HashMap.
@@ -230,6 +259,51 @@ public abstract class TimeseriesDB extends DB {
     }
   }
 
+  @Override
+  public Status insertPoint(String table, TimeseriesPoint point) {
+    Map<String, ByteIterator> tags = new HashMap<>();
+    for (Map.Entry<String, String> tag : point.getTags().entrySet()) {
+      tags.put(tag.getKey(), new StringByteIterator(tag.getValue()));
+    }
+    if (point.isFloatingPoint()) {
+      return insert(table, point.getTimestamp(), point.getDouble(), tags);
+    } else {
+      return insert(table, point.getTimestamp(), point.getLong(), tags);
+    }
+  }
+
+  /**
+   * Insert a batch of data points, see the "insertbatchsize" property of the
+   * {@link TimeSeriesWorkload}. Databases that can write several points in one request, e.g. as
+   * one batch of line protocol, should override this so a batch is measured as one write. The
+   * default inserts them one at a time through {@link #insertPoint(String, TimeseriesPoint)}.
+   *
+   * @param table  The name of the table
+   * @param points The data points to insert
+   * @return OK if every data point was inserted, otherwise the status of the first failed insert.
+   */
+  @Override
+  public Status insertPoints(String table, List<TimeseriesPoint> points) {
+    return TimeseriesStore.super.insertPoints(table, points);
+  }
+
+  /**
+   * Encodes the data point as in {@link TimeSeriesWorkload} and passes it to
+   * {@link #update(String, String, Map)}, so inheriting classes overriding the latter also
+   * receive the typed updates.
+   */
+  @Override
+  public Status updatePoint(String table, TimeseriesPoint point) {
+    Map<String, ByteIterator> values = new TreeMap<>();
+    for (Map.Entry<String, String> tag : point.getTags().entrySet()) {
+      values.put(tag.getKey(), new StringByteIterator(tag.getValue()));
+    }
+    values.put(timestampKey, new NumericByteIterator(point.getTimestamp()));
+    values.put(valueKey, point.isFloatingPoint() ?
+        new NumericByteIterator(point.getDouble()) : new NumericByteIterator(point.getLong()));
+    return update(table, point.getMetric(), values);
+  }
+
   /**
    * Insert a record into the database. Any tags/tagvalue pairs in the specified tagmap and the given value will be
    * written into the record with the specified timestamp.
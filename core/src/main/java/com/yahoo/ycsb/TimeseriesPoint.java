@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 YCSB Contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.util.Map;
+
+/**
+ * One value of a time series: the metric, its tags, the timestamp and a 64 bit integer or
+ * floating point value.
+ */
+public final class TimeseriesPoint {
+  private final String metric;
+  private final Map<String, String> tags;
+  private final long timestamp;
+  private final boolean floatingPoint;
+  private final long longValue;
+  private final double doubleValue;
+
+  public TimeseriesPoint(String metric, Map<String, String> tags, long timestamp, long value) {
+    this.metric = metric;
+    this.tags = tags;
+    this.timestamp = timestamp;
+    this.floatingPoint = false;
+    this.longValue = value;
+    this.doubleValue = value;
+  }
+
+  public TimeseriesPoint(String metric, Map<String, String> tags, long timestamp, double value) {
+    this.metric = metric;
+    this.tags = tags;
+    this.timestamp = timestamp;
+    this.floatingPoint = true;
+    this.longValue = (long) value;
+    this.doubleValue = value;
+  }
+
+  public String getMetric() {
+    return metric;
+  }
+
+  /**
+   * The tag values of the series by tag key.
+   */
+  public Map<String, String> getTags() {
+    return tags;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * Whether the value is a double; call {@link #getDouble()} if so and {@link #getLong()}
+   * otherwise.
+   */
+  public boolean isFloatingPoint() {
+    return floatingPoint;
+  }
+
+  public long getLong() {
+    return longValue;
+  }
+
+  public double getDouble() {
+    return doubleValue;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018 YCSB Contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read or scan of a time series, passed as is from the {@link com.yahoo.ycsb.workloads.TimeSeriesWorkload}
+ * to a {@link TimeseriesStore} instead of being encoded into field strings.
+ * <p>
+ * A query without an end timestamp reads the single data point at the start timestamp; with
+ * one, it covers the range from the start to the end timestamp, both inclusive.
+ */
+public final class TimeseriesQuery {
+  private final String metric;
+  private final long startTimestamp;
+  private final long endTimestamp;
+  private final boolean range;
+  private Map<String, List<String>> tags = Collections.emptyMap();
+  private List<String> groupByKeys = Collections.emptyList();
+  private TimeseriesDB.AggregationOperation groupByFunction = TimeseriesDB.AggregationOperation.NONE;
+  private TimeseriesDB.AggregationOperation downsamplingFunction = TimeseriesDB.AggregationOperation.NONE;
+  private int downsamplingInterval;
+  private int limit;
+
+  /**
+   * A query for the data point of the metric at the timestamp.
+   */
+  public TimeseriesQuery(String metric, long timestamp) {
+    this.metric = metric;
+    this.startTimestamp = timestamp;
+    this.endTimestamp = timestamp;
+    this.range = false;
+  }
+
+  /**
+   * A query for the data points of the metric between the timestamps.
+   */
+  public TimeseriesQuery(String metric, long startTimestamp, long endTimestamp) {
+    this.metric = metric;
+    this.startTimestamp = startTimestamp;
+    this.endTimestamp = endTimestamp;
+    this.range = true;
+  }
+
+  public String getMetric() {
+    return metric;
+  }
+
+  public long getStartTimestamp() {
+    return startTimestamp;
+  }
+
+  public long getEndTimestamp() {
+    return endTimestamp;
+  }
+
+  /**
+   * Whether the query covers a range of timestamps rather than a single one.
+   */
+  public boolean isRange() {
+    return range;
+  }
+
+  /**
+   * The accepted values of each tag key the series must match.
+   */
+  public Map<String, List<String>> getTags() {
+    return tags;
+  }
+
+  public TimeseriesQuery setTags(Map<String, List<String>> tagValues) {
+    this.tags = tagValues;
+    return this;
+  }
+
+  /**
+   * The tag keys whose series are aggregated together, with any value.
+   */
+  public List<String> getGroupByKeys() {
+    return groupByKeys;
+  }
+
+  public TimeseriesDB.AggregationOperation getGroupByFunction() {
+    return groupByFunction;
+  }
+
+  /**
+   * Aggregates the series matching the query on the given tag keys with the function.
+   */
+  public TimeseriesQuery setGroupBy(List<String> keys, TimeseriesDB.AggregationOperation function) {
+    this.groupByKeys = keys;
+    this.groupByFunction = function;
+    return this;
+  }
+
+  public TimeseriesDB.AggregationOperation getDownsamplingFunction() {
+    return downsamplingFunction;
+  }
+
+  /**
+   * The width of the downsampling buckets, in the units of the timestamps.
+   */
+  public int getDownsamplingInterval() {
+    return downsamplingInterval;
+  }
+
+  /**
+   * Aggregates the data points in buckets of the interval with the function.
+   */
+  public TimeseriesQuery setDownsampling(TimeseriesDB.AggregationOperation function, int interval) {
+    this.downsamplingFunction = function;
+    this.downsamplingInterval = interval;
+    return this;
+  }
+
+  /**
+   * The number of data points a scan asks for, or 0 for no limit.
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  public TimeseriesQuery setLimit(int points) {
+    this.limit = points;
+    return this;
+  }
+}
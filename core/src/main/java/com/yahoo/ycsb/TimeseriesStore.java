@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018 YCSB Contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Typed time series operations, called by the {@link com.yahoo.ycsb.workloads.TimeSeriesWorkload}
+ * in place of the string encoded {@link DB} operations when the DB implements them. The
+ * {@link TimeseriesDB} base class and the {@link DBWrapper} do; {@link TimeseriesAdapter} maps
+ * them back onto the plain operations of any other DB.
+ */
+public interface TimeseriesStore {
+  /**
+   * Read the data point matching a query without a range.
+   *
+   * @param table The name of the table
+   * @param query The metric, timestamp and tags to read
+   * @param result A HashMap of field/value pairs for the result
+   * @return The result of the operation.
+   */
+  Status readPoint(String table, TimeseriesQuery query, Map<String, ByteIterator> result);
+
+  /**
+   * Read the data points matching a query with a range.
+   *
+   * @param table The name of the table
+   * @param query The metric, time range, tags and aggregations to read
+   * @param result A Vector of HashMaps, one for each data point or aggregated value
+   * @return The result of the operation.
+   */
+  Status scanSeries(String table, TimeseriesQuery query, Vector<HashMap<String, ByteIterator>> result);
+
+  /**
+   * Insert a new data point.
+   *
+   * @param table The name of the table
+   * @param point The data point to insert
+   * @return The result of the operation.
+   */
+  Status insertPoint(String table, TimeseriesPoint point);
+
+  /**
+   * Insert several new data points in one write, like a batch of line protocol. The default
+   * implementation inserts them one at a time.
+   *
+   * @param table The name of the table
+   * @param points The data points to insert
+   * @return OK if every data point was inserted, otherwise the status of the first failed insert.
+   */
+  default Status insertPoints(String table, List<TimeseriesPoint> points) {
+    Status result = Status.OK;
+    for (TimeseriesPoint point : points) {
+      Status status = insertPoint(table, point);
+      if (result.isOk()) {
+        result = status;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Overwrite the value of an existing data point.
+   *
+   * @param table The name of the table
+   * @param point The data point to write
+   * @return The result of the operation.
+   */
+  Status updatePoint(String table, TimeseriesPoint point);
+}
@@ -158,6 +158,17 @@ public final class Utils {
     return osBean.getSystemLoadAverage();
   }
 
+  /** @return The CPU time used by this process in nanoseconds if supported by the JDK.
+   * If it's not supported, the value will be negative. */
+  public static long getProcessCpuTimeNs() {
+    final OperatingSystemMXBean osBean =
+        ManagementFactory.getOperatingSystemMXBean();
+    if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+    }
+    return -1;
+  }
+
   /** @return The total number of garbage collections executed for all
    * memory pools. */
   public static long getGCTotalCollectionCount() {
@@ -17,6 +17,8 @@
 
 package com.yahoo.ycsb;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.Properties;
 
@@ -77,6 +79,14 @@ public abstract class Workload {
     return null;
   }
       
+  /**
+   * Finish the work of a client thread, e.g. write out what it has buffered. Called once in each
+   * client thread after its last operation, with its DB and the state returned by initThread(),
+   * before the DB is cleaned up.
+   */
+  public void finishThread(DB db, Object threadstate) throws WorkloadException {
+  }
+
   /**
    * Cleanup the scenario. Called once, in the main client thread, after all operations have completed.
    */
@@ -105,6 +115,28 @@ public abstract class Workload {
    */
   public abstract boolean doTransaction(DB db, Object threadstate);
 
+  /**
+   * Do one insert operation against an asynchronous DB. The returned stage completes with the
+   * same value {@link #doInsert(DB, Object)} would return. The same thread safety rules apply,
+   * with the addition that several operations of one thread may be in flight at once, so the
+   * threadstate must not be mutated from the completion callbacks.
+   * <p>
+   * The default implementation runs {@link #doInsert(DB, Object)} against a blocking view of the
+   * DB, which keeps at most one operation in flight.
+   */
+  public CompletionStage<Boolean> doInsertAsync(AsyncDB db, Object threadstate) {
+    return CompletableFuture.completedFuture(doInsert(db.toBlockingDB(), threadstate));
+  }
+
+  /**
+   * Do one transaction operation against an asynchronous DB. The returned stage completes with
+   * the same value {@link #doTransaction(DB, Object)} would return. See
+   * {@link #doInsertAsync(AsyncDB, Object)} for the threading rules and the default behavior.
+   */
+  public CompletionStage<Boolean> doTransactionAsync(AsyncDB db, Object threadstate) {
+    return CompletableFuture.completedFuture(doTransaction(db.toBlockingDB(), threadstate));
+  }
+
   /**
    * Allows scheduling a request to stop the workload.
    */
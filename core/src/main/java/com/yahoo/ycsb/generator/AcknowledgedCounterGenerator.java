@@ -16,31 +16,41 @@
  */
 package com.yahoo.ycsb.generator;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A CounterGenerator that reports generated integers via lastInt()
  * only after they have been acknowledged.
+ * <p>
+ * Acknowledgements are kept as bits in segments of {@value #SEGMENT_SIZE} values that are
+ * created when the first value in them is acknowledged and dropped once the limit has passed
+ * them, so any number of values may be outstanding. Every acknowledging thread helps to move
+ * the limit over the contiguous acknowledged values with compare-and-set, so there is no lock
+ * and the limit advances as soon as the oldest outstanding value is acknowledged.
  */
 public class AcknowledgedCounterGenerator extends CounterGenerator {
-  /** The size of the window of pending id ack's. 2^20 = {@value} */
-  static final int WINDOW_SIZE = Integer.rotateLeft(1, 20);
+  /** The number of values per segment of acknowledgement bits. 2^16 = {@value} */
+  static final int SEGMENT_SIZE = 1 << 16;
+
+  private static final int SEGMENT_SHIFT = 16;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
 
-  /** The mask to use to turn an id into a slot in {@link #window}. */
-  private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+  private final ConcurrentHashMap<Long, Segment> segments = new ConcurrentHashMap<>();
+  private final AtomicLong limit;
 
-  private final ReentrantLock lock;
-  private final boolean[] window;
-  private volatile long limit;
+  /**
+   * The segment used last, saves the map lookup while values are acknowledged in order.
+   */
+  private volatile Segment recent;
 
   /**
    * Create a counter that starts at countstart.
    */
   public AcknowledgedCounterGenerator(long countstart) {
     super(countstart);
-    lock = new ReentrantLock();
-    window = new boolean[WINDOW_SIZE];
-    limit = countstart - 1;
+    limit = new AtomicLong(countstart - 1);
   }
 
   /**
@@ -49,40 +59,83 @@ public class AcknowledgedCounterGenerator extends CounterGenerator {
    */
   @Override
   public Long lastValue() {
-    return limit;
+    return limit.get();
   }
 
   /**
    * Make a generated counter value available via lastInt().
    */
   public void acknowledge(long value) {
-    final int currentSlot = (int)(value & WINDOW_MASK);
-    if (window[currentSlot]) {
-      throw new RuntimeException("Too many unacknowledged insertion keys.");
-    }
+    Segment segment = segment(value >>> SEGMENT_SHIFT, true);
+    int bit = (int) (value & SEGMENT_MASK);
+    int word = bit >>> 6;
+    long mask = 1L << (bit & 63);
+    long bits;
+    do {
+      bits = segment.bits.get(word);
+    } while (!segment.bits.compareAndSet(word, bits, bits | mask));
 
-    window[currentSlot] = true;
+    advance();
+  }
 
-    if (lock.tryLock()) {
-      // move a contiguous sequence from the window
-      // over to the "limit" variable
-      try {
-        // Only loop through the entire window at most once.
-        long beforeFirstSlot = (limit & WINDOW_MASK);
-        long index;
-        for (index = limit + 1; index != beforeFirstSlot; ++index) {
-          int slot = (int)(index & WINDOW_MASK);
-          if (!window[slot]) {
+  /**
+   * Moves the limit over the acknowledged values following it. Threads racing here either
+   * win the compare-and-set or retry from the limit the winner set.
+   */
+  private void advance() {
+    while (true) {
+      long current = limit.get();
+      long next = current;
+      Segment segment = null;
+      while (true) {
+        long candidate = next + 1;
+        if (segment == null || segment.index != candidate >>> SEGMENT_SHIFT) {
+          segment = segment(candidate >>> SEGMENT_SHIFT, false);
+          if (segment == null) {
             break;
           }
-
-          window[slot] = false;
         }
-
-        limit = index - 1;
-      } finally {
-        lock.unlock();
+        int bit = (int) (candidate & SEGMENT_MASK);
+        // the run of acknowledged values from candidate to the end of its word
+        long run = Long.numberOfTrailingZeros(~(segment.bits.get(bit >>> 6) >>> (bit & 63)));
+        if (run == 0) {
+          break;
+        }
+        next += run;
+      }
+      if (next == current) {
+        return;
       }
+      if (limit.compareAndSet(current, next)) {
+        // segments entirely at or below the new limit are done
+        for (long index = (current + 1) >>> SEGMENT_SHIFT; index < (next + 1) >>> SEGMENT_SHIFT; index++) {
+          segments.remove(index);
+        }
+      }
+    }
+  }
+
+  private Segment segment(long index, boolean create) {
+    Segment segment = recent;
+    if (segment != null && segment.index == index) {
+      return segment;
+    }
+    segment = create ? segments.computeIfAbsent(index, Segment::new) : segments.get(index);
+    if (segment != null) {
+      recent = segment;
+    }
+    return segment;
+  }
+
+  /**
+   * The acknowledgement bits of {@link #SEGMENT_SIZE} consecutive values.
+   */
+  private static final class Segment {
+    private final long index;
+    private final AtomicLongArray bits = new AtomicLongArray(SEGMENT_SIZE / 64);
+
+    private Segment(long index) {
+      this.index = index;
     }
   }
 }
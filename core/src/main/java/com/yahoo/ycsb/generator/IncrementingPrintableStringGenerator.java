@@ -216,6 +216,26 @@ public class IncrementingPrintableStringGenerator extends Generator<String> {
     return lastValue;
   }
 
+  /**
+   * Returns the string the generator produces after the given number of increments from its
+   * initial state, without changing the state. Rolls over the same way {@link #nextValue()} does.
+   * @param index The zero based position of the string in the sequence.
+   * @return The string at the position.
+   */
+  public String valueAt(long index) {
+    final int[] digits = new int[length];
+    long remaining = index;
+    for (int i = length - 1; i >= 0 && remaining > 0; --i) {
+      digits[i] = (int) (remaining % characterSet.length);
+      remaining /= characterSet.length;
+    }
+    final StringBuilder buffer = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      buffer.append(Character.toChars(characterSet[digits[i]]));
+    }
+    return buffer.toString();
+  }
+
   @Override
   public String lastValue() {
     return lastValue;
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generate integers resembling a hotspot distribution whose hot set moves through the
+ * interval over time, so caches in front of the database keep having to follow it.
+ * <p>
+ * Like {@link HotspotIntegerGenerator}, a fraction of the operations accesses a fraction of
+ * the data items uniformly and the rest accesses the other items uniformly. Every period the
+ * hot set moves forward by the part of it that is not kept ("overlap" is the fraction of the
+ * hot set shared by consecutive positions, 0 for a disjoint new hot set), wrapping around at
+ * the upper bound. In jump mode the hot set moves all at once at the end of each period; in
+ * drift mode it moves continuously at the same average speed.
+ */
+public class ShiftingHotspotGenerator extends NumberGenerator {
+
+  private final long lowerBound;
+  private final long interval;
+  private final long hotInterval;
+  private final long coldInterval;
+  private final double hotOpnFraction;
+  private final long periodNs;
+  private final long shift;
+  private final boolean drift;
+  private final long startNs = System.nanoTime();
+
+  /**
+   * Create a generator for shifting hotspot distributions.
+   *
+   * @param lowerBound lower bound of the distribution.
+   * @param upperBound upper bound of the distribution.
+   * @param hotsetFraction percentage of data items in the hot set.
+   * @param hotOpnFraction percentage of operations accessing the hot set.
+   * @param periodMs the time between moves of the hot set in milliseconds.
+   * @param overlap fraction of the hot set kept by each move.
+   * @param drift whether to move continuously instead of once per period.
+   */
+  public ShiftingHotspotGenerator(long lowerBound, long upperBound, double hotsetFraction,
+                                  double hotOpnFraction, long periodMs, double overlap, boolean drift) {
+    if (hotsetFraction < 0.0 || hotsetFraction > 1.0) {
+      throw new IllegalArgumentException("Hotset fraction out of range: " + hotsetFraction);
+    }
+    if (hotOpnFraction < 0.0 || hotOpnFraction > 1.0) {
+      throw new IllegalArgumentException("Hot operation fraction out of range: " + hotOpnFraction);
+    }
+    if (overlap < 0.0 || overlap >= 1.0) {
+      throw new IllegalArgumentException("Hotset overlap must be in [0, 1): " + overlap);
+    }
+    if (periodMs <= 0 || lowerBound > upperBound) {
+      throw new IllegalArgumentException("Invalid period or bounds");
+    }
+    this.lowerBound = lowerBound;
+    this.interval = upperBound - lowerBound + 1;
+    this.hotInterval = Math.max(1, (long) (interval * hotsetFraction));
+    this.coldInterval = interval - hotInterval;
+    this.hotOpnFraction = hotOpnFraction;
+    this.periodNs = periodMs * 1000000L;
+    this.shift = Math.max(1, (long) (hotInterval * (1 - overlap)));
+    this.drift = drift;
+  }
+
+  @Override
+  public Long nextValue() {
+    long value = valueAt(System.nanoTime() - startNs, ThreadLocalRandom.current());
+    setLastValue(value);
+    return value;
+  }
+
+  /**
+   * The value drawn at the given time since the generator was created.
+   */
+  long valueAt(long elapsedNs, Random random) {
+    long offset;
+    if (random.nextDouble() < hotOpnFraction || coldInterval == 0) {
+      offset = Math.abs(random.nextLong() % hotInterval);
+    } else {
+      offset = hotInterval + Math.abs(random.nextLong() % coldInterval);
+    }
+    return lowerBound + (hotSetStart(elapsedNs) + offset) % interval;
+  }
+
+  /**
+   * The offset of the first hot item from the lower bound at the given time.
+   */
+  long hotSetStart(long elapsedNs) {
+    long start = elapsedNs / periodNs * shift % interval;
+    if (drift) {
+      start += (long) ((double) (elapsedNs % periodNs) / periodNs * shift);
+    }
+    return start % interval;
+  }
+
+  /**
+   * The first item of the hot set now. The hot set continues from there, wrapping around to
+   * the lower bound.
+   */
+  public long getHotSetStart() {
+    return lowerBound + hotSetStart(System.nanoTime() - startNs);
+  }
+
+  public long getHotSetSize() {
+    return hotInterval;
+  }
+
+  @Override
+  public double mean() {
+    // over time every item is hot equally often
+    return lowerBound + (interval - 1) / 2.0;
+  }
+}
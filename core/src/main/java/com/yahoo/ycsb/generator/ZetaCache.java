@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+/**
+ * Computes and remembers the zeta constants of zipfian distributions, the sum of 1/i^theta
+ * for i from 1 to n.
+ * <p>
+ * The sum takes O(n) time, which adds up to minutes at billions of items. Here it is split
+ * into ranges summed in parallel on the common fork-join pool, and each result is kept both
+ * in memory and, if enabled, in a small cache file, so that later generators and later runs
+ * (e.g. the run phase after the load phase) can reuse it. A value for a different n is derived
+ * from the nearest known one by adding or removing the terms in between, so growing a data set
+ * only costs the new items.
+ * <p>
+ * The file is off unless set with {@link #setCacheFile(String)}. It holds one
+ * "theta n zeta checksum" line per value, where the checksum is the CRC-32 of the rest of the
+ * line, and lines that are truncated or otherwise fail the check are ignored. Only values for
+ * at least {@value #PERSIST_MIN_ITEMS} items are written to it.
+ */
+public final class ZetaCache {
+  /**
+   * Smallest number of items worth caching on disk, smaller sums take milliseconds.
+   */
+  static final long PERSIST_MIN_ITEMS = 10000000L;
+
+  /**
+   * Number of terms below which a range is summed sequentially.
+   */
+  private static final long SEQUENTIAL_TERMS = 1 << 20;
+
+  /**
+   * Known values by theta, then by n.
+   */
+  private static final Map<Double, TreeMap<Long, Double>> KNOWN = new HashMap<>();
+  private static String cacheFile;
+  private static boolean loaded;
+
+  private ZetaCache() {
+    // not used
+  }
+
+  /**
+   * Sets the cache file to read and append to, or disables it if null or empty.
+   */
+  public static synchronized void setCacheFile(String file) {
+    String next = file == null || file.isEmpty() ? null : file;
+    if (next == null ? cacheFile != null : !next.equals(cacheFile)) {
+      cacheFile = next;
+      loaded = false;
+    }
+  }
+
+  /**
+   * Returns zeta(n, theta), from the cache if possible.
+   *
+   * @param n The number of items.
+   * @param theta The zipfian constant.
+   */
+  public static double zeta(long n, double theta) {
+    long from;
+    double sum;
+    synchronized (ZetaCache.class) {
+      load();
+      TreeMap<Long, Double> known = KNOWN.get(theta);
+      if (known == null) {
+        known = new TreeMap<>();
+        known.put(0L, 0.0);
+        KNOWN.put(theta, known);
+      }
+      Map.Entry<Long, Double> below = known.floorEntry(n);
+      Map.Entry<Long, Double> above = known.ceilingEntry(n);
+      if (below.getKey() == n) {
+        return below.getValue();
+      }
+      if (above != null && above.getKey() - n < n - below.getKey()) {
+        from = above.getKey();
+        sum = above.getValue();
+      } else {
+        from = below.getKey();
+        sum = below.getValue();
+      }
+    }
+
+    double zeta = from < n ? sum + sum(from, n, theta) : sum - sum(n, from, theta);
+    synchronized (ZetaCache.class) {
+      KNOWN.get(theta).put(n, zeta);
+      if (n >= PERSIST_MIN_ITEMS) {
+        persist(n, theta, zeta);
+      }
+    }
+    return zeta;
+  }
+
+  /**
+   * Returns the sum of 1/i^theta for i from st+1 to n, in parallel for long ranges.
+   */
+  static double sum(long st, long n, double theta) {
+    if (n - st <= SEQUENTIAL_TERMS) {
+      return sequentialSum(st, n, theta);
+    }
+    return ForkJoinPool.commonPool().invoke(new RangeSum(st, n, theta));
+  }
+
+  private static double sequentialSum(long st, long n, double theta) {
+    double sum = 0;
+    for (long i = st; i < n; i++) {
+      sum += 1 / (Math.pow(i + 1, theta));
+    }
+    return sum;
+  }
+
+  /**
+   * Forgets all values held in memory, the cache file is read again on next use.
+   */
+  static synchronized void clear() {
+    KNOWN.clear();
+    loaded = false;
+  }
+
+  private static void load() {
+    if (loaded) {
+      return;
+    }
+    loaded = true;
+    if (cacheFile == null || !new File(cacheFile).exists()) {
+      return;
+    }
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.trim().split(" ");
+        if (parts.length != 4 || !parts[3].equals(checksum(parts[0] + " " + parts[1] + " " + parts[2]))) {
+          // a partially written or damaged line, skip it
+          continue;
+        }
+        try {
+          double theta = Double.parseDouble(parts[0]);
+          TreeMap<Long, Double> known = KNOWN.get(theta);
+          if (known == null) {
+            known = new TreeMap<>();
+            known.put(0L, 0.0);
+            KNOWN.put(theta, known);
+          }
+          known.put(Long.parseLong(parts[1]), Double.parseDouble(parts[2]));
+        } catch (NumberFormatException e) {
+          // not a value even though the checksum matched, skip it
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Could not read zeta cache " + cacheFile + ": " + e);
+    }
+  }
+
+  private static void persist(long n, double theta, double zeta) {
+    if (cacheFile == null) {
+      return;
+    }
+    // a single small append, so concurrent clients sharing the file do not interleave lines
+    byte[] line = (record(n, theta, zeta) + "\n").getBytes(StandardCharsets.UTF_8);
+    try (OutputStream out = new FileOutputStream(cacheFile, true)) {
+      out.write(line);
+    } catch (IOException e) {
+      System.err.println("Could not write zeta cache " + cacheFile + ": " + e);
+    }
+  }
+
+  /**
+   * Formats a value as a line of the cache file, without the line separator.
+   */
+  static String record(long n, double theta, double zeta) {
+    String value = theta + " " + n + " " + zeta;
+    return value + " " + checksum(value);
+  }
+
+  private static String checksum(String value) {
+    CRC32 crc = new CRC32();
+    crc.update(value.getBytes(StandardCharsets.UTF_8));
+    return Long.toHexString(crc.getValue());
+  }
+
+  /**
+   * Sums a range of zeta terms by splitting it in halves down to {@link #SEQUENTIAL_TERMS}.
+   */
+  private static final class RangeSum extends RecursiveTask<Double> {
+    private static final long serialVersionUID = 1L;
+
+    private final long st;
+    private final long n;
+    private final double theta;
+
+    private RangeSum(long st, long n, double theta) {
+      this.st = st;
+      this.n = n;
+      this.theta = theta;
+    }
+
+    @Override
+    protected Double compute() {
+      if (n - st <= SEQUENTIAL_TERMS) {
+        return sequentialSum(st, n, theta);
+      }
+      long mid = st + (n - st) / 2;
+      RangeSum left = new RangeSum(st, mid, theta);
+      left.fork();
+      double right = new RangeSum(mid, n, theta).compute();
+      return left.join() + right;
+    }
+  }
+}
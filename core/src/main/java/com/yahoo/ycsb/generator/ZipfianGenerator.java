@@ -30,9 +30,10 @@ import java.util.concurrent.ThreadLocalRandom;
  * popular, and so on (or min is the most popular, min+1 the next most popular, etc.) If you don't want this clustering,
  * and instead want the popular items scattered throughout the item space, then use ScrambledZipfianGenerator instead.
  *
- * Be aware: initializing this generator may take a long time if there are lots of items to choose from (e.g. over a
- * minute for 100 million objects). This is because certain mathematical values need to be computed to properly
- * generate a zipfian skew, and one of those values (zeta) is a sum sequence from 1 to n, where n is the itemcount.
+ * Be aware: initializing this generator may take a long time if there are lots of items to choose from. This is
+ * because certain mathematical values need to be computed to properly generate a zipfian skew, and one of those
+ * values (zeta) is a sum sequence from 1 to n, where n is the itemcount. The sum is computed in parallel and kept
+ * by {@link ZetaCache}, in memory and optionally on disk, so it is only paid once per item count and zipfian constant.
  * Note that if you increase the number of items in the set, we can compute a new zeta incrementally, so it should be
  * fast unless you have added millions of items. However, if you decrease the number of items, we recompute zeta from
  * scratch, so this can take a long time.
@@ -162,13 +163,13 @@ public class ZipfianGenerator extends NumberGenerator {
   }
 
   /**
-   * Compute the zeta constant needed for the distribution. Do this from scratch for a distribution with n items,
-   * using the zipfian constant theta. This is a static version of the function which will not remember n.
+   * Compute the zeta constant needed for the distribution for a distribution with n items, using the zipfian
+   * constant theta, from the {@link ZetaCache}. This is a static version of the function which will not remember n.
    * @param n The number of items to compute zeta over.
    * @param theta The zipfian constant.
    */
   static double zetastatic(long n, double theta) {
-    return zetastatic(0, n, theta, 0);
+    return ZetaCache.zeta(n, theta);
   }
 
   /**
@@ -196,15 +197,7 @@ public class ZipfianGenerator extends NumberGenerator {
    * @param initialsum The value of zeta we are computing incrementally from.
    */
   static double zetastatic(long st, long n, double theta, double initialsum) {
-    double sum = initialsum;
-    for (long i = st; i < n; i++) {
-
-      sum += 1 / (Math.pow(i + 1, theta));
-    }
-
-    //System.out.println("countforzeta="+countforzeta);
-
-    return sum;
+    return initialsum + ZetaCache.sum(st, n, theta);
   }
 
   /****************************************************************************************/
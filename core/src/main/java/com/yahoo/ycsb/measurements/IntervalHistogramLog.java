@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+
+/**
+ * A compact binary log of interval histograms for all measurements in a single file.
+ * <p>
+ * The file starts with a magic string and format version, followed by one record per
+ * measurement and interval: the interval end time in epoch milliseconds, the measurement
+ * name, and the histogram in HdrHistogram's compressed encoding. The log is flushed at
+ * the end of every interval, so the log of a running test can be read with
+ * {@link #replay(String, IntervalHistogramSink)}.
+ */
+public final class IntervalHistogramLog implements IntervalHistogramSink {
+  private static final String MAGIC = "YCSBHLOG";
+  private static final int VERSION = 1;
+
+  private final DataOutputStream out;
+  private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+  /**
+   * Creates the log, overwriting an existing file.
+   */
+  public IntervalHistogramLog(String path) throws IOException {
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+    out.writeUTF(MAGIC);
+    out.writeInt(VERSION);
+    out.flush();
+  }
+
+  @Override
+  public synchronized void write(String name, long timestampMs, Histogram interval) throws IOException {
+    int needed = interval.getNeededByteBufferCapacity();
+    if (buffer.capacity() < needed) {
+      buffer = ByteBuffer.allocate(needed);
+    }
+    buffer.clear();
+    int length = interval.encodeIntoCompressedByteBuffer(buffer);
+    out.writeLong(timestampMs);
+    out.writeUTF(name);
+    out.writeInt(length);
+    out.write(buffer.array(), 0, length);
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    out.close();
+  }
+
+  /**
+   * Reads a log written by this class and passes every record to the given sink, in order.
+   * A record cut short because the log is still being written ends the replay.
+   */
+  public static void replay(String path, IntervalHistogramSink sink) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+      if (!MAGIC.equals(in.readUTF()) || in.readInt() != VERSION) {
+        throw new IOException(path + " is not an interval histogram log");
+      }
+      while (true) {
+        long timestampMs;
+        String name;
+        byte[] encoded;
+        try {
+          timestampMs = in.readLong();
+          name = in.readUTF();
+          encoded = new byte[in.readInt()];
+          in.readFully(encoded);
+        } catch (EOFException e) {
+          return;
+        }
+        try {
+          sink.write(name, timestampMs, Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0));
+        } catch (DataFormatException e) {
+          throw new IOException("Corrupt histogram for " + name + " at " + timestampMs, e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Receives the latencies of each status interval, one histogram per measurement. The sink is
+ * flushed once all measurements of an interval have been written.
+ */
+public interface IntervalHistogramSink extends Closeable, Flushable {
+  /**
+   * Called once per status interval and measurement.
+   *
+   * @param name The measurement name, e.g. READ.
+   * @param timestampMs The end of the interval in milliseconds since the epoch.
+   * @param interval The latencies recorded during the interval, in microseconds. Must not be
+   *                 modified or kept after the call returns.
+   * @throws IOException If the interval could not be written.
+   */
+  void write(String name, long timestampMs, Histogram interval) throws IOException;
+}
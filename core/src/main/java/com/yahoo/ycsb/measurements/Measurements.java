@@ -19,10 +19,17 @@ package com.yahoo.ycsb.measurements;
 
 import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Collects latency measurements, and reports them when requested.
@@ -34,6 +41,7 @@ public class Measurements {
   public enum MeasurementType {
     HISTOGRAM,
     HDRHISTOGRAM,
+    SHARDED_HDRHISTOGRAM,
     HDRHISTOGRAM_AND_HISTOGRAM,
     HDRHISTOGRAM_AND_RAW,
     TIMESERIES,
@@ -49,6 +57,17 @@ public class Measurements {
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY = "measurement.trackjvm";
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT = "false";
 
+  /**
+   * File to log the interval histograms of every measurement to, see {@link IntervalHistogramLog}.
+   */
+  public static final String INTERVAL_LOG_PROPERTY = "measurement.interval.log";
+
+  /**
+   * Port to serve the interval latencies on for Prometheus, see {@link PrometheusEndpoint}. The
+   * endpoint is started by the client rather than here, as the measurements may be rebuilt.
+   */
+  public static final String PROMETHEUS_PORT_PROPERTY = "measurement.prometheus.port";
+
   private static Measurements singleton = null;
   private static Properties measurementproperties = null;
 
@@ -71,6 +90,24 @@ public class Measurements {
   private final MeasurementType measurementType;
   private final int measurementInterval;
   private final Properties props;
+  private final List<IntervalHistogramSink> intervalSinks = new CopyOnWriteArrayList<>();
+  private IntervalHistogramLog intervalLog;
+
+  /**
+   * Values only known at the end of the run, by metric and measurement. Guarded by itself.
+   */
+  private final Map<String, Map<String, Number>> totals = new LinkedHashMap<>();
+
+  /**
+   * The measurement names of the operations in the running phase, null without phases.
+   */
+  private volatile ConcurrentHashMap<String, String> phaseNames;
+  private volatile String phase;
+
+  /**
+   * The measurement names of the operations on each table, null unless recorded per table.
+   */
+  private volatile ConcurrentHashMap<String, ConcurrentHashMap<String, String>> tableNames;
 
   /**
    * Create a new object with the specified properties.
@@ -89,6 +126,9 @@ public class Measurements {
     case "hdrhistogram":
       measurementType = MeasurementType.HDRHISTOGRAM;
       break;
+    case "shardedhdrhistogram":
+      measurementType = MeasurementType.SHARDED_HDRHISTOGRAM;
+      break;
     case "hdrhistogram+histogram":
       measurementType = MeasurementType.HDRHISTOGRAM_AND_HISTOGRAM;
       break;
@@ -119,6 +159,24 @@ public class Measurements {
     default:
       throw new IllegalArgumentException("unknown " + MEASUREMENT_INTERVAL + "=" + mIntervalString);
     }
+
+    try {
+      String intervalLogFile = this.props.getProperty(INTERVAL_LOG_PROPERTY);
+      if (intervalLogFile != null) {
+        intervalLog = new IntervalHistogramLog(intervalLogFile);
+        intervalSinks.add(intervalLog);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to set up interval histogram output", e);
+    }
+  }
+
+  /**
+   * Hands the interval latencies from now on also to the given sink. The caller closes it once
+   * the measurements have been exported.
+   */
+  public void addIntervalSink(IntervalHistogramSink sink) {
+    intervalSinks.add(sink);
   }
 
   private OneMeasurement constructOneMeasurement(String name) {
@@ -127,6 +185,8 @@ public class Measurements {
       return new OneMeasurementHistogram(name, props);
     case HDRHISTOGRAM:
       return new OneMeasurementHdrHistogram(name, props);
+    case SHARDED_HDRHISTOGRAM:
+      return new OneMeasurementShardedHdrHistogram(name, props);
     case HDRHISTOGRAM_AND_HISTOGRAM:
       return new TwoInOneMeasurement(name,
           new OneMeasurementHdrHistogram("Hdr" + name, props),
@@ -146,6 +206,7 @@ public class Measurements {
 
   static class StartTimeHolder {
     protected long time;
+    protected long throttleNs;
 
     long startTime() {
       if (time == 0) {
@@ -176,6 +237,24 @@ public class Measurements {
     return tlIntendedStartTime.get().startTime();
   }
 
+  /**
+   * Reports time the current thread spent inside an operation waiting for its intended start
+   * time, so that the client counts it as throttling rather than as its own work.
+   */
+  public void addThrottleTimeNs(long ns) {
+    tlIntendedStartTime.get().throttleNs += ns;
+  }
+
+  /**
+   * Returns the throttle time reported by the current thread since the previous call.
+   */
+  public long takeThrottleTimeNs() {
+    StartTimeHolder holder = tlIntendedStartTime.get();
+    long ns = holder.throttleNs;
+    holder.throttleNs = 0;
+    return ns;
+  }
+
   /**
    * Report a single value of a single metric. E.g. for read latency, operation="READ" and latency is the measured
    * value.
@@ -187,6 +266,9 @@ public class Measurements {
     try {
       OneMeasurement m = getOpMeasurement(operation);
       m.measure(latency);
+      if (phaseNames != null) {
+        getOpMeasurement(phaseName(operation)).measure(latency);
+      }
     } catch (java.lang.ArrayIndexOutOfBoundsException e) {
       // This seems like a terribly hacky way to cover up for a bug in the measurement code
       System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
@@ -206,6 +288,9 @@ public class Measurements {
     try {
       OneMeasurement m = getOpIntendedMeasurement(operation);
       m.measure(latency);
+      if (phaseNames != null) {
+        getOpIntendedMeasurement(phaseName(operation)).measure(latency);
+      }
     } catch (java.lang.ArrayIndexOutOfBoundsException e) {
       // This seems like a terribly hacky way to cover up for a bug in the measurement code
       System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
@@ -214,6 +299,74 @@ public class Measurements {
     }
   }
 
+  /**
+   * Records the latencies from now on also under "OPERATION@phase", see
+   * {@link com.yahoo.ycsb.PhaseSchedule}.
+   */
+  public void setPhase(String name) {
+    phase = name;
+    phaseNames = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Reports the latency of an operation on a table, recorded under "OPERATION@table" as well
+   * once {@link #setPerTable()} was called.
+   */
+  public void measure(String operation, String table, int latency) {
+    measure(operation, latency);
+    if (table != null && tableNames != null && measurementInterval != 1) {
+      getOpMeasurement(tableName(operation, table)).measure(latency);
+    }
+  }
+
+  /**
+   * Reports the intended latency of an operation on a table, recorded under "OPERATION@table"
+   * as well once {@link #setPerTable()} was called.
+   */
+  public void measureIntended(String operation, String table, int latency) {
+    measureIntended(operation, latency);
+    if (table != null && tableNames != null && measurementInterval != 0) {
+      getOpIntendedMeasurement(tableName(operation, table)).measure(latency);
+    }
+  }
+
+  /**
+   * Records the latencies from now on also under "OPERATION@table", see
+   * {@link com.yahoo.ycsb.workloads.MultiTableWorkload}.
+   */
+  public void setPerTable() {
+    if (tableNames == null) {
+      tableNames = new ConcurrentHashMap<>();
+    }
+  }
+
+  private String tableName(String operation, String table) {
+    ConcurrentHashMap<String, String> names = tableNames.get(table);
+    if (names == null) {
+      names = new ConcurrentHashMap<>();
+      ConcurrentHashMap<String, String> other = tableNames.putIfAbsent(table, names);
+      if (other != null) {
+        names = other;
+      }
+    }
+    String name = names.get(operation);
+    if (name == null) {
+      name = operation + "@" + table;
+      names.put(operation, name);
+    }
+    return name;
+  }
+
+  private String phaseName(String operation) {
+    ConcurrentHashMap<String, String> names = phaseNames;
+    String name = names.get(operation);
+    if (name == null) {
+      name = operation + "@" + phase;
+      names.put(operation, name);
+    }
+    return name;
+  }
+
   private OneMeasurement getOpMeasurement(String operation) {
     OneMeasurement m = opToMesurementMap.get(operation);
     if (m == null) {
@@ -249,6 +402,31 @@ public class Measurements {
     m.reportStatus(status);
   }
 
+  /**
+   * Report the number of keys of a batch operation, whose latency is measured as a whole.
+   */
+  public void reportKeys(final String operation, final long count) {
+    OneMeasurement m = measurementInterval == 1 ?
+        getOpIntendedMeasurement(operation) :
+        getOpMeasurement(operation);
+    m.reportKeys(count);
+  }
+
+  /**
+   * Report a value that is only known at the end of the run, such as the summary of a binding,
+   * to be exported with the measurements. A later report of the same measurement replaces it.
+   */
+  public void reportTotal(final String metric, final String measurement, final Number value) {
+    synchronized (totals) {
+      Map<String, Number> measurements = totals.get(metric);
+      if (measurements == null) {
+        measurements = new LinkedHashMap<>();
+        totals.put(metric, measurements);
+      }
+      measurements.put(measurement, value);
+    }
+  }
+
   /**
    * Export the current measurements to a suitable format.
    *
@@ -256,26 +434,117 @@ public class Measurements {
    * @throws IOException Thrown if the export failed.
    */
   public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
+    if (!intervalSinks.isEmpty()) {
+      // emit what the status thread has not seen yet before the sinks go away
+      getSummary();
+      if (intervalLog != null) {
+        intervalLog.close();
+      }
+    }
     for (OneMeasurement measurement : opToMesurementMap.values()) {
       measurement.exportMeasurements(exporter);
     }
     for (OneMeasurement measurement : opToIntendedMesurementMap.values()) {
       measurement.exportMeasurements(exporter);
     }
+    synchronized (totals) {
+      for (Map.Entry<String, Map<String, Number>> metric : totals.entrySet()) {
+        for (Map.Entry<String, Number> total : metric.getValue().entrySet()) {
+          Number value = total.getValue();
+          if (value instanceof Double || value instanceof Float) {
+            exporter.write(metric.getKey(), total.getKey(), value.doubleValue());
+          } else {
+            exporter.write(metric.getKey(), total.getKey(), value.longValue());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the latencies recorded since the previous call for every HdrHistogram based
+   * measurement, keyed by measurement name. The intervals also count towards the totals
+   * exported at the end, as with {@link #getSummary()}, so the two should not be mixed.
+   */
+  public synchronized Map<String, Histogram> getIntervalHistograms() {
+    Map<String, Histogram> histograms = new HashMap<>();
+    for (OneMeasurement m : allMeasurements()) {
+      if (m instanceof OneMeasurementHdrHistogram) {
+        histograms.put(m.getName(), ((OneMeasurementHdrHistogram) m).takeIntervalHistogram());
+      }
+    }
+    return histograms;
+  }
+
+  /**
+   * Returns the return code counts of every measurement, keyed by measurement name.
+   */
+  public Map<String, Map<Status, Integer>> getStatusCounts() {
+    Map<String, Map<Status, Integer>> counts = new HashMap<>();
+    for (OneMeasurement m : allMeasurements()) {
+      counts.put(m.getName(), m.getStatusCounts());
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the number of keys of every batch measurement, keyed by measurement name.
+   */
+  public Map<String, Long> getKeyCounts() {
+    Map<String, Long> counts = new HashMap<>();
+    for (OneMeasurement m : allMeasurements()) {
+      if (m.getKeys() > 0) {
+        counts.put(m.getName(), m.getKeys());
+      }
+    }
+    return counts;
+  }
+
+  private List<OneMeasurement> allMeasurements() {
+    List<OneMeasurement> all = new ArrayList<>(opToMesurementMap.values());
+    all.addAll(opToIntendedMesurementMap.values());
+    return all;
   }
 
   /**
    * Return a one line summary of the measurements.
    */
   public synchronized String getSummary() {
+    long now = System.currentTimeMillis();
     String ret = "";
     for (OneMeasurement m : opToMesurementMap.values()) {
-      ret += m.getSummary() + " ";
+      ret += getSummary(m, now) + " ";
     }
     for (OneMeasurement m : opToIntendedMesurementMap.values()) {
-      ret += m.getSummary() + " ";
+      ret += getSummary(m, now) + " ";
+    }
+    for (IntervalHistogramSink sink : intervalSinks) {
+      try {
+        sink.flush();
+      } catch (IOException e) {
+        System.err.println("Could not write interval histograms: " + e);
+      }
     }
     return ret;
   }
 
+  /**
+   * Summarizes one measurement, handing its interval histogram to the sinks on the way.
+   */
+  private String getSummary(OneMeasurement m, long now) {
+    if (intervalSinks.isEmpty() || !(m instanceof OneMeasurementHdrHistogram)) {
+      return m.getSummary();
+    }
+    OneMeasurementHdrHistogram hdr = (OneMeasurementHdrHistogram) m;
+    Histogram interval = hdr.takeIntervalHistogram();
+    for (IntervalHistogramSink sink : intervalSinks) {
+      try {
+        sink.write(m.getName(), now, interval);
+      } catch (IOException e) {
+        System.err.println("Could not write interval histogram of " + m.getName() + ": " + e);
+      }
+    }
+    return hdr.getSummary(interval);
+  }
+
 }
@@ -21,9 +21,11 @@ import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A single measured metric (such as READ LATENCY).
@@ -32,6 +34,7 @@ public abstract class OneMeasurement {
 
   private final String name;
   private final ConcurrentHashMap<Status, AtomicInteger> returncodes;
+  private final AtomicLong keys = new AtomicLong();
 
   public String getName() {
     return name;
@@ -53,6 +56,13 @@ public abstract class OneMeasurement {
    * No need for synchronization, using CHM to deal with that.
    */
   public void reportStatus(Status status) {
+    reportStatus(status, 1);
+  }
+
+  /**
+   * Counts several occurrences of a return code at once.
+   */
+  public void reportStatus(Status status, int count) {
     AtomicInteger counter = returncodes.get(status);
 
     if (counter == null) {
@@ -63,7 +73,7 @@ public abstract class OneMeasurement {
       }
     }
 
-    counter.incrementAndGet();
+    counter.addAndGet(count);
   }
 
   /**
@@ -74,7 +84,35 @@ public abstract class OneMeasurement {
    */
   public abstract void exportMeasurements(MeasurementsExporter exporter) throws IOException;
 
+  /**
+   * The number of times each return code was reported so far.
+   */
+  public Map<Status, Integer> getStatusCounts() {
+    Map<Status, Integer> counts = new HashMap<>();
+    for (Map.Entry<Status, AtomicInteger> entry : returncodes.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().get());
+    }
+    return counts;
+  }
+
+  /**
+   * Counts the keys of a batch operation.
+   */
+  public void reportKeys(long count) {
+    keys.addAndGet(count);
+  }
+
+  /**
+   * The number of keys reported so far.
+   */
+  public long getKeys() {
+    return keys.get();
+  }
+
   protected final void exportStatusCounts(MeasurementsExporter exporter) throws IOException {
+    if (keys.get() > 0) {
+      exporter.write(getName(), "Keys", keys.get());
+    }
     for (Map.Entry<Status, AtomicInteger> entry : returncodes.entrySet()) {
       exporter.write(getName(), "Return=" + entry.getKey().getName(), entry.getValue().get());
     }
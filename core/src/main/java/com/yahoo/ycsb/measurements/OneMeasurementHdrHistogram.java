@@ -149,7 +149,13 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
    */
   @Override
   public String getSummary() {
-    Histogram intervalHistogram = getIntervalHistogramAndAccumulate();
+    return getSummary(takeIntervalHistogram());
+  }
+
+  /**
+   * Summarizes an interval histogram taken with {@link #takeIntervalHistogram()}.
+   */
+  String getSummary(Histogram intervalHistogram) {
     // we use the summary interval as the histogram file interval.
     if (histogramLogWriter != null) {
       histogramLogWriter.outputIntervalHistogram(intervalHistogram);
@@ -164,8 +170,34 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
         + d.format(intervalHistogram.getValueAtPercentile(99.99)) + "]";
   }
 
+  /**
+   * Returns the values recorded since the previous call and resets the interval.
+   */
+  protected Histogram getIntervalHistogram() {
+    return histogram.getIntervalHistogram();
+  }
+
+  /**
+   * Adds latencies recorded elsewhere, for example by another client process, to the totals
+   * that are exported.
+   */
+  public synchronized void addToTotals(Histogram recorded) {
+    if (totalHistogram == null) {
+      totalHistogram = new Histogram(3);
+    }
+    totalHistogram.add(recorded);
+  }
+
+  /**
+   * Takes the interval histogram like a status report would, so that it is also added to the
+   * totals exported at the end.
+   */
+  synchronized Histogram takeIntervalHistogram() {
+    return getIntervalHistogramAndAccumulate();
+  }
+
   private Histogram getIntervalHistogramAndAccumulate() {
-    Histogram intervalHistogram = histogram.getIntervalHistogram();
+    Histogram intervalHistogram = getIntervalHistogram();
     // add this to the total time histogram.
     if (totalHistogram == null) {
       totalHistogram = intervalHistogram;
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.measurements;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link OneMeasurementHdrHistogram} that gives every recording thread its own histogram.
+ * <p>
+ * The shared {@link org.HdrHistogram.Recorder} makes all client threads increment the same
+ * counts array with atomic operations, which turns into cache line contention with many
+ * threads. Here each thread records into a {@link SingleWriterRecorder} with plain writes and
+ * the shards are only merged when the status thread asks for a summary or the results are
+ * exported. Recording never blocks and never contends with other writers.
+ */
+public class OneMeasurementShardedHdrHistogram extends OneMeasurementHdrHistogram {
+
+  private final List<SingleWriterRecorder> shards = new CopyOnWriteArrayList<>();
+
+  private final ThreadLocal<SingleWriterRecorder> shard = new ThreadLocal<SingleWriterRecorder>() {
+    @Override
+    protected SingleWriterRecorder initialValue() {
+      SingleWriterRecorder recorder = new SingleWriterRecorder(3);
+      shards.add(recorder);
+      return recorder;
+    }
+  };
+
+  public OneMeasurementShardedHdrHistogram(String name, Properties props) {
+    super(name, props);
+  }
+
+  @Override
+  public void measure(int latencyInMicros) {
+    shard.get().recordValue(latencyInMicros);
+  }
+
+  /**
+   * Merges the interval histograms of all threads. Shards of threads that have exited are
+   * kept so that nothing they recorded is lost.
+   */
+  @Override
+  protected synchronized Histogram getIntervalHistogram() {
+    Histogram merged = new Histogram(3);
+    for (SingleWriterRecorder recorder : shards) {
+      merged.add(recorder.getIntervalHistogram());
+    }
+    return merged;
+  }
+}
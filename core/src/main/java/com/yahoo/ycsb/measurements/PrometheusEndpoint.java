@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serves the latest interval latencies in the Prometheus text format on /metrics.
+ * <p>
+ * Every measurement is exported as a summary named ycsb_latency_us with an "operation" label.
+ * The quantiles are those of the last status interval, while the count and sum are cumulative
+ * as Prometheus expects, so rates can be computed from them. The maximum of the last
+ * interval is exported as the gauge ycsb_latency_max_us.
+ */
+public final class PrometheusEndpoint implements IntervalHistogramSink {
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+
+  private final HttpServer server;
+  private final Map<String, Series> series = new TreeMap<>();
+  private volatile byte[] page = new byte[0];
+
+  /**
+   * Starts serving on the given port, on all interfaces.
+   */
+  public PrometheusEndpoint(int port) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.createContext("/metrics", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        byte[] body = page;
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    });
+    server.start();
+  }
+
+  /**
+   * The port being served, useful when started on port 0.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  @Override
+  public synchronized void write(String name, long timestampMs, Histogram interval) {
+    Series s = series.get(name);
+    if (s == null) {
+      s = new Series();
+      series.put(name, s);
+    }
+    s.count += interval.getTotalCount();
+    s.sum += interval.getMean() * interval.getTotalCount();
+    s.max = interval.getMaxValue();
+    for (int i = 0; i < QUANTILES.length; i++) {
+      s.quantiles[i] = interval.getValueAtPercentile(QUANTILES[i] * 100);
+    }
+  }
+
+  /**
+   * Publishes the intervals written since the last flush.
+   */
+  @Override
+  public synchronized void flush() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("# HELP ycsb_latency_us Operation latency in microseconds, quantiles over the last interval.\n");
+    sb.append("# TYPE ycsb_latency_us summary\n");
+    for (Map.Entry<String, Series> entry : series.entrySet()) {
+      Series s = entry.getValue();
+      for (int i = 0; i < QUANTILES.length; i++) {
+        sb.append("ycsb_latency_us{operation=\"").append(entry.getKey()).append("\",quantile=\"")
+            .append(QUANTILES[i]).append("\"} ").append(s.quantiles[i]).append('\n');
+      }
+      sb.append("ycsb_latency_us_sum{operation=\"").append(entry.getKey()).append("\"} ").append(s.sum).append('\n');
+      sb.append("ycsb_latency_us_count{operation=\"").append(entry.getKey()).append("\"} ").append(s.count)
+          .append('\n');
+    }
+    sb.append("# HELP ycsb_latency_max_us Maximum operation latency in microseconds over the last interval.\n");
+    sb.append("# TYPE ycsb_latency_max_us gauge\n");
+    for (Map.Entry<String, Series> entry : series.entrySet()) {
+      sb.append("ycsb_latency_max_us{operation=\"").append(entry.getKey()).append("\"} ")
+          .append(entry.getValue().max).append('\n');
+    }
+    page = sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  /**
+   * The exported values of one measurement.
+   */
+  private static final class Series {
+    private long count;
+    private double sum;
+    private long max;
+    private final long[] quantiles = new long[QUANTILES.length];
+  }
+}
@@ -24,6 +24,13 @@ import com.yahoo.ycsb.measurements.Measurements;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The core benchmark scenario. Represents a set of clients doing simple CRUD operations. The
@@ -45,7 +52,7 @@ import java.util.*;
  * <LI><b>readmodifywriteproportion</b>: what proportion of operations should be read a record,
  * modify it, write it back (default: 0)
  * <LI><b>requestdistribution</b>: what distribution should be used to select the records to operate
- * on - uniform, zipfian, hotspot, sequential, exponential or latest (default: uniform)
+ * on - uniform, zipfian, hotspot, hotspotshift, sequential, exponential or latest (default: uniform)
  * <LI><b>minscanlength</b>: for scans, what is the minimum number of records to scan (default: 1)
  * <LI><b>maxscanlength</b>: for scans, what is the maximum number of records to scan (default: 1000)
  * <LI><b>scanlengthdistribution</b>: for scans, what distribution should be used to choose the
@@ -61,6 +68,15 @@ import java.util.*;
  * digits in the record number.
  * <LI><b>insertorder</b>: should records be inserted in order by key ("ordered"), or in hashed
  * order ("hashed") (default: hashed)
+ * <LI><b>lowallocation</b>: reuse value maps, field sets, key buffers and byte iterators per
+ * client thread instead of allocating them for every operation. Only safe with bindings that do
+ * not keep references to the maps or iterators after an operation returns. (default: false)
+ * <LI><b>zeta.cachefile</b>: file remembering the zeta constants of zipfian distributions across
+ * runs (default: none, the constants are only kept in memory)
+ * <LI><b>bulkload</b>: load each client thread's own contiguous share of the insert range
+ * through DB.bulkLoad, in batches of "bulkload.batchsize" records sorted by key. Only each batch
+ * is sorted, the batches follow each other in key order only with insertorder=ordered, which
+ * requires a zeropadding covering the largest key number (default: false)
  * </ul>
  */
 public class CoreWorkload extends Workload {
@@ -183,6 +199,69 @@ public class CoreWorkload extends Workload {
    */
   private boolean dataintegrity;
 
+  /**
+   * The name of the property for how values are generated and verified with dataintegrity:
+   * "string" builds each value as a string derived from its key and field and compares whole
+   * strings, "fast" streams bytes from a counter-mode generator seeded with the key and field,
+   * see {@link DeterministicByteIterator}. Both the load and the run need the same mode.
+   */
+  public static final String DATA_INTEGRITY_MODE_PROPERTY = "dataintegrity.mode";
+  public static final String DATA_INTEGRITY_MODE_PROPERTY_DEFAULT = "string";
+
+  private boolean fastintegrity;
+
+  /**
+   * The name of the property for the generator of random field values: "random" for
+   * {@link RandomByteIterator}, "fast" for {@link FastRandomByteIterator}, which fills whole
+   * buffers and supports "compressionratio".
+   */
+  public static final String VALUE_GENERATOR_PROPERTY = "valuegenerator";
+  public static final String VALUE_GENERATOR_PROPERTY_DEFAULT = "random";
+
+  /**
+   * The name of the property for the compression ratio of values from the fast value generator.
+   */
+  public static final String COMPRESSION_RATIO_PROPERTY = "compressionratio";
+  public static final String COMPRESSION_RATIO_PROPERTY_DEFAULT = "1";
+
+  private boolean fastvalues;
+  private double compressionratio;
+
+  /**
+   * The content of field values other than random bytes, or null; see {@link ValueProfile}.
+   */
+  private ValueProfile valueprofile;
+
+  /**
+   * The name of the property for reusing per-thread objects on the operation path.
+   */
+  public static final String LOW_ALLOCATION_PROPERTY = "lowallocation";
+
+  /**
+   * The default value for the lowallocation property.
+   */
+  public static final String LOW_ALLOCATION_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the property for the file caching zipfian zeta constants, see {@link ZetaCache}.
+   */
+  public static final String ZETA_CACHE_FILE_PROPERTY = "zeta.cachefile";
+
+  /**
+   * Per-thread reusable objects, null unless lowallocation is set.
+   */
+  private ThreadLocal<ThreadBuffers> threadBuffers;
+
+  /**
+   * One immutable single-field set per field, shared by all threads in lowallocation mode.
+   */
+  private List<Set<String>> singleFieldSets;
+
+  /**
+   * The set of all fields, shared by all threads in lowallocation mode.
+   */
+  private Set<String> allFieldsSet;
+
   /**
    * The name of the property for the proportion of transactions that are reads.
    */
@@ -317,6 +396,25 @@ public class CoreWorkload extends Workload {
    */
   public static final String HOTSPOT_OPN_FRACTION_DEFAULT = "0.8";
 
+  /**
+   * Time in milliseconds after which the hot set of the hotspotshift distribution moves.
+   */
+  public static final String HOTSPOT_SHIFT_PERIOD = "hotspotshiftperiod";
+  public static final String HOTSPOT_SHIFT_PERIOD_DEFAULT = "60000";
+
+  /**
+   * Fraction of the hot set of the hotspotshift distribution kept by each move.
+   */
+  public static final String HOTSPOT_SHIFT_OVERLAP = "hotspotshiftoverlap";
+  public static final String HOTSPOT_SHIFT_OVERLAP_DEFAULT = "0.5";
+
+  /**
+   * How the hot set of the hotspotshift distribution moves: "jump" once per period or "drift"
+   * continuously.
+   */
+  public static final String HOTSPOT_SHIFT_MODE = "hotspotshiftmode";
+  public static final String HOTSPOT_SHIFT_MODE_DEFAULT = "jump";
+
   /**
    * How many times to retry when insertion of a single item to a DB fails.
    */
@@ -329,9 +427,46 @@ public class CoreWorkload extends Workload {
   public static final String INSERTION_RETRY_INTERVAL = "core_workload_insertion_retry_interval";
   public static final String INSERTION_RETRY_INTERVAL_DEFAULT = "3";
 
+  /**
+   * How many keys each read, update and insert transaction groups into one batch call
+   * (DB.batchRead, batchUpdate or batchInsert). With a batch size above 1 every transaction
+   * counts as one operation for the operationcount and the target.
+   */
+  public static final String BATCH_SIZE_PROPERTY = "core_workload_batch_size";
+  public static final String BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  protected int batchsize;
+
+  /**
+   * The name of the property for loading through {@link DB#bulkLoad(String, List, List)}.
+   * Each load thread then inserts its own contiguous share of the insert range in sorted
+   * batches instead of taking keys from the shared key sequence.
+   */
+  public static final String BULK_LOAD_PROPERTY = "bulkload";
+  public static final String BULK_LOAD_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the property for the number of records handed to each bulk load call.
+   */
+  public static final String BULK_LOAD_BATCH_SIZE_PROPERTY = "bulkload.batchsize";
+  public static final String BULK_LOAD_BATCH_SIZE_PROPERTY_DEFAULT = "1000";
+
+  private boolean bulkload;
+  private int bulkloadbatchsize;
+  private long insertstart;
+  private long insertcount;
+  private final AtomicLong bulkloaded = new AtomicLong();
+
   protected NumberGenerator keysequence;
   protected DiscreteGenerator operationchooser;
   protected NumberGenerator keychooser;
+
+  /**
+   * The phases of the run and the choosers of each phase, null without phases.
+   */
+  private PhaseSchedule phases;
+  private DiscreteGenerator[] phaseoperationchoosers;
+  private NumberGenerator[] phasekeychoosers;
   protected NumberGenerator fieldchooser;
   protected AcknowledgedCounterGenerator transactioninsertkeysequence;
   protected NumberGenerator scanlength;
@@ -342,6 +477,12 @@ public class CoreWorkload extends Workload {
   protected int insertionRetryLimit;
   protected int insertionRetryInterval;
 
+  /**
+   * Schedules delayed insertion retries issued through {@link #doInsertAsync(AsyncDB, Object)},
+   * created on first use.
+   */
+  private ScheduledExecutorService retryTimer;
+
   private Measurements measurements = Measurements.getMeasurements();
 
   protected static NumberGenerator getFieldLengthGenerator(Properties p) throws WorkloadException {
@@ -388,6 +529,7 @@ public class CoreWorkload extends Workload {
     for (int i = 0; i < fieldcount; i++) {
       fieldnames.add("field" + i);
     }
+    ZetaCache.setCacheFile(p.getProperty(ZETA_CACHE_FILE_PROPERTY));
     fieldlengthgenerator = CoreWorkload.getFieldLengthGenerator(p);
 
     recordcount =
@@ -404,9 +546,9 @@ public class CoreWorkload extends Workload {
     String scanlengthdistrib =
         p.getProperty(SCAN_LENGTH_DISTRIBUTION_PROPERTY, SCAN_LENGTH_DISTRIBUTION_PROPERTY_DEFAULT);
 
-    long insertstart =
+    insertstart =
         Long.parseLong(p.getProperty(INSERT_START_PROPERTY, INSERT_START_PROPERTY_DEFAULT));
-    long insertcount=
+    insertcount =
         Integer.parseInt(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
     // Confirm valid values for insertstart and insertcount in relation to recordcount
     if (recordcount < (insertstart + insertcount)) {
@@ -432,6 +574,38 @@ public class CoreWorkload extends Workload {
       System.err.println("Must have constant field size to check data integrity.");
       System.exit(-1);
     }
+    String integritymode = p.getProperty(DATA_INTEGRITY_MODE_PROPERTY, DATA_INTEGRITY_MODE_PROPERTY_DEFAULT);
+    if (!integritymode.equals("string") && !integritymode.equals("fast")) {
+      throw new WorkloadException("Unknown " + DATA_INTEGRITY_MODE_PROPERTY + " \"" + integritymode + "\"");
+    }
+    fastintegrity = integritymode.equals("fast");
+
+    String valuegenerator = p.getProperty(VALUE_GENERATOR_PROPERTY, VALUE_GENERATOR_PROPERTY_DEFAULT);
+    if (!valuegenerator.equals("random") && !valuegenerator.equals("fast")) {
+      throw new WorkloadException("Unknown " + VALUE_GENERATOR_PROPERTY + " \"" + valuegenerator + "\"");
+    }
+    fastvalues = valuegenerator.equals("fast");
+    compressionratio = Double.parseDouble(
+        p.getProperty(COMPRESSION_RATIO_PROPERTY, COMPRESSION_RATIO_PROPERTY_DEFAULT));
+    if (!(compressionratio >= 1.0) || (compressionratio != 1.0 && !fastvalues)) {
+      throw new WorkloadException(COMPRESSION_RATIO_PROPERTY + " must be at least 1, and needs "
+          + VALUE_GENERATOR_PROPERTY + "=fast");
+    }
+    valueprofile = ValueProfile.create(p);
+
+    if (Boolean.parseBoolean(p.getProperty(LOW_ALLOCATION_PROPERTY, LOW_ALLOCATION_PROPERTY_DEFAULT))) {
+      singleFieldSets = new ArrayList<>(fieldnames.size());
+      for (String fieldname : fieldnames) {
+        singleFieldSets.add(Collections.singleton(fieldname));
+      }
+      allFieldsSet = Collections.unmodifiableSet(new HashSet<>(fieldnames));
+      threadBuffers = new ThreadLocal<ThreadBuffers>() {
+        @Override
+        protected ThreadBuffers initialValue() {
+          return new ThreadBuffers(fieldnames.size(), compressionratio);
+        }
+      };
+    }
 
     if (p.getProperty(INSERT_ORDER_PROPERTY, INSERT_ORDER_PROPERTY_DEFAULT).compareTo("hashed") == 0) {
       orderedinserts = false;
@@ -451,10 +625,54 @@ public class CoreWorkload extends Workload {
     operationchooser = createOperationGenerator(p);
 
     transactioninsertkeysequence = new AcknowledgedCounterGenerator(recordcount);
+    keychooser = createKeyChooser(p, requestdistrib);
+    initPhases(p);
+
+    fieldchooser = new UniformLongGenerator(0, fieldcount - 1);
+
+    if (scanlengthdistrib.compareTo("uniform") == 0) {
+      scanlength = new UniformLongGenerator(minscanlength, maxscanlength);
+    } else if (scanlengthdistrib.compareTo("zipfian") == 0) {
+      scanlength = new ZipfianGenerator(minscanlength, maxscanlength);
+    } else {
+      throw new WorkloadException(
+          "Distribution \"" + scanlengthdistrib + "\" not allowed for scan length");
+    }
+
+    insertionRetryLimit = Integer.parseInt(p.getProperty(
+        INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
+    insertionRetryInterval = Integer.parseInt(p.getProperty(
+        INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
+
+    batchsize = Integer.parseInt(p.getProperty(BATCH_SIZE_PROPERTY, BATCH_SIZE_PROPERTY_DEFAULT));
+    if (batchsize < 1) {
+      throw new WorkloadException("Invalid " + BATCH_SIZE_PROPERTY + ": " + batchsize);
+    }
+
+    bulkload = Boolean.parseBoolean(p.getProperty(BULK_LOAD_PROPERTY, BULK_LOAD_PROPERTY_DEFAULT));
+    bulkloadbatchsize = Integer.parseInt(
+        p.getProperty(BULK_LOAD_BATCH_SIZE_PROPERTY, BULK_LOAD_BATCH_SIZE_PROPERTY_DEFAULT));
+    if (bulkloadbatchsize < 1) {
+      throw new WorkloadException("Invalid " + BULK_LOAD_BATCH_SIZE_PROPERTY + ": " + bulkloadbatchsize);
+    }
+    // ordered keys only sort across batches if every key number has the same width
+    long lastkeynum = insertstart + insertcount - 1;
+    if (bulkload && orderedinserts && zeropadding < digits(lastkeynum)
+        && !Boolean.parseBoolean(p.getProperty(Client.DO_TRANSACTIONS_PROPERTY, "true"))) {
+      throw new WorkloadException("Bulk load with ordered inserts needs " + ZERO_PADDING_PROPERTY + " of at least "
+          + digits(lastkeynum) + " to keep the keys of successive batches in order");
+    }
+  }
+
+  /**
+   * Creates the generator choosing the keys of reads, updates and scans for the given request
+   * distribution.
+   */
+  private NumberGenerator createKeyChooser(Properties p, String requestdistrib) throws WorkloadException {
     if (requestdistrib.compareTo("uniform") == 0) {
-      keychooser = new UniformLongGenerator(insertstart, insertstart + insertcount - 1);
+      return new UniformLongGenerator(insertstart, insertstart + insertcount - 1);
     } else if (requestdistrib.compareTo("sequential") == 0) {
-      keychooser = new SequentialGenerator(insertstart, insertstart + insertcount - 1);
+      return new SequentialGenerator(insertstart, insertstart + insertcount - 1);
     } else if (requestdistrib.compareTo("zipfian") == 0) {
       // it does this by generating a random "next key" in part by taking the modulus over the
       // number of keys.
@@ -470,65 +688,137 @@ public class CoreWorkload extends Workload {
       int opcount = Integer.parseInt(p.getProperty(Client.OPERATION_COUNT_PROPERTY));
       int expectednewkeys = (int) ((opcount) * insertproportion * 2.0); // 2 is fudge factor
 
-      keychooser = new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys);
+      return new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys);
     } else if (requestdistrib.compareTo("latest") == 0) {
-      keychooser = new SkewedLatestGenerator(transactioninsertkeysequence);
+      return new SkewedLatestGenerator(transactioninsertkeysequence);
     } else if (requestdistrib.equals("hotspot")) {
       double hotsetfraction =
           Double.parseDouble(p.getProperty(HOTSPOT_DATA_FRACTION, HOTSPOT_DATA_FRACTION_DEFAULT));
       double hotopnfraction =
           Double.parseDouble(p.getProperty(HOTSPOT_OPN_FRACTION, HOTSPOT_OPN_FRACTION_DEFAULT));
-      keychooser = new HotspotIntegerGenerator(insertstart, insertstart + insertcount - 1,
+      return new HotspotIntegerGenerator(insertstart, insertstart + insertcount - 1,
           hotsetfraction, hotopnfraction);
+    } else if (requestdistrib.equals("hotspotshift")) {
+      double hotsetfraction =
+          Double.parseDouble(p.getProperty(HOTSPOT_DATA_FRACTION, HOTSPOT_DATA_FRACTION_DEFAULT));
+      double hotopnfraction =
+          Double.parseDouble(p.getProperty(HOTSPOT_OPN_FRACTION, HOTSPOT_OPN_FRACTION_DEFAULT));
+      long period = Long.parseLong(p.getProperty(HOTSPOT_SHIFT_PERIOD, HOTSPOT_SHIFT_PERIOD_DEFAULT));
+      double overlap = Double.parseDouble(p.getProperty(HOTSPOT_SHIFT_OVERLAP, HOTSPOT_SHIFT_OVERLAP_DEFAULT));
+      String mode = p.getProperty(HOTSPOT_SHIFT_MODE, HOTSPOT_SHIFT_MODE_DEFAULT);
+      if (!mode.equals("jump") && !mode.equals("drift")) {
+        throw new WorkloadException("Unknown " + HOTSPOT_SHIFT_MODE + " \"" + mode + "\"");
+      }
+      try {
+        return new ShiftingHotspotGenerator(insertstart, insertstart + insertcount - 1,
+            hotsetfraction, hotopnfraction, period, overlap, mode.equals("drift"));
+      } catch (IllegalArgumentException e) {
+        throw new WorkloadException("Invalid hotspotshift distribution: " + e.getMessage(), e);
+      }
     } else {
       throw new WorkloadException("Unknown request distribution \"" + requestdistrib + "\"");
     }
+  }
 
-    fieldchooser = new UniformLongGenerator(0, fieldcount - 1);
-
-    if (scanlengthdistrib.compareTo("uniform") == 0) {
-      scanlength = new UniformLongGenerator(minscanlength, maxscanlength);
-    } else if (scanlengthdistrib.compareTo("zipfian") == 0) {
-      scanlength = new ZipfianGenerator(minscanlength, maxscanlength);
-    } else {
-      throw new WorkloadException(
-          "Distribution \"" + scanlengthdistrib + "\" not allowed for scan length");
+  /**
+   * Creates the operation and key choosers of each phase of the run's {@link PhaseSchedule}.
+   * The phase overrides are backed by the properties of this workload, so the overrides of a
+   * {@link MultiTableWorkload} table still apply. Phases that keep the request distribution
+   * share the key chooser of the run.
+   */
+  private void initPhases(Properties props) throws WorkloadException {
+    phases = PhaseSchedule.getCurrent();
+    if (phases == null) {
+      return;
+    }
+    List<PhaseSchedule.Phase> list = phases.getPhases();
+    phaseoperationchoosers = new DiscreteGenerator[list.size()];
+    phasekeychoosers = new NumberGenerator[list.size()];
+    for (int i = 0; i < list.size(); i++) {
+      PhaseSchedule.Phase phase = list.get(i);
+      Properties p = phase.getProperties(props);
+      phaseoperationchoosers[i] = createOperationGenerator(p);
+      if (phase.overrides(REQUEST_DISTRIBUTION_PROPERTY) || phase.overrides(HOTSPOT_DATA_FRACTION)
+          || phase.overrides(HOTSPOT_OPN_FRACTION) || phase.overrides(HOTSPOT_SHIFT_PERIOD)
+          || phase.overrides(HOTSPOT_SHIFT_OVERLAP) || phase.overrides(HOTSPOT_SHIFT_MODE)) {
+        phasekeychoosers[i] = createKeyChooser(p,
+            p.getProperty(REQUEST_DISTRIBUTION_PROPERTY, REQUEST_DISTRIBUTION_PROPERTY_DEFAULT));
+      } else {
+        phasekeychoosers[i] = keychooser;
+      }
     }
+  }
 
-    insertionRetryLimit = Integer.parseInt(p.getProperty(
-        INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
-    insertionRetryInterval = Integer.parseInt(p.getProperty(
-        INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
+  private DiscreteGenerator operationChooser() {
+    return phases == null ? operationchooser : phaseoperationchoosers[phases.currentPhase()];
+  }
+
+  private NumberGenerator keyChooser() {
+    return phases == null ? keychooser : phasekeychoosers[phases.currentPhase()];
+  }
+
+  /**
+   * In bulk load mode, assigns the thread its share of the insert range. The shares are split
+   * the same way the client splits the insert count between threads.
+   */
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    if (!bulkload || Boolean.parseBoolean(p.getProperty(Client.DO_TRANSACTIONS_PROPERTY, "true"))) {
+      return null;
+    }
+    long share = insertcount / threadcount;
+    long extra = insertcount % threadcount;
+    long start = insertstart + mythreadid * share + Math.min(mythreadid, extra);
+    return new BulkLoadPartition(start, share + (mythreadid < extra ? 1 : 0));
   }
 
   protected String buildKeyName(long keynum) {
     if (!orderedinserts) {
       keynum = Utils.hash(keynum);
     }
-    String value = Long.toString(keynum);
-    int fill = zeropadding - value.length();
-    String prekey = "user";
+    ThreadBuffers buffers = buffers();
+    StringBuilder sb;
+    if (buffers != null) {
+      sb = buffers.key;
+      sb.setLength(0);
+    } else {
+      sb = new StringBuilder(4 + Math.max(zeropadding, 20));
+    }
+    sb.append("user");
+    int fill = zeropadding - digits(keynum);
     for (int i = 0; i < fill; i++) {
-      prekey += '0';
+      sb.append('0');
     }
-    return prekey + value;
+    return sb.append(keynum).toString();
+  }
+
+  private static int digits(long value) {
+    if (value == Long.MIN_VALUE) {
+      return 20;
+    }
+    int count = value < 0 ? 2 : 1;
+    for (long v = Math.abs(value); v >= 10; v /= 10) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * The reusable objects of the calling thread, or null when lowallocation is off.
+   */
+  private ThreadBuffers buffers() {
+    return threadBuffers == null ? null : threadBuffers.get();
   }
 
   /**
    * Builds a value for a randomly chosen field.
    */
-  private HashMap<String, ByteIterator> buildSingleValue(String key) {
-    HashMap<String, ByteIterator> value = new HashMap<>();
+  private HashMap<String, ByteIterator> buildSingleValue(String key, ThreadBuffers buffers) {
+    int field = fieldchooser.nextValue().intValue();
+    HashMap<String, ByteIterator> value = buffers != null ? buffers.values(false) : new HashMap<>();
 
-    String fieldkey = fieldnames.get(fieldchooser.nextValue().intValue());
-    ByteIterator data;
-    if (dataintegrity) {
-      data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
-    } else {
-      // fill with random data
-      data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
-    }
-    value.put(fieldkey, data);
+    String fieldkey = fieldnames.get(field);
+    value.put(fieldkey, buildFieldValue(key, fieldkey, field, buffers));
 
     return value;
   }
@@ -536,18 +826,88 @@ public class CoreWorkload extends Workload {
   /**
    * Builds values for all fields.
    */
-  private HashMap<String, ByteIterator> buildValues(String key) {
-    HashMap<String, ByteIterator> values = new HashMap<>();
+  private HashMap<String, ByteIterator> buildValues(String key, ThreadBuffers buffers) {
+    HashMap<String, ByteIterator> values = buffers != null ? buffers.values(true) : new HashMap<>();
 
-    for (String fieldkey : fieldnames) {
-      ByteIterator data;
-      if (dataintegrity) {
-        data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
-      } else {
-        // fill with random data
-        data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+    for (int i = 0; i < fieldnames.size(); i++) {
+      String fieldkey = fieldnames.get(i);
+      values.put(fieldkey, buildFieldValue(key, fieldkey, i, buffers));
+    }
+    return values;
+  }
+
+  /**
+   * Builds the values of an update: all fields or a randomly chosen one.
+   */
+  private HashMap<String, ByteIterator> buildUpdateValues(String key, ThreadBuffers buffers) {
+    if (writeallfields) {
+      // new data for all the fields
+      return buildValues(key, buffers);
+    }
+    // update a random field
+    return buildSingleValue(key, buffers);
+  }
+
+  private ByteIterator buildFieldValue(String key, String fieldkey, int field, ThreadBuffers buffers) {
+    if (dataintegrity) {
+      if (fastintegrity) {
+        return new DeterministicByteIterator(key, fieldkey, fieldlengthgenerator.nextValue().longValue());
+      }
+      return new StringByteIterator(buildDeterministicValue(key, fieldkey));
+    }
+    // fill with random data
+    long length = fieldlengthgenerator.nextValue().longValue();
+    if (valueprofile != null) {
+      return valueprofile.next((int) length);
+    }
+    if (fastvalues) {
+      return buffers != null ?
+          buffers.fastIterators[field].reuse(length) : new FastRandomByteIterator(length, compressionratio);
+    }
+    return buffers != null ? buffers.iterators[field].reuse(length) : new RandomByteIterator(length);
+  }
+
+  /**
+   * The set of fields to read: a random single field, all fields for verification, or null
+   * for all fields. In lowallocation mode the sets are shared and immutable, so they are also
+   * safe for operations that are still in flight.
+   */
+  private Set<String> buildReadFields(boolean forVerification) {
+    if (!readallfields) {
+      // read a random field
+      int field = fieldchooser.nextValue().intValue();
+      if (singleFieldSets != null) {
+        return singleFieldSets.get(field);
       }
-      values.put(fieldkey, data);
+      HashSet<String> fields = new HashSet<String>();
+      fields.add(fieldnames.get(field));
+      return fields;
+    } else if (forVerification) {
+      // pass the full field list if dataintegrity is on for verification
+      return allFieldsSet != null ? allFieldsSet : new HashSet<String>(fieldnames);
+    }
+    return null;
+  }
+
+  /**
+   * Chooses the keys of a batch of reads or updates.
+   */
+  private List<String> buildBatchKeys() {
+    List<String> keys = new ArrayList<>(batchsize);
+    for (int i = 0; i < batchsize; i++) {
+      keys.add(buildKeyName(nextKeynum()));
+    }
+    return keys;
+  }
+
+  /**
+   * Builds the update values of each key of a batch. Batches hold all their values at once,
+   * so they never reuse the thread's buffers.
+   */
+  private List<Map<String, ByteIterator>> buildBatchUpdateValues(List<String> keys) {
+    List<Map<String, ByteIterator>> values = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      values.add(buildUpdateValues(key, null));
     }
     return values;
   }
@@ -578,9 +938,12 @@ public class CoreWorkload extends Workload {
    */
   @Override
   public boolean doInsert(DB db, Object threadstate) {
+    if (threadstate instanceof BulkLoadPartition) {
+      return doBulkInsert(db, (BulkLoadPartition) threadstate);
+    }
     int keynum = keysequence.nextValue().intValue();
     String dbkey = buildKeyName(keynum);
-    HashMap<String, ByteIterator> values = buildValues(dbkey);
+    HashMap<String, ByteIterator> values = buildValues(dbkey, buffers());
 
     Status status;
     int numOfRetries = 0;
@@ -613,6 +976,161 @@ public class CoreWorkload extends Workload {
     return null != status && status.isOk();
   }
 
+  /**
+   * Adds the next record of the thread's partition to the pending batch, and hands the batch
+   * sorted by key to {@link DB#bulkLoad(String, List, List)} when it is full or the partition
+   * is done. Only the batch is sorted: with hashed keys the key ranges of successive batches
+   * overlap, sorting the whole partition would mean holding all of it in memory.
+   */
+  private boolean doBulkInsert(DB db, BulkLoadPartition partition) {
+    if (partition.next == partition.end) {
+      return false;
+    }
+    if (!addBulkRecord(partition)) {
+      return true;
+    }
+
+    List<String> keys = new ArrayList<>(partition.size());
+    List<Map<String, ByteIterator>> values = new ArrayList<>(partition.size());
+    partition.drainSorted(keys, values);
+    Status status;
+    int numOfRetries = 0;
+    while (true) {
+      status = db.bulkLoad(table, keys, values);
+      if ((null != status && status.isOk()) || ++numOfRetries > insertionRetryLimit) {
+        break;
+      }
+      System.err.println("Retrying bulk load, retry count: " + numOfRetries);
+      try {
+        Thread.sleep((long) (1000 * insertionRetryInterval * (0.8 + 0.4 * Math.random())));
+      } catch (InterruptedException e) {
+        break;
+      }
+    }
+    if (null == status || !status.isOk()) {
+      System.err.println("Error bulk loading " + keys.size() + " records: " + status);
+      return false;
+    }
+    bulkloaded.addAndGet(keys.size());
+    return true;
+  }
+
+  /**
+   * Adds the next record of the thread's partition to its pending batch.
+   *
+   * @return Whether the batch is due, because it is full or the partition is done.
+   */
+  private boolean addBulkRecord(BulkLoadPartition partition) {
+    String dbkey = buildKeyName(partition.next++);
+    partition.add(dbkey, buildValues(dbkey, null));
+    return partition.size() >= bulkloadbatchsize || partition.next == partition.end;
+  }
+
+  /**
+   * Do one insert operation against an asynchronous DB. Retries follow the same rules as
+   * {@link #doInsert(DB, Object)}, but the delay between attempts is scheduled on a timer
+   * instead of sleeping the client thread. Several operations of a thread are in flight at
+   * once, so the values are never built in the thread's lowallocation buffers.
+   */
+  @Override
+  public CompletionStage<Boolean> doInsertAsync(AsyncDB db, Object threadstate) {
+    if (threadstate instanceof BulkLoadPartition) {
+      return doBulkInsertAsync(db, (BulkLoadPartition) threadstate);
+    }
+    int keynum = keysequence.nextValue().intValue();
+    String dbkey = buildKeyName(keynum);
+    HashMap<String, ByteIterator> values = buildValues(dbkey, null);
+    return insertAsync(db, dbkey, values, 0);
+  }
+
+  /**
+   * The asynchronous form of {@link #doBulkInsert(DB, BulkLoadPartition)}. Asynchronous DBs
+   * have no bulk load, so a due batch is inserted key by key, still sorted by key.
+   */
+  private CompletionStage<Boolean> doBulkInsertAsync(AsyncDB db, BulkLoadPartition partition) {
+    if (partition.next == partition.end) {
+      return CompletableFuture.completedFuture(false);
+    }
+    if (!addBulkRecord(partition)) {
+      return CompletableFuture.completedFuture(true);
+    }
+
+    List<String> keys = new ArrayList<>(partition.size());
+    List<Map<String, ByteIterator>> values = new ArrayList<>(partition.size());
+    partition.drainSorted(keys, values);
+    final List<CompletableFuture<Boolean>> inserts = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      inserts.add(insertAsync(db, keys.get(i), values.get(i), 0).toCompletableFuture());
+    }
+    return CompletableFuture.allOf(inserts.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+        for (CompletableFuture<Boolean> insert : inserts) {
+          if (!insert.join()) {
+            return false;
+          }
+        }
+        bulkloaded.addAndGet(inserts.size());
+        return true;
+      });
+  }
+
+  private CompletionStage<Boolean> insertAsync(final AsyncDB db, final String dbkey,
+                                               final Map<String, ByteIterator> values,
+                                               final int attempt) {
+    return db.insert(table, dbkey, values).thenCompose(status -> {
+        if (null != status && status.isOk()) {
+          return CompletableFuture.completedFuture(true);
+        }
+        final int numOfRetries = attempt + 1;
+        if (numOfRetries > insertionRetryLimit) {
+          System.err.println("Error inserting, not retrying any more. number of attempts: " + numOfRetries +
+              "Insertion Retry Limit: " + insertionRetryLimit);
+          return CompletableFuture.completedFuture(false);
+        }
+        System.err.println("Retrying insertion, retry count: " + numOfRetries);
+        // Wait for a random number between [0.8, 1.2)*insertionRetryInterval.
+        long sleepTime = (long) (1000 * insertionRetryInterval * (0.8 + 0.4 * Math.random()));
+        final CompletableFuture<Boolean> retry = new CompletableFuture<>();
+        getRetryTimer().schedule(() -> {
+            insertAsync(db, dbkey, values, numOfRetries).whenComplete((ok, error) -> {
+                if (error != null) {
+                  retry.completeExceptionally(error);
+                } else {
+                  retry.complete(ok);
+                }
+              });
+          }, sleepTime, TimeUnit.MILLISECONDS);
+        return retry;
+      });
+  }
+
+  private synchronized ScheduledExecutorService getRetryTimer() {
+    if (retryTimer == null) {
+      retryTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "CoreWorkload-insert-retry");
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    }
+    return retryTimer;
+  }
+
+  /**
+   * Stops the retry timer, and checks that a bulk load inserted every record of the insert range.
+   */
+  @Override
+  public synchronized void cleanup() throws WorkloadException {
+    if (retryTimer != null) {
+      retryTimer.shutdownNow();
+      retryTimer = null;
+    }
+    if (bulkload && bulkloaded.get() > 0 && bulkloaded.get() != insertcount) {
+      System.err.println("WARNING: bulk load inserted " + bulkloaded.get() + " of " + insertcount + " records");
+    }
+  }
+
   /**
    * Do one transaction operation. Because it will be called concurrently from multiple client
    * threads, this function must be thread safe. However, avoid synchronized, or the threads will block waiting
@@ -621,11 +1139,27 @@ public class CoreWorkload extends Workload {
    */
   @Override
   public boolean doTransaction(DB db, Object threadstate) {
-    String operation = operationchooser.nextString();
+    String operation = operationChooser().nextString();
     if(operation == null) {
       return false;
     }
 
+    if (batchsize > 1) {
+      switch (operation) {
+      case "READ":
+        doTransactionBatchRead(db);
+        return true;
+      case "UPDATE":
+        doTransactionBatchUpdate(db);
+        return true;
+      case "INSERT":
+        doTransactionBatchInsert(db);
+        return true;
+      default:
+        // scans and read-modify-writes are never batched
+      }
+    }
+
     switch (operation) {
     case "READ":
       doTransactionRead(db);
@@ -646,6 +1180,54 @@ public class CoreWorkload extends Workload {
     return true;
   }
 
+  /**
+   * Do one transaction operation against an asynchronous DB. Operations are chosen and built
+   * exactly as in {@link #doTransaction(DB, Object)}; the returned stage completes once the
+   * database has answered (for read-modify-write, once both the read and the update have).
+   */
+  @Override
+  public CompletionStage<Boolean> doTransactionAsync(AsyncDB db, Object threadstate) {
+    String operation = operationChooser().nextString();
+    if (operation == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    CompletionStage<?> op;
+    if (batchsize > 1 && (operation.equals("READ") || operation.equals("UPDATE") || operation.equals("INSERT"))) {
+      // asynchronous DBs have no batch calls, the keys of a batch are issued together instead
+      switch (operation) {
+      case "READ":
+        op = doTransactionBatchReadAsync(db);
+        break;
+      case "UPDATE":
+        op = doTransactionBatchUpdateAsync(db);
+        break;
+      default:
+        op = doTransactionBatchInsertAsync(db);
+      }
+      return op.thenApply(ignored -> true);
+    }
+
+    switch (operation) {
+    case "READ":
+      op = doTransactionReadAsync(db);
+      break;
+    case "UPDATE":
+      op = doTransactionUpdateAsync(db);
+      break;
+    case "INSERT":
+      op = doTransactionInsertAsync(db);
+      break;
+    case "SCAN":
+      op = doTransactionScanAsync(db);
+      break;
+    default:
+      op = doTransactionReadModifyWriteAsync(db);
+    }
+
+    return op.thenApply(ignored -> true);
+  }
+
   /**
    * Results are reported in the first three buckets of the histogram under
    * the label "VERIFY".
@@ -658,7 +1240,11 @@ public class CoreWorkload extends Workload {
     long startTime = System.nanoTime();
     if (!cells.isEmpty()) {
       for (Map.Entry<String, ByteIterator> entry : cells.entrySet()) {
-        if (!entry.getValue().toString().equals(buildDeterministicValue(key, entry.getKey()))) {
+        boolean valid = fastintegrity ?
+            DeterministicByteIterator.verify(key, entry.getKey(), fieldlengthgenerator.nextValue().longValue(),
+                entry.getValue()) :
+            entry.getValue().toString().equals(buildDeterministicValue(key, entry.getKey()));
+        if (!valid) {
           verifyStatus = Status.UNEXPECTED_STATE;
           break;
         }
@@ -673,14 +1259,15 @@ public class CoreWorkload extends Workload {
   }
 
   long nextKeynum() {
+    NumberGenerator chooser = keyChooser();
     long keynum;
-    if (keychooser instanceof ExponentialGenerator) {
+    if (chooser instanceof ExponentialGenerator) {
       do {
-        keynum = transactioninsertkeysequence.lastValue() - keychooser.nextValue().intValue();
+        keynum = transactioninsertkeysequence.lastValue() - chooser.nextValue().intValue();
       } while (keynum < 0);
     } else {
       do {
-        keynum = keychooser.nextValue().intValue();
+        keynum = chooser.nextValue().intValue();
       } while (keynum > transactioninsertkeysequence.lastValue());
     }
     return keynum;
@@ -692,20 +1279,10 @@ public class CoreWorkload extends Workload {
 
     String keyname = buildKeyName(keynum);
 
-    HashSet<String> fields = null;
-
-    if (!readallfields) {
-      // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
+    ThreadBuffers buffers = buffers();
+    Set<String> fields = buildReadFields(dataintegrity);
 
-      fields = new HashSet<String>();
-      fields.add(fieldname);
-    } else if (dataintegrity) {
-      // pass the full field list if dataintegrity is on for verification
-      fields = new HashSet<String>(fieldnames);
-    }
-
-    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+    HashMap<String, ByteIterator> cells = buffers != null ? buffers.cells() : new HashMap<String, ByteIterator>();
     db.read(table, keyname, fields, cells);
 
     if (dataintegrity) {
@@ -719,29 +1296,14 @@ public class CoreWorkload extends Workload {
 
     String keyname = buildKeyName(keynum);
 
-    HashSet<String> fields = null;
-
-    if (!readallfields) {
-      // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
-    }
-
-    HashMap<String, ByteIterator> values;
+    ThreadBuffers buffers = buffers();
+    Set<String> fields = buildReadFields(false);
 
-    if (writeallfields) {
-      // new data for all the fields
-      values = buildValues(keyname);
-    } else {
-      // update a random field
-      values = buildSingleValue(keyname);
-    }
+    HashMap<String, ByteIterator> values = buildUpdateValues(keyname, buffers);
 
     // do the transaction
 
-    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+    HashMap<String, ByteIterator> cells = buffers != null ? buffers.cells() : new HashMap<String, ByteIterator>();
 
 
     long ist = measurements.getIntendedtartTimeNs();
@@ -769,17 +1331,11 @@ public class CoreWorkload extends Workload {
     // choose a random scan length
     int len = scanlength.nextValue().intValue();
 
-    HashSet<String> fields = null;
+    ThreadBuffers buffers = buffers();
+    Set<String> fields = buildReadFields(false);
 
-    if (!readallfields) {
-      // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
-    }
-
-    db.scan(table, startkeyname, len, fields, new Vector<HashMap<String, ByteIterator>>());
+    db.scan(table, startkeyname, len, fields,
+        buffers != null ? buffers.scanResult() : new Vector<HashMap<String, ByteIterator>>());
   }
 
   public void doTransactionUpdate(DB db) {
@@ -788,15 +1344,7 @@ public class CoreWorkload extends Workload {
 
     String keyname = buildKeyName(keynum);
 
-    HashMap<String, ByteIterator> values;
-
-    if (writeallfields) {
-      // new data for all the fields
-      values = buildValues(keyname);
-    } else {
-      // update a random field
-      values = buildSingleValue(keyname);
-    }
+    HashMap<String, ByteIterator> values = buildUpdateValues(keyname, buffers());
 
     db.update(table, keyname, values);
   }
@@ -808,13 +1356,179 @@ public class CoreWorkload extends Workload {
     try {
       String dbkey = buildKeyName(keynum);
 
-      HashMap<String, ByteIterator> values = buildValues(dbkey);
+      HashMap<String, ByteIterator> values = buildValues(dbkey, buffers());
       db.insert(table, dbkey, values);
     } finally {
       transactioninsertkeysequence.acknowledge(keynum);
     }
   }
 
+  public void doTransactionBatchRead(DB db) {
+    List<String> keys = buildBatchKeys();
+    List<Map<String, ByteIterator>> results = new ArrayList<>(batchsize);
+    for (int i = 0; i < batchsize; i++) {
+      results.add(new HashMap<String, ByteIterator>());
+    }
+
+    db.batchRead(table, keys, buildReadFields(dataintegrity), results);
+
+    if (dataintegrity) {
+      for (int i = 0; i < batchsize; i++) {
+        verifyRow(keys.get(i), (HashMap<String, ByteIterator>) results.get(i));
+      }
+    }
+  }
+
+  public void doTransactionBatchUpdate(DB db) {
+    List<String> keys = buildBatchKeys();
+    db.batchUpdate(table, keys, buildBatchUpdateValues(keys));
+  }
+
+  public void doTransactionBatchInsert(DB db) {
+    long[] keynums = new long[batchsize];
+    int claimed = 0;
+    try {
+      List<String> keys = new ArrayList<>(batchsize);
+      List<Map<String, ByteIterator>> values = new ArrayList<>(batchsize);
+      while (claimed < batchsize) {
+        long keynum = transactioninsertkeysequence.nextValue();
+        keynums[claimed++] = keynum;
+        String dbkey = buildKeyName(keynum);
+        keys.add(dbkey);
+        values.add(buildValues(dbkey, null));
+      }
+      db.batchInsert(table, keys, values);
+    } finally {
+      for (int i = 0; i < claimed; i++) {
+        transactioninsertkeysequence.acknowledge(keynums[i]);
+      }
+    }
+  }
+
+  public CompletionStage<Void> doTransactionReadAsync(AsyncDB db) {
+    // choose a random key
+    long keynum = nextKeynum();
+
+    return readAsync(db, buildKeyName(keynum), buildReadFields(dataintegrity));
+  }
+
+  private CompletionStage<Void> readAsync(AsyncDB db, final String keyname, Set<String> fields) {
+    final HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+    return db.read(table, keyname, fields, cells).thenAccept(status -> {
+        if (dataintegrity) {
+          verifyRow(keyname, cells);
+        }
+      });
+  }
+
+  public CompletionStage<Void> doTransactionReadModifyWriteAsync(final AsyncDB db) {
+    // choose a random key
+    long keynum = nextKeynum();
+
+    final String keyname = buildKeyName(keynum);
+
+    Set<String> fields = buildReadFields(false);
+
+    final HashMap<String, ByteIterator> values = buildUpdateValues(keyname, null);
+
+    // do the transaction
+
+    final HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+
+    final long ist = measurements.getIntendedtartTimeNs();
+    final long st = System.nanoTime();
+    return db.read(table, keyname, fields, cells)
+        .thenCompose(status -> {
+            // the update is issued on the thread completing the read, give it the intended
+            // start of the whole operation so its intended latency includes the queueing
+            measurements.setIntendedStartTimeNs(ist);
+            try {
+              return db.update(table, keyname, values);
+            } finally {
+              measurements.setIntendedStartTimeNs(0);
+            }
+          })
+        .thenAccept(status -> {
+            long en = System.nanoTime();
+
+            if (dataintegrity) {
+              verifyRow(keyname, cells);
+            }
+
+            measurements.measure("READ-MODIFY-WRITE", (int) ((en - st) / 1000));
+            measurements.measureIntended("READ-MODIFY-WRITE", (int) ((en - ist) / 1000));
+          });
+  }
+
+  public CompletionStage<Status> doTransactionScanAsync(AsyncDB db) {
+    // choose a random key
+    long keynum = nextKeynum();
+
+    String startkeyname = buildKeyName(keynum);
+
+    // choose a random scan length
+    int len = scanlength.nextValue().intValue();
+
+    Set<String> fields = buildReadFields(false);
+
+    return db.scan(table, startkeyname, len, fields, new Vector<HashMap<String, ByteIterator>>());
+  }
+
+  public CompletionStage<Status> doTransactionUpdateAsync(AsyncDB db) {
+    // choose a random key
+    long keynum = nextKeynum();
+
+    String keyname = buildKeyName(keynum);
+
+    return db.update(table, keyname, buildUpdateValues(keyname, null));
+  }
+
+  public CompletionStage<Status> doTransactionInsertAsync(AsyncDB db) {
+    // choose the next key
+    final long keynum = transactioninsertkeysequence.nextValue();
+
+    CompletionStage<Status> insert;
+    try {
+      String dbkey = buildKeyName(keynum);
+
+      HashMap<String, ByteIterator> values = buildValues(dbkey, null);
+      insert = db.insert(table, dbkey, values);
+    } catch (RuntimeException e) {
+      transactioninsertkeysequence.acknowledge(keynum);
+      throw e;
+    }
+    // the key only becomes visible to readers once the insert has completed
+    return insert.whenComplete((status, error) -> transactioninsertkeysequence.acknowledge(keynum));
+  }
+
+  public CompletionStage<Void> doTransactionBatchReadAsync(AsyncDB db) {
+    Set<String> fields = buildReadFields(dataintegrity);
+    List<String> keys = buildBatchKeys();
+    CompletableFuture<?>[] reads = new CompletableFuture<?>[keys.size()];
+    for (int i = 0; i < reads.length; i++) {
+      reads[i] = readAsync(db, keys.get(i), fields).toCompletableFuture();
+    }
+    return CompletableFuture.allOf(reads);
+  }
+
+  public CompletionStage<Void> doTransactionBatchUpdateAsync(AsyncDB db) {
+    List<String> keys = buildBatchKeys();
+    List<Map<String, ByteIterator>> values = buildBatchUpdateValues(keys);
+    CompletableFuture<?>[] updates = new CompletableFuture<?>[keys.size()];
+    for (int i = 0; i < updates.length; i++) {
+      updates[i] = db.update(table, keys.get(i), values.get(i)).toCompletableFuture();
+    }
+    return CompletableFuture.allOf(updates);
+  }
+
+  public CompletionStage<Void> doTransactionBatchInsertAsync(AsyncDB db) {
+    CompletableFuture<?>[] inserts = new CompletableFuture<?>[batchsize];
+    for (int i = 0; i < inserts.length; i++) {
+      inserts[i] = doTransactionInsertAsync(db).toCompletableFuture();
+    }
+    return CompletableFuture.allOf(inserts);
+  }
+
   /**
    * Creates a weighted discrete values with database operations for a workload to perform.
    * Weights/proportions are read from the properties list and defaults are used
@@ -862,4 +1576,76 @@ public class CoreWorkload extends Workload {
     }
     return operationchooser;
   }
+
+  /**
+   * The share of the insert range loaded by one client thread in bulk load mode, and the
+   * records waiting for the next bulk load call, sorted by key within that batch only.
+   */
+  private static final class BulkLoadPartition {
+    private long next;
+    private final long end;
+    private final TreeMap<String, HashMap<String, ByteIterator>> pending = new TreeMap<>();
+
+    private BulkLoadPartition(long start, long count) {
+      this.next = start;
+      this.end = start + count;
+    }
+
+    private void add(String key, HashMap<String, ByteIterator> values) {
+      pending.put(key, values);
+    }
+
+    private int size() {
+      return pending.size();
+    }
+
+    private void drainSorted(List<String> keys, List<Map<String, ByteIterator>> values) {
+      for (Map.Entry<String, HashMap<String, ByteIterator>> entry : pending.entrySet()) {
+        keys.add(entry.getKey());
+        values.add(entry.getValue());
+      }
+      pending.clear();
+    }
+  }
+
+  /**
+   * Objects reused by one client thread across operations in lowallocation mode.
+   */
+  private static final class ThreadBuffers {
+    private final StringBuilder key = new StringBuilder(32);
+    private final HashMap<String, ByteIterator> allValues;
+    private final HashMap<String, ByteIterator> singleValue = new HashMap<>(2);
+    private final HashMap<String, ByteIterator> cells;
+    private final Vector<HashMap<String, ByteIterator>> scanResult = new Vector<>();
+    private final RandomByteIterator[] iterators;
+    private final FastRandomByteIterator[] fastIterators;
+
+    private ThreadBuffers(int fieldcount, double compressionratio) {
+      // sized so that a full record never triggers a rehash
+      allValues = new HashMap<>(fieldcount * 2);
+      cells = new HashMap<>(fieldcount * 2);
+      iterators = new RandomByteIterator[fieldcount];
+      fastIterators = new FastRandomByteIterator[fieldcount];
+      for (int i = 0; i < fieldcount; i++) {
+        iterators[i] = new RandomByteIterator(0);
+        fastIterators[i] = new FastRandomByteIterator(0, compressionratio);
+      }
+    }
+
+    private HashMap<String, ByteIterator> values(boolean all) {
+      HashMap<String, ByteIterator> values = all ? allValues : singleValue;
+      values.clear();
+      return values;
+    }
+
+    private HashMap<String, ByteIterator> cells() {
+      cells.clear();
+      return cells;
+    }
+
+    private Vector<HashMap<String, ByteIterator>> scanResult() {
+      scanResult.clear();
+      return scanResult;
+    }
+  }
 }
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.AsyncDB;
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Workload;
+import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.generator.DiscreteGenerator;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@link CoreWorkload} against each of several tables, to benchmark tables of different
+ * sizes, schemas and skews sharing the caches and memory of one server.
+ * <p>
+ * Properties to control the tables:
+ * <UL>
+ * <LI><b>tables</b>: the comma separated names of the tables (required)
+ * <LI><b>table.NAME.proportion</b>: the share of the transactions that go to the table,
+ * relative to the other tables (default: 1)
+ * <LI><b>table.NAME.*</b>: any other core workload property, such as recordcount, fieldcount,
+ * fieldlength, requestdistribution or readproportion, for this table only. Properties without
+ * the prefix apply to every table.
+ * </UL>
+ * The load inserts the records of the tables one table after the other, and ends when all of
+ * them are inserted, so set recordcount (or insertcount) to at least the sum of the record
+ * counts of the tables. With insertstart and insertcount, each table loads its own range.
+ * Latencies are recorded under the operation names, summed over the tables, and under
+ * "OPERATION@table" for each table. With phases, the overrides of a phase take precedence over
+ * those of a table.
+ */
+public class MultiTableWorkload extends Workload {
+  /**
+   * The name of the property for the comma separated table names.
+   */
+  public static final String TABLES_PROPERTY = "tables";
+
+  /**
+   * The prefix of the per table properties.
+   */
+  public static final String TABLE_PROPERTY_PREFIX = "table.";
+
+  /**
+   * The name of the per table property for the share of the transactions.
+   */
+  public static final String PROPORTION_PROPERTY = "proportion";
+  public static final String PROPORTION_PROPERTY_DEFAULT = "1";
+
+  private final List<CoreWorkload> workloads = new ArrayList<>();
+
+  /**
+   * The first load operation number of each table after the first; the last entry is the
+   * total number of records to load.
+   */
+  private long[] loadbounds;
+  private final AtomicLong loaded = new AtomicLong();
+
+  private DiscreteGenerator tablechooser;
+
+  @Override
+  public void init(Properties p) throws WorkloadException {
+    String names = p.getProperty(TABLES_PROPERTY, "").trim();
+    if (names.isEmpty()) {
+      throw new WorkloadException("MultiTableWorkload requires the " + TABLES_PROPERTY + " property");
+    }
+    String[] tables = names.split("\\s*,\\s*");
+    Measurements.getMeasurements().setPerTable();
+    loadbounds = new long[tables.length];
+    tablechooser = new DiscreteGenerator();
+    long total = 0;
+    boolean chosen = false;
+    for (int i = 0; i < tables.length; i++) {
+      Properties props = tableProperties(p, tables[i]);
+      CoreWorkload workload = new CoreWorkload();
+      workload.init(props);
+      workloads.add(workload);
+
+      long recordcount = Long.parseLong(
+          props.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT));
+      long insertstart = Long.parseLong(props.getProperty(INSERT_START_PROPERTY, INSERT_START_PROPERTY_DEFAULT));
+      total += Long.parseLong(props.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
+      loadbounds[i] = total;
+
+      double proportion = Double.parseDouble(props.getProperty(PROPORTION_PROPERTY, PROPORTION_PROPERTY_DEFAULT));
+      if (proportion > 0) {
+        tablechooser.addValue(proportion, String.valueOf(i));
+        chosen = true;
+      }
+    }
+    if (!chosen) {
+      throw new WorkloadException("At least one table needs a positive " + PROPORTION_PROPERTY);
+    }
+  }
+
+  /**
+   * The properties of one table: its overrides backed by the run properties.
+   */
+  static Properties tableProperties(Properties p, String table) {
+    String prefix = TABLE_PROPERTY_PREFIX + table + ".";
+    Properties props = new Properties(p);
+    for (String key : p.stringPropertyNames()) {
+      if (key.startsWith(prefix)) {
+        props.setProperty(key.substring(prefix.length()), p.getProperty(key));
+      }
+    }
+    props.setProperty(CoreWorkload.TABLENAME_PROPERTY, table);
+    return props;
+  }
+
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    Object[] states = new Object[workloads.size()];
+    for (int i = 0; i < states.length; i++) {
+      states[i] = workloads.get(i).initThread(p, mythreadid, threadcount);
+    }
+    return states;
+  }
+
+  @Override
+  public void cleanup() throws WorkloadException {
+    for (CoreWorkload workload : workloads) {
+      workload.cleanup();
+    }
+  }
+
+  /**
+   * The table of the next load operation, or -1 once all records are loaded.
+   */
+  private int nextLoadTable() {
+    long n = loaded.getAndIncrement();
+    for (int i = 0; i < loadbounds.length; i++) {
+      if (n < loadbounds[i]) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int nextTransactionTable() {
+    return Integer.parseInt(tablechooser.nextValue());
+  }
+
+  @Override
+  public boolean doInsert(DB db, Object threadstate) {
+    int table = nextLoadTable();
+    return table >= 0 && workloads.get(table).doInsert(db, ((Object[]) threadstate)[table]);
+  }
+
+  @Override
+  public boolean doTransaction(DB db, Object threadstate) {
+    int table = nextTransactionTable();
+    return workloads.get(table).doTransaction(db, ((Object[]) threadstate)[table]);
+  }
+
+  @Override
+  public CompletionStage<Boolean> doInsertAsync(AsyncDB db, Object threadstate) {
+    int table = nextLoadTable();
+    if (table < 0) {
+      return CompletableFuture.completedFuture(false);
+    }
+    return workloads.get(table).doInsertAsync(db, ((Object[]) threadstate)[table]);
+  }
+
+  @Override
+  public CompletionStage<Boolean> doTransactionAsync(AsyncDB db, Object threadstate) {
+    int table = nextTransactionTable();
+    return workloads.get(table).doTransactionAsync(db, ((Object[]) threadstate)[table]);
+  }
+
+  @Override
+  public void requestStop() {
+    super.requestStop();
+    for (CoreWorkload workload : workloads) {
+      workload.requestStop();
+    }
+  }
+}
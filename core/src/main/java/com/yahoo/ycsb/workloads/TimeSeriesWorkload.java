@@ -16,13 +16,14 @@
  */
 package com.yahoo.ycsb.workloads;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Random;
-import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
 import java.util.concurrent.ThreadLocalRandom;
@@ -33,12 +34,14 @@ import com.yahoo.ycsb.Client;
 import com.yahoo.ycsb.DB;
 import com.yahoo.ycsb.NumericByteIterator;
 import com.yahoo.ycsb.Status;
-import com.yahoo.ycsb.StringByteIterator;
-import com.yahoo.ycsb.Utils;
+import com.yahoo.ycsb.TimeseriesAdapter;
+import com.yahoo.ycsb.TimeseriesDB;
+import com.yahoo.ycsb.TimeseriesPoint;
+import com.yahoo.ycsb.TimeseriesQuery;
+import com.yahoo.ycsb.TimeseriesStore;
 import com.yahoo.ycsb.Workload;
 import com.yahoo.ycsb.WorkloadException;
 import com.yahoo.ycsb.generator.DiscreteGenerator;
-import com.yahoo.ycsb.generator.Generator;
 import com.yahoo.ycsb.generator.HotspotIntegerGenerator;
 import com.yahoo.ycsb.generator.IncrementingPrintableStringGenerator;
 import com.yahoo.ycsb.generator.NumberGenerator;
@@ -77,6 +80,11 @@ import com.yahoo.ycsb.measurements.Measurements;
  * query (read or scan) parameters. As an example on how to parse the fields, see
  * {@link BasicTSDB}.
  * <p>
+ * DBs implementing {@link TimeseriesStore}, such as subclasses of {@link TimeseriesDB}, get
+ * reads, scans, inserts and updates as {@link TimeseriesQuery} and {@link TimeseriesPoint}
+ * objects instead, and skip the encoding and parsing of the fields. The encoding below is
+ * done by a {@link TimeseriesAdapter} for all other DBs.
+ * <p>
  * <b>Timestamps</b>
  * <p>
  * Timestamps are presented as Unix Epoch values in units of {@link TimeUnit#SECONDS},
@@ -94,7 +102,7 @@ import com.yahoo.ycsb.measurements.Measurements;
  * <p>
  * For calls to {@link DB#read(String, String, java.util.Set, java.util.Map)} and 
  * {@link DB#scan(String, String, int, java.util.Set, Vector)}, timestamps
- * are encoded in a {@link StringByteIterator} in a key/value format with the 
+ * are encoded in a {@link com.yahoo.ycsb.StringByteIterator} in a key/value format with the 
  * {@code tagpairdelimiter} separator. E.g {@code YCSBTS=1483228800}. If {@code querytimespan}
  * has been set to a positive value then the value will include a range with the
  * starting (oldest) timestamp followed by the {@code querytimespandelimiter} separator
@@ -126,8 +134,9 @@ import com.yahoo.ycsb.measurements.Measurements;
  * <p>
  * As mentioned, the workload generates strings for the keys and tags. On initialization
  * three string generators are created using the {@link IncrementingPrintableStringGenerator} 
- * implementation. Then the generators fill three arrays with values based on the
- * number of keys, the number of tags and the cardinality of each tag key/value pair.
+ * implementation. A time series is identified by the index of its key and the index
+ * of each tag value and the strings are decoded from those indices as needed. Up to
+ * 65,536 keys or tag values are cached in arrays, larger sets are never materialized.
  * This implementation gives us time series like the example table where every string
  * starts at something like "AA" (depending on the length of keys, tag keys and tag values)
  * and continuing to "ZZ" wherein they rollover back to "AA". 
@@ -145,7 +154,7 @@ import com.yahoo.ycsb.measurements.Measurements;
  * tag key "AB" would have values "AA" and "AB" due to a cardinality of 2. This 
  * cardinality map, along with the number of unique time series keys determines how 
  * many unique time series are generated for the workload. Tag values share a common
- * array of generated strings to save on memory.
+ * sequence of generated strings to save on memory.
  * <p>
  * <b>Operation Order</b>
  * <p>
@@ -249,11 +258,23 @@ import com.yahoo.ycsb.measurements.Measurements;
  * series, only 5% of the timestamps in the interval will have a value. The distribution
  * of values is random.
  * <p>
+ * <b>Batching</b>
+ * <p>
+ * With {@code insertbatchsize} above 1, each thread collects the data points it inserts and
+ * writes them with a single {@link TimeseriesStore#insertPoints(String, java.util.List)} call
+ * once the batch is full, or once its first data point has waited {@code insertbatchdelay}
+ * milliseconds. The delay is checked when the next data point is added. The points left at
+ * the end of the run are written by {@link #finishThread(DB, Object)}. Batches are measured
+ * as "BATCH-INSERT", which also counts their data points. The intended start time of a batch
+ * is that of its first data point, so the intended latency includes the time the points
+ * waited in the batch.
+ * <p>
  * <b>Notes/Warnings</b>
  * <p>
  * <ul>
- * <li>Because time series keys and tag key/values are generated and stored in memory,
- * be careful of setting the cardinality too high for the JVM's heap.</li>
+ * <li>Time series keys and tag values are generated from their indices on demand so
+ * the cardinality is bounded by the range of a long rather than the JVM's heap. The 
+ * {@code randomtimeseriesorder} shuffle is a modular permutation of the indices.</li>
  * <li>When running for data integrity, a number of settings are incompatible and will
  * throw errors. Check the error messages for details.</li>
  * <li>Databases that support keys only and can't store tags should order and then 
@@ -403,13 +424,21 @@ public class TimeSeriesWorkload extends Workload {
   /** Name and default value for the downsampling interval property. */
   public static final String DOWNSAMPLING_INTERVAL_PROPERTY = "downsamplinginterval";
   
+  /** Name and default value for the insert batch size property. */
+  public static final String INSERT_BATCH_SIZE_PROPERTY = "insertbatchsize";
+  public static final String INSERT_BATCH_SIZE_PROPERTY_DEFAULT = "1";
+  
+  /** Name and default value for the insert batch delay property. */
+  public static final String INSERT_BATCH_DELAY_PROPERTY = "insertbatchdelay";
+  public static final String INSERT_BATCH_DELAY_PROPERTY_DEFAULT = "0";
+  
   /** The properties to pull settings from. */
   protected Properties properties;
   
   /** Generators for keys, tag keys and tag values. */
-  protected Generator<String> keyGenerator;
-  protected Generator<String> tagKeyGenerator;
-  protected Generator<String> tagValueGenerator;
+  protected IncrementingPrintableStringGenerator keyGenerator;
+  protected IncrementingPrintableStringGenerator tagKeyGenerator;
+  protected IncrementingPrintableStringGenerator tagValueGenerator;
   
   /** The timestamp key, defaults to "YCSBTS". */
   protected String timestampKey;
@@ -434,14 +463,14 @@ public class TimeSeriesWorkload extends Workload {
   protected ValueType valueType;
   
   /** Used to calculate an offset for each time series. */
-  protected int[] cumulativeCardinality;
+  protected long[] cumulativeCardinality;
   
   /** The calculated total cardinality based on the config. */
-  protected int totalCardinality;
+  protected long totalCardinality;
   
   /** The calculated per-time-series-key cardinality. I.e. the number of unique
    * tag key and value combinations. */
-  protected int perKeyCardinality;
+  protected long perKeyCardinality;
   
   /** How much data to scan for in each call. */
   protected NumberGenerator scanlength;
@@ -468,15 +497,35 @@ public class TimeSeriesWorkload extends Workload {
   /** How many time series keys will be generated. */
   protected int numKeys;
   
-  /** The generated list of possible time series key values. */
+  /** The generated list of possible time series key values. Null if there are
+   * more than {@link #MAX_CACHED_STRINGS} keys, in which case they are generated
+   * on demand by {@link #keyAt(int)}. */
   protected String[] keys;
 
   /** The generated list of possible tag key values. */
   protected String[] tagKeys;
   
-  /** The generated list of possible tag value values. */
+  /** The generated list of possible tag value values. Null if the highest tag
+   * cardinality exceeds {@link #MAX_CACHED_STRINGS}, see {@link #tagValueAt(int)}. */
   protected String[] tagValues;
   
+  /** The maximum number of keys or tag values held in memory as strings. */
+  protected static final int MAX_CACHED_STRINGS = 65536;
+  
+  /** The length of the time series keys. */
+  protected int keyLength;
+  
+  /** The number of distinct tag values, i.e. the highest tag cardinality. */
+  protected int tagValueCount;
+  
+  /** Multipliers and offsets used to shuffle the keys and tag values when 
+   * {@code randomtimeseriesorder} is set. Each multiplier is co-prime with the 
+   * number of strings so the mapping from index to string is a permutation. */
+  protected long keyShuffle = 1;
+  protected long keyShuffleOffset;
+  protected long tagValueShuffle = 1;
+  protected long tagValueShuffleOffset;
+  
   /** The cardinality for each tag key. */
   protected int[] tagCardinality;
   
@@ -519,6 +568,12 @@ public class TimeSeriesWorkload extends Workload {
   
   /** The tag keys to group on. */
   protected boolean[] groupBys;
+
+  /** The names of the tag keys to group on. */
+  protected List<String> groupByTagKeys;
+
+  /** The group-by function. */
+  protected TimeseriesDB.AggregationOperation groupByAggregation;
   
   /** Whether or not to issue downsampling queries. */
   protected boolean downsample;
@@ -532,12 +587,21 @@ public class TimeSeriesWorkload extends Workload {
   /** The downsampling interval. */
   protected int downsampleInterval;
 
+  /** The downsampling function. */
+  protected TimeseriesDB.AggregationOperation downsampleAggregation;
+
   /**
    * Set to true if want to check correctness of reads. Must also
    * be set to true during loading phase to function.
    */
   protected boolean dataintegrity;
   
+  /** The maximum number of data points each thread writes at once. */
+  protected int insertBatchSize;
+  
+  /** The maximum time a data point waits in a batch before it is written, or 0. */
+  protected long insertBatchDelayNs;
+  
   /** Measurements to write data integrity results to. */
   protected Measurements measurements = Measurements.getMeasurements();
   
@@ -650,10 +714,11 @@ public class TimeSeriesWorkload extends Workload {
         throw new WorkloadException("Group by was enabled but no keys were specified.");
       }
       final String[] gbKeys = groupByKeys.split(",");
-      if (gbKeys.length != tagKeys.length) {
+      if (gbKeys.length != tagPairs) {
         throw new WorkloadException("Only " + gbKeys.length + " group by keys "
-            + "were specified but there were " + tagKeys.length + " tag keys given.");
+            + "were specified but there were " + tagPairs + " tag keys given.");
       }
+      groupByAggregation = aggregation(GROUPBY_PROPERTY, groupByFunction);
       groupBys = new boolean[gbKeys.length];
       for (int i = 0; i < gbKeys.length; i++) {
         groupBys[i] = Integer.parseInt(gbKeys[i].trim()) == 0 ? false : true;
@@ -670,17 +735,49 @@ public class TimeSeriesWorkload extends Workload {
             + DOWNSAMPLING_FUNCTION_PROPERTY + "' being set.");
       }
       downsampleInterval = Integer.parseInt(interval);
+      downsampleAggregation = aggregation(DOWNSAMPLING_FUNCTION_PROPERTY, downsampleFunction);
       downsample = true;
     }
     
     delayedSeries = Double.parseDouble(p.getProperty(DELAYED_SERIES_PROPERTY, DELAYED_SERIES_PROPERTY_DEFAULT));
     delayedIntervals = Integer.parseInt(p.getProperty(DELAYED_INTERVALS_PROPERTY, DELAYED_INTERVALS_PROPERTY_DEFAULT));
     
+    initInsertBatching(p);
     valueType = ValueType.fromString(p.getProperty(VALUE_TYPE_PROPERTY, VALUE_TYPE_PROPERTY_DEFAULT));
     table = p.getProperty(CoreWorkload.TABLENAME_PROPERTY, CoreWorkload.TABLENAME_PROPERTY_DEFAULT);
     initKeysAndTags();
+    if (groupBy) {
+      groupByTagKeys = new ArrayList<String>();
+      for (int i = 0; i < tagPairs; i++) {
+        if (groupBys[i]) {
+          groupByTagKeys.add(tagKeys[i]);
+        }
+      }
+    }
     validateSettings();
   }
+
+  private void initInsertBatching(final Properties p) throws WorkloadException {
+    insertBatchSize = Integer.parseInt(p.getProperty(INSERT_BATCH_SIZE_PROPERTY, INSERT_BATCH_SIZE_PROPERTY_DEFAULT));
+    if (insertBatchSize < 1) {
+      throw new WorkloadException("Invalid " + INSERT_BATCH_SIZE_PROPERTY + ": " + insertBatchSize);
+    }
+    insertBatchDelayNs = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(
+        p.getProperty(INSERT_BATCH_DELAY_PROPERTY, INSERT_BATCH_DELAY_PROPERTY_DEFAULT)));
+  }
+
+  private static TimeseriesDB.AggregationOperation aggregation(final String property, final String function)
+      throws WorkloadException {
+    final String name = function.trim().toUpperCase();
+    if (name.equals("AVG")) {
+      return TimeseriesDB.AggregationOperation.AVERAGE;
+    }
+    try {
+      return TimeseriesDB.AggregationOperation.valueOf(name);
+    } catch (IllegalArgumentException e) {
+      throw new WorkloadException("Unknown " + property + " \"" + function + "\"", e);
+    }
+  }
   
   @Override
   public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
@@ -695,13 +792,26 @@ public class TimeSeriesWorkload extends Workload {
     if (threadstate == null) {
       throw new IllegalStateException("Missing thread state.");
     }
-    final Map<String, ByteIterator> tags = new TreeMap<String, ByteIterator>();
-    final String key = ((ThreadState)threadstate).nextDataPoint(tags, true);
-    if (db.insert(table, key, tags) == Status.OK) {
+    final ThreadState state = (ThreadState) threadstate;
+    final TimeseriesPoint point = state.nextDataPoint(true);
+    if (insertBatchSize > 1) {
+      return state.addToBatch(db, point);
+    }
+    if (state.store(db).insertPoint(table, point) == Status.OK) {
       return true;
     }
     return false;
   }
+  
+  /**
+   * Writes the data points left in the batch of the thread.
+   */
+  @Override
+  public void finishThread(DB db, Object threadstate) {
+    if (threadstate != null) {
+      ((ThreadState) threadstate).flush(db);
+    }
+  }
 
   @Override
   public boolean doTransaction(DB db, Object threadstate) {
@@ -732,48 +842,13 @@ public class TimeSeriesWorkload extends Workload {
 
   protected void doTransactionRead(final DB db, Object threadstate) {
     final ThreadState state = (ThreadState) threadstate;
-    final String keyname = keys[keychooser.nextValue().intValue()];
-    final Random random = ThreadLocalRandom.current();
+    final String keyname = keyAt(keychooser.nextValue().intValue());
     int offsets = state.queryOffsetGenerator.nextValue().intValue();
     //int offsets = random.nextInt(maxOffsets - 1);
-    final long startTimestamp;
-    if (offsets > 0) {
-      startTimestamp = state.startTimestamp + state.timestampGenerator.getOffset(offsets);
-    } else {
-      startTimestamp = state.startTimestamp;
-    }
-    
-    // rando tags
-    Set<String> fields = new HashSet<String>();
-    for (int i = 0; i < tagPairs; ++i) {
-      if (groupBy && groupBys[i]) {
-        fields.add(tagKeys[i]);
-      } else {
-        fields.add(tagKeys[i] + tagPairDelimiter + 
-            tagValues[random.nextInt(tagCardinality[i])]);
-      }
-    }
-    
-    if (queryTimeSpan > 0) {
-      final long endTimestamp;
-      if (queryRandomTimeSpan) {
-        endTimestamp = startTimestamp + (timestampInterval * random.nextInt(queryTimeSpan / timestampInterval));
-      } else {
-        endTimestamp = startTimestamp + queryTimeSpan;
-      }
-      fields.add(timestampKey + tagPairDelimiter + startTimestamp + queryTimeSpanDelimiter + endTimestamp);
-    } else {
-      fields.add(timestampKey + tagPairDelimiter + startTimestamp);  
-    }
-    if (groupBy) {
-      fields.add(groupByKey + tagPairDelimiter + groupByFunction);
-    }
-    if (downsample) {
-      fields.add(downsampleKey + tagPairDelimiter + downsampleFunction + downsampleInterval);
-    }
+    final TimeseriesQuery query = nextQuery(state, keyname, offsets);
     
     final Map<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
-    final Status status = db.read(table, keyname, fields, cells);
+    final Status status = state.store(db).readPoint(table, query, cells);
     
     if (dataintegrity && status == Status.OK) {
       verifyRow(keyname, cells);
@@ -784,9 +859,8 @@ public class TimeSeriesWorkload extends Workload {
     if (threadstate == null) {
       throw new IllegalStateException("Missing thread state.");
     }
-    final Map<String, ByteIterator> tags = new TreeMap<String, ByteIterator>();
-    final String key = ((ThreadState)threadstate).nextDataPoint(tags, false);
-    db.update(table, key, tags);
+    final ThreadState state = (ThreadState) threadstate;
+    state.store(db).updatePoint(table, state.nextDataPoint(false));
   }
   
   protected void doTransactionInsert(final DB db, Object threadstate) {
@@ -796,12 +870,28 @@ public class TimeSeriesWorkload extends Workload {
   protected void doTransactionScan(final DB db, Object threadstate) {
     final ThreadState state = (ThreadState) threadstate;
     final Random random = ThreadLocalRandom.current();
-    final String keyname = keys[random.nextInt(keys.length)];
+    final String keyname = keyAt(random.nextInt(numKeys));
     
     // choose a random scan length
     int len = scanlength.nextValue().intValue();
     
     int offsets = random.nextInt(maxOffsets - 1);
+    final TimeseriesQuery query = nextQuery(state, keyname, offsets).setLimit(len);
+    
+    final Vector<HashMap<String, ByteIterator>> results = new Vector<HashMap<String, ByteIterator>>();
+    state.store(db).scanSeries(table, query, results);
+  }
+  
+  /**
+   * Builds a query of the series key with random tag values, starting the given number of
+   * intervals after the starting timestamp of the thread.
+   * @param state The thread state.
+   * @param keyname The time series key.
+   * @param offsets The number of intervals to the start of the query.
+   * @return The query, covering a range if {@code querytimespan} is set.
+   */
+  protected TimeseriesQuery nextQuery(final ThreadState state, final String keyname, final int offsets) {
+    final Random random = ThreadLocalRandom.current();
     final long startTimestamp;
     if (offsets > 0) {
       startTimestamp = state.startTimestamp + state.timestampGenerator.getOffset(offsets);
@@ -809,17 +899,7 @@ public class TimeSeriesWorkload extends Workload {
       startTimestamp = state.startTimestamp;
     }
     
-    // rando tags
-    Set<String> fields = new HashSet<String>();
-    for (int i = 0; i < tagPairs; ++i) {
-      if (groupBy && groupBys[i]) {
-        fields.add(tagKeys[i]);
-      } else {
-        fields.add(tagKeys[i] + tagPairDelimiter + 
-            tagValues[random.nextInt(tagCardinality[i])]);
-      }
-    }
-    
+    final TimeseriesQuery query;
     if (queryTimeSpan > 0) {
       final long endTimestamp;
       if (queryRandomTimeSpan) {
@@ -827,25 +907,32 @@ public class TimeSeriesWorkload extends Workload {
       } else {
         endTimestamp = startTimestamp + queryTimeSpan;
       }
-      fields.add(timestampKey + tagPairDelimiter + startTimestamp + queryTimeSpanDelimiter + endTimestamp);
+      query = new TimeseriesQuery(keyname, startTimestamp, endTimestamp);
     } else {
-      fields.add(timestampKey + tagPairDelimiter + startTimestamp);  
+      query = new TimeseriesQuery(keyname, startTimestamp);
+    }
+    
+    // rando tags
+    final Map<String, List<String>> tags = new HashMap<String, List<String>>();
+    for (int i = 0; i < tagPairs; ++i) {
+      if (!groupBy || !groupBys[i]) {
+        tags.put(tagKeys[i], Collections.singletonList(tagValueAt(random.nextInt(tagCardinality[i]))));
+      }
     }
+    query.setTags(tags);
     if (groupBy) {
-      fields.add(groupByKey + tagPairDelimiter + groupByFunction);
+      query.setGroupBy(groupByTagKeys, groupByAggregation);
     }
     if (downsample) {
-      fields.add(downsampleKey + tagPairDelimiter + downsampleFunction + tagPairDelimiter + downsampleInterval);
+      query.setDownsampling(downsampleAggregation, downsampleInterval);
     }
-    
-    final Vector<HashMap<String, ByteIterator>> results = new Vector<HashMap<String, ByteIterator>>();
-    db.scan(table, keyname, len, fields, results);
+    return query;
   }
   
   protected void doTransactionDelete(final DB db, Object threadstate) {
     final ThreadState state = (ThreadState) threadstate;
     final Random random = ThreadLocalRandom.current();
-    final StringBuilder buf = new StringBuilder().append(keys[random.nextInt(keys.length)]);
+    final StringBuilder buf = new StringBuilder().append(keyAt(random.nextInt(numKeys)));
     
     int offsets = random.nextInt(maxOffsets - 1);
     final long startTimestamp;
@@ -862,7 +949,7 @@ public class TimeSeriesWorkload extends Workload {
            .append(tagKeys[i]);
       } else {
         buf.append(deleteDelimiter).append(tagKeys[i] + tagPairDelimiter + 
-            tagValues[random.nextInt(tagCardinality[i])]);
+            tagValueAt(random.nextInt(tagCardinality[i])));
       }
     }
     
@@ -931,7 +1018,7 @@ public class TimeSeriesWorkload extends Workload {
    */
   protected long validationFunction(final String key, final long timestamp, 
                                     final TreeMap<String, String> tags) {
-    final StringBuilder validationBuffer = new StringBuilder(keys[0].length() + 
+    final StringBuilder validationBuffer = new StringBuilder(keyLength + 
         (tagPairs * tagKeys[0].length()) + (tagPairs * tagCardinality[1]));
     for (final Entry<String, String> pair : tags.entrySet()) {
       validationBuffer.append(pair.getKey()).append(pair.getValue());
@@ -945,7 +1032,7 @@ public class TimeSeriesWorkload extends Workload {
    * @throws WorkloadException If something goes pear shaped.
    */
   protected void initKeysAndTags() throws WorkloadException {
-    final int keyLength = Integer.parseInt(properties.getProperty(
+    keyLength = Integer.parseInt(properties.getProperty(
         CoreWorkload.FIELD_LENGTH_PROPERTY, 
         CoreWorkload.FIELD_LENGTH_PROPERTY_DEFAULT));
     final int tagKeyLength = Integer.parseInt(properties.getProperty(
@@ -964,7 +1051,7 @@ public class TimeSeriesWorkload extends Workload {
     final String[] tagCardinalityParts = tagCardinalityString.split(",");
     int idx = 0;
     totalCardinality = numKeys;
-    perKeyCardinality = 1;
+    perKeyCardinality = 1L;
     int maxCardinality = 0;
     for (final String card : tagCardinalityParts) {
       try {
@@ -1006,35 +1093,48 @@ public class TimeSeriesWorkload extends Workload {
       }
     }
     
-    keys = new String[numKeys];
     tagKeys = new String[tagPairs];
-    tagValues = new String[maxCardinality];
-    for (int i = 0; i < numKeys; ++i) {
-      keys[i] = keyGenerator.nextString();
-    }
-
     for (int i = 0; i < tagPairs; ++i) {
       tagKeys[i] = tagKeyGenerator.nextString();
     }
     
-    for (int i = 0; i < maxCardinality; i++) {
-      tagValues[i] = tagValueGenerator.nextString();
-    }
+    // Keys and tag values are decoded from their index so only modest sets are
+    // kept as strings. Larger sets are shuffled with a multiplicative permutation.
+    keys = null;
+    tagValues = null;
+    tagValueCount = maxCardinality;
     if (randomizeTimeseriesOrder) {
-      Utils.shuffleArray(keys);
-      Utils.shuffleArray(tagValues);
+      final Random random = ThreadLocalRandom.current();
+      keyShuffle = coprimeMultiplier(numKeys, random);
+      keyShuffleOffset = random.nextInt(numKeys);
+      tagValueShuffle = coprimeMultiplier(maxCardinality, random);
+      tagValueShuffleOffset = random.nextInt(maxCardinality);
+    }
+    if (numKeys <= MAX_CACHED_STRINGS) {
+      final String[] cache = new String[numKeys];
+      for (int i = 0; i < numKeys; ++i) {
+        cache[i] = keyAt(i);
+      }
+      keys = cache;
+    }
+    if (maxCardinality <= MAX_CACHED_STRINGS) {
+      final String[] cache = new String[maxCardinality];
+      for (int i = 0; i < maxCardinality; i++) {
+        cache[i] = tagValueAt(i);
+      }
+      tagValues = cache;
     }
     
-    maxOffsets = (recordcount / totalCardinality) + 1;
+    maxOffsets = (int) (recordcount / totalCardinality) + 1;
     final int[] keyAndTagCardinality = new int[tagPairs + 1];
     keyAndTagCardinality[0] = numKeys;
     for (int i = 0; i < tagPairs; i++) {
       keyAndTagCardinality[i + 1] = tagCardinality[i];
     }
     
-    cumulativeCardinality = new int[keyAndTagCardinality.length];
+    cumulativeCardinality = new long[keyAndTagCardinality.length];
     for (int i = 0; i < keyAndTagCardinality.length; i++) {
-      int cumulation = 1;
+      long cumulation = 1;
       for (int x = i; x <= keyAndTagCardinality.length - 1; x++) {
         cumulation *= keyAndTagCardinality[x];
       }
@@ -1045,6 +1145,57 @@ public class TimeSeriesWorkload extends Workload {
     cumulativeCardinality[cumulativeCardinality.length - 1] = 1;
   }
   
+  /**
+   * Returns the time series key at the given index, from the cache if the keys
+   * are materialized or decoded from the index otherwise.
+   * @param idx An index from 0 to the number of keys.
+   * @return The time series key.
+   */
+  protected String keyAt(final int idx) {
+    if (keys != null) {
+      return keys[idx];
+    }
+    return keyGenerator.valueAt((idx * keyShuffle + keyShuffleOffset) % numKeys);
+  }
+  
+  /**
+   * Returns the tag value at the given index, from the cache if the values are
+   * materialized or decoded from the index otherwise.
+   * @param idx An index from 0 to the highest tag cardinality.
+   * @return The tag value.
+   */
+  protected String tagValueAt(final int idx) {
+    if (tagValues != null) {
+      return tagValues[idx];
+    }
+    return tagValueGenerator.valueAt((idx * tagValueShuffle + tagValueShuffleOffset) % tagValueCount);
+  }
+  
+  /**
+   * Picks a random multiplier that is co-prime with the given count.
+   * @param count The number of values to permute.
+   * @param random The source of randomness.
+   * @return A multiplier from 1 to count - 1, or 1 for a single value.
+   */
+  private static long coprimeMultiplier(final int count, final Random random) {
+    if (count <= 2) {
+      return 1;
+    }
+    while (true) {
+      final long candidate = 1 + random.nextInt(count - 1);
+      long a = candidate;
+      long b = count;
+      while (b != 0) {
+        final long t = a % b;
+        a = b;
+        b = t;
+      }
+      if (a == 1) {
+        return candidate;
+      }
+    }
+  }
+  
   /**
    * Makes sure the settings as given are compatible.
    * @throws WorkloadException If one or more settings were invalid.
@@ -1107,6 +1258,18 @@ public class TimeSeriesWorkload extends Workload {
     /** The starting timestamp. */
     protected long startTimestamp;
     
+    /** Encodes the typed operations for the last DB without them. */
+    private TimeseriesAdapter adapter;
+    
+    /** The data points waiting to be written, with {@code insertbatchsize} above 1. */
+    protected List<TimeseriesPoint> batch = new ArrayList<TimeseriesPoint>();
+    
+    /** When the first data point of the batch was added. */
+    protected long batchStartNs;
+    
+    /** The intended start time of the operation that added the first data point of the batch. */
+    protected long batchIntendedStartNs;
+    
     /**
      * Default ctor.
      * @param threadID The zero based thread ID.
@@ -1120,16 +1283,16 @@ public class TimeSeriesWorkload extends Workload {
         throw new IllegalStateException("Thread ID " + threadID + " cannot be greater "
             + "than or equal than the thread count " + totalThreads);
       }
-      if (keys.length < threadCount) {
+      if (numKeys < threadCount) {
         throw new WorkloadException("Thread count " + totalThreads + " must be greater "
-            + "than or equal to key count " + keys.length);
+            + "than or equal to key count " + numKeys);
       }
       
-      int keysPerThread = keys.length / totalThreads;
+      int keysPerThread = numKeys / totalThreads;
       keyIdx = keysPerThread * threadID;
       keyIdxStart = keyIdx;
       if (totalThreads - 1 == threadID) {
-        keyIdxEnd = keys.length;
+        keyIdxEnd = numKeys;
       } else {
         keyIdxEnd = keyIdxStart + keysPerThread;
       }
@@ -1161,17 +1324,69 @@ public class TimeSeriesWorkload extends Workload {
       queryOffsetGenerator = new UniformLongGenerator(0, maxOffsets - 2);
     }
     
+    /**
+     * The typed operations of the DB, directly if it has them and through a
+     * {@link TimeseriesAdapter} otherwise.
+     * @param db The DB of the thread.
+     * @return The typed operations.
+     */
+    protected TimeseriesStore store(final DB db) {
+      if (db instanceof TimeseriesStore) {
+        return (TimeseriesStore) db;
+      }
+      if (adapter == null || adapter.getDB() != db) {
+        adapter = new TimeseriesAdapter(db, properties);
+      }
+      return adapter;
+    }
+    
+    /**
+     * Adds a data point to the batch, and writes the batch once it is full or its first data
+     * point has waited for {@code insertbatchdelay}.
+     * @param db The DB of the thread.
+     * @param point The data point to add.
+     * @return Whether the batch is still pending or was written successfully.
+     */
+    protected boolean addToBatch(final DB db, final TimeseriesPoint point) {
+      if (batch.isEmpty()) {
+        batchStartNs = System.nanoTime();
+        batchIntendedStartNs = measurements.getIntendedtartTimeNs();
+      }
+      batch.add(point);
+      if (batch.size() < insertBatchSize
+          && (insertBatchDelayNs <= 0 || System.nanoTime() - batchStartNs < insertBatchDelayNs)) {
+        return true;
+      }
+      return flush(db);
+    }
+    
+    /**
+     * Writes the pending data points in one call.
+     * @param db The DB of the thread.
+     * @return Whether the batch was empty or was written successfully.
+     */
+    protected boolean flush(final DB db) {
+      if (batch.isEmpty()) {
+        return true;
+      }
+      // the batch is due since its first point was, the client sets the time again before the next operation
+      measurements.setIntendedStartTimeNs(batchIntendedStartNs);
+      final Status status = store(db).insertPoints(table, batch);
+      measurements.setIntendedStartTimeNs(0);
+      batch = new ArrayList<TimeseriesPoint>(insertBatchSize);
+      return status == Status.OK;
+    }
+    
     /**
      * Generates the next write value for thread.
-     * @param map An initialized map to populate with tag keys and values as well
-     * as the timestamp and actual value.
      * @param isInsert Whether or not it's an insert or an update. Updates will pick
      * an older timestamp (if random isn't enabled).
-     * @return The next key to write.
+     * @return The next data point to write.
      */
-    protected String nextDataPoint(final Map<String, ByteIterator> map, final boolean isInsert) {
+    protected TimeseriesPoint nextDataPoint(final boolean isInsert) {
       final Random random = ThreadLocalRandom.current();
-      int iterations = sparsity <= 0 ? 1 : random.nextInt((int) ((double) perKeyCardinality * sparsity));
+      int iterations = sparsity <= 0 ? 1 : 
+          random.nextInt((int) Math.min(Integer.MAX_VALUE, perKeyCardinality * sparsity));
       if (iterations < 1) {
         iterations = 1;
       }
@@ -1181,65 +1396,57 @@ public class TimeSeriesWorkload extends Workload {
           timestampGenerator.nextValue();
           rollover = false;
         }
-        String key = null;
+        TimeseriesPoint point = null;
         if (iterations <= 0) {
-          final TreeMap<String, String> validationTags;
-          if (dataintegrity) {
-            validationTags = new TreeMap<String, String>();
-          } else {
-            validationTags = null;
-          }
-          key = keys[keyIdx];
-          int overallIdx = keyIdx * cumulativeCardinality[0];
+          final TreeMap<String, String> tags = new TreeMap<String, String>();
+          final String key = keyAt(keyIdx);
+          long overallIdx = keyIdx * cumulativeCardinality[0];
           for (int i = 0; i < tagPairs; ++i) {
             int tvidx = tagValueIdxs[i];
-            map.put(tagKeys[i], new StringByteIterator(tagValues[tvidx]));
-            if (dataintegrity) {
-              validationTags.put(tagKeys[i], tagValues[tvidx]);
-            }
+            tags.put(tagKeys[i], tagValueAt(tvidx));
             if (delayedSeries > 0) {
               overallIdx += (tvidx * cumulativeCardinality[i + 1]);
             }
           }
           
+          final long timestamp;
           if (!isInsert) {
             final long delta = (timestampGenerator.currentValue() - startTimestamp) / timestampInterval;
             final int intervals = random.nextInt((int) delta);
-            map.put(timestampKey, new NumericByteIterator(startTimestamp + (intervals * timestampInterval)));
+            timestamp = startTimestamp + (intervals * timestampInterval);
           } else if (delayedSeries > 0) {
             // See if the series falls in a delay bucket and calculate an offset earlier
             // than the current timestamp value if so.
             double pct = (double) overallIdx / (double) totalCardinality;
             if (pct < delayedSeries) {
-              int modulo = overallIdx % delayedIntervals;
+              int modulo = (int) (overallIdx % delayedIntervals);
               if (modulo < 0) {
                 modulo *= -1;
               }
-              map.put(timestampKey, new NumericByteIterator(timestampGenerator.currentValue() - 
-                  timestampInterval * modulo));
+              timestamp = timestampGenerator.currentValue() - timestampInterval * modulo;
             } else {
-              map.put(timestampKey, new NumericByteIterator(timestampGenerator.currentValue()));
+              timestamp = timestampGenerator.currentValue();
             }
           } else {
-            map.put(timestampKey, new NumericByteIterator(timestampGenerator.currentValue()));
+            timestamp = timestampGenerator.currentValue();
           }
           
           if (dataintegrity) {
-            map.put(valueKey, new NumericByteIterator(validationFunction(key, 
-                timestampGenerator.currentValue(), validationTags)));
+            point = new TimeseriesPoint(key, tags, timestamp, validationFunction(key, 
+                timestampGenerator.currentValue(), tags));
           } else {
             switch (valueType) {
             case INTEGERS:
-              map.put(valueKey, new NumericByteIterator(random.nextInt()));
+              point = new TimeseriesPoint(key, tags, timestamp, (long) random.nextInt());
               break;
             case FLOATS:
-              map.put(valueKey, new NumericByteIterator(random.nextDouble() * (double) 100000));
+              point = new TimeseriesPoint(key, tags, timestamp, random.nextDouble() * (double) 100000);
               break;
             case MIXED:
               if (random.nextBoolean()) {
-                map.put(valueKey, new NumericByteIterator(random.nextInt()));
+                point = new TimeseriesPoint(key, tags, timestamp, (long) random.nextInt());
               } else {
-                map.put(valueKey, new NumericByteIterator(random.nextDouble() * (double) 100000));
+                point = new TimeseriesPoint(key, tags, timestamp, random.nextDouble() * (double) 100000);
               }
               break;
             default:
@@ -1277,7 +1484,7 @@ public class TimeSeriesWorkload extends Workload {
         }
         
         if (iterations <= 0) {
-          return key;
+          return point;
         }
       }
     }
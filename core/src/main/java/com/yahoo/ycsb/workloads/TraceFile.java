@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.Workload.Operation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A compact binary file of recorded operations, read through memory mapping.
+ * <p>
+ * The file starts with a header (magic, version, records per block, record count, block count
+ * and index offset), followed by the records and an index holding the file offset of every
+ * block of records. A record is the timestamp in microseconds (long), the operation (byte,
+ * the ordinal of {@link Operation}, with the high bit set if the record needs its key loaded,
+ * see {@link Cursor#needsLoad()}), the value size in bytes or, for scans, the record count
+ * (int), and the key (unsigned short length and UTF-8 bytes).
+ * <p>
+ * Readers claim whole blocks, so any number of threads can read disjoint parts of the file
+ * without coordinating beyond picking block numbers. Files larger than 2GB are mapped in
+ * several regions, each starting at a block boundary.
+ * <p>
+ * Text traces with one "timestamp operation key size" line per operation, timestamps in
+ * microseconds, are converted with
+ * <pre>java -cp ... com.yahoo.ycsb.workloads.TraceFile trace.txt trace.bin</pre>
+ */
+public final class TraceFile implements Closeable {
+  private static final int MAGIC = 0x59435452;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 8;
+  private static final long MAX_REGION = Integer.MAX_VALUE;
+
+  /**
+   * The number of records per block used by {@link Writer} unless told otherwise.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 64;
+
+  private static final Operation[] OPERATIONS = Operation.values();
+  private static final int LOAD_FLAG = 0x80;
+
+  private final RandomAccessFile file;
+  private final int blockSize;
+  private final long recordCount;
+  private final long[] blockOffsets;
+  private final List<MappedByteBuffer> regions = new ArrayList<>();
+  private final List<Long> regionStarts = new ArrayList<>();
+  private final int[] blockRegions;
+
+  /**
+   * Opens and maps a trace file.
+   */
+  public TraceFile(String path) throws IOException {
+    file = new RandomAccessFile(path, "r");
+    FileChannel channel = file.getChannel();
+    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+    if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+      file.close();
+      throw new IOException(path + " is not a trace file");
+    }
+    blockSize = header.getInt();
+    recordCount = header.getLong();
+    int blockCount = (int) header.getLong();
+    long indexOffset = header.getLong();
+
+    blockOffsets = new long[blockCount + 1];
+    ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, 8L * blockCount);
+    for (int i = 0; i < blockCount; i++) {
+      blockOffsets[i] = index.getLong();
+    }
+    blockOffsets[blockCount] = indexOffset;
+
+    // map regions of whole blocks, each below 2GB
+    blockRegions = new int[blockCount];
+    int first = 0;
+    while (first < blockCount) {
+      int last = first + 1;
+      while (last < blockCount && blockOffsets[last + 1] - blockOffsets[first] <= MAX_REGION) {
+        last++;
+      }
+      long start = blockOffsets[first];
+      regions.add(channel.map(FileChannel.MapMode.READ_ONLY, start, blockOffsets[last] - start));
+      regionStarts.add(start);
+      for (int i = first; i < last; i++) {
+        blockRegions[i] = regions.size() - 1;
+      }
+      first = last;
+    }
+  }
+
+  /**
+   * The total number of records.
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * The number of blocks the records are grouped in.
+   */
+  public int getBlockCount() {
+    return blockOffsets.length - 1;
+  }
+
+  /**
+   * Creates a reader for the calling thread. Readers are not thread safe, but any number of
+   * them can be used concurrently.
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  /**
+   * Reads the records of one block at a time.
+   */
+  public final class Cursor {
+    private final ByteBuffer[] views = new ByteBuffer[regions.size()];
+    private ByteBuffer view;
+    private int remaining;
+    private byte[] keyBytes = new byte[64];
+
+    private long timestampUs;
+    private Operation operation;
+    private boolean load;
+    private int size;
+    private String key;
+
+    private Cursor() {
+    }
+
+    /**
+     * Positions this cursor at the start of the given block.
+     *
+     * @return False if there is no such block.
+     */
+    public boolean seekBlock(long block) {
+      if (block < 0 || block >= getBlockCount()) {
+        remaining = 0;
+        return false;
+      }
+      int b = (int) block;
+      int region = blockRegions[b];
+      if (views[region] == null) {
+        views[region] = regions.get(region).duplicate();
+      }
+      view = views[region];
+      view.position((int) (blockOffsets[b] - regionStarts.get(region)));
+      remaining = (int) Math.min(blockSize, recordCount - block * blockSize);
+      return true;
+    }
+
+    /**
+     * Reads the next record of the current block.
+     *
+     * @return False at the end of the block.
+     */
+    public boolean next() {
+      if (remaining == 0) {
+        return false;
+      }
+      remaining--;
+      timestampUs = view.getLong();
+      int op = view.get() & 0xFF;
+      operation = OPERATIONS[op & ~LOAD_FLAG];
+      load = (op & LOAD_FLAG) != 0;
+      size = view.getInt();
+      int length = view.getShort() & 0xFFFF;
+      if (keyBytes.length < length) {
+        keyBytes = new byte[length];
+      }
+      view.get(keyBytes, 0, length);
+      key = new String(keyBytes, 0, length, StandardCharsets.UTF_8);
+      return true;
+    }
+
+    public long getTimestampUs() {
+      return timestampUs;
+    }
+
+    public Operation getOperation() {
+      return operation;
+    }
+
+    /**
+     * Whether this is the first record of its key in the trace and the key is not inserted by
+     * it, so the key has to exist before the replay.
+     */
+    public boolean needsLoad() {
+      return load;
+    }
+
+    /**
+     * The value size in bytes, or the record count for scans.
+     */
+    public int getSize() {
+      return size;
+    }
+
+    public String getKey() {
+      return key;
+    }
+  }
+
+  /**
+   * Writes a trace file. Records are written in the order they are added. The writer remembers
+   * every key it has seen to mark the records that need their key loaded.
+   */
+  public static final class Writer implements Closeable {
+    private final String path;
+    private final DataOutputStream out;
+    private final int blockSize;
+    private final List<Long> blockOffsets = new ArrayList<>();
+    private final Set<String> keys = new HashSet<>();
+    private long offset = HEADER_SIZE;
+    private long recordCount;
+
+    public Writer(String path) throws IOException {
+      this(path, DEFAULT_BLOCK_SIZE);
+    }
+
+    public Writer(String path, int blockSize) throws IOException {
+      this.path = path;
+      this.blockSize = blockSize;
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+      // the header is filled in on close
+      out.write(new byte[HEADER_SIZE]);
+    }
+
+    /**
+     * Appends a record.
+     */
+    public void add(long timestampUs, Operation operation, String key, int size) throws IOException {
+      byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+      if (keyBytes.length > 0xFFFF) {
+        throw new IllegalArgumentException("Key too long: " + key);
+      }
+      if (recordCount % blockSize == 0) {
+        blockOffsets.add(offset);
+      }
+      out.writeLong(timestampUs);
+      boolean load = keys.add(key) && operation != Operation.INSERT;
+      out.writeByte(operation.ordinal() | (load ? LOAD_FLAG : 0));
+      out.writeInt(size);
+      out.writeShort(keyBytes.length);
+      out.write(keyBytes);
+      offset += 8 + 1 + 4 + 2 + keyBytes.length;
+      recordCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+      for (long blockOffset : blockOffsets) {
+        out.writeLong(blockOffset);
+      }
+      out.close();
+      try (RandomAccessFile header = new RandomAccessFile(path, "rw")) {
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(blockSize);
+        header.writeLong(recordCount);
+        header.writeLong(blockOffsets.size());
+        header.writeLong(offset);
+      }
+    }
+  }
+
+  /**
+   * Converts a text trace with one "timestamp operation key size" line per operation into a
+   * trace file. Empty lines and lines starting with # are skipped.
+   *
+   * @return The number of records written.
+   */
+  public static long convert(BufferedReader in, String path) throws IOException {
+    try (Writer writer = new Writer(path)) {
+      String line;
+      int lineNumber = 0;
+      while ((line = in.readLine()) != null) {
+        lineNumber++;
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] parts = line.split("\\s+");
+        if (parts.length != 4) {
+          throw new IOException("Line " + lineNumber + " is not \"timestamp operation key size\": " + line);
+        }
+        try {
+          writer.add(Long.parseLong(parts[0]), Operation.valueOf(parts[1].toUpperCase()), parts[2],
+              Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException e) {
+          throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+        }
+      }
+      return writer.recordCount;
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: TraceFile <text trace> <trace file>");
+      System.exit(1);
+    }
+    try (BufferedReader in = new BufferedReader(
+        new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8))) {
+      System.out.println("Wrote " + convert(in, args[1]) + " records to " + args[1]);
+    }
+  }
+}
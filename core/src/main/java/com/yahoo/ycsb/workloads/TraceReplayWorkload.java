@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.RandomByteIterator;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.Workload;
+import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the operations recorded in a {@link TraceFile}.
+ * <p>
+ * The trace is memory mapped and split into blocks of records. Each client thread claims the
+ * next unread block with a single atomic increment and replays it on its own, so threads never
+ * wait for each other and every record is replayed exactly once. Run with operationcount=0 to
+ * replay the whole trace; the client stops when the trace is exhausted.
+ * <p>
+ * Properties to control the replay:
+ * <UL>
+ * <LI><b>trace.file</b>: the trace file to replay (required)
+ * <LI><b>trace.timing</b>: "none" to replay as fast as the threads go or "original" to issue
+ * every operation at its recorded time relative to the first one (default: none). With original
+ * timing the recorded time is used as the intended start time of the operation, so a database
+ * falling behind shows up in the intended latencies. Threads replay whole blocks in order, so
+ * use enough threads to keep up with the recorded concurrency. The waits count as throttle
+ * time in the client overhead figures.
+ * <LI><b>trace.speedup</b>: divides the recorded gaps between operations with original timing
+ * (default: 1)
+ * <LI><b>trace.loop</b>: start over from the beginning when the trace is exhausted
+ * (default: false)
+ * <LI><b>trace.field</b>: the field that holds the value of a record (default: field0)
+ * <LI><b>trace.fieldlength</b>: the value size used for records loaded on behalf of reads,
+ * scans and deletes (default: 100)
+ * <LI><b>table</b>: the table to run against (default: usertable)
+ * </ul>
+ * The load phase inserts every key of the trace once, except keys the trace first inserts
+ * itself, so records read before they are written during the run exist. Looping does not
+ * apply to the load.
+ */
+public class TraceReplayWorkload extends Workload {
+  /**
+   * The name of the property for the trace file to replay.
+   */
+  public static final String FILE_PROPERTY = "trace.file";
+
+  /**
+   * The name of the property for the replay timing, "none" or "original".
+   */
+  public static final String TIMING_PROPERTY = "trace.timing";
+  public static final String TIMING_PROPERTY_DEFAULT = "none";
+
+  /**
+   * The name of the property for the speedup applied to recorded time with original timing.
+   */
+  public static final String SPEEDUP_PROPERTY = "trace.speedup";
+  public static final String SPEEDUP_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The name of the property for replaying the trace in a loop.
+   */
+  public static final String LOOP_PROPERTY = "trace.loop";
+  public static final String LOOP_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the property for the field that holds the value of a record.
+   */
+  public static final String FIELD_PROPERTY = "trace.field";
+  public static final String FIELD_PROPERTY_DEFAULT = "field0";
+
+  /**
+   * The name of the property for the value size of records without a recorded size.
+   */
+  public static final String FIELD_LENGTH_PROPERTY = "trace.fieldlength";
+  public static final String FIELD_LENGTH_PROPERTY_DEFAULT = "100";
+
+  private TraceFile trace;
+  private String table;
+  private String field;
+  private int fieldLength;
+  private boolean loop;
+  private boolean originalTiming;
+  private double speedup;
+  private long firstTimestampUs;
+  private long passLengthUs;
+
+  private final AtomicLong nextBlock = new AtomicLong();
+  private final AtomicLong startNs = new AtomicLong();
+
+  /**
+   * The per thread replay position.
+   */
+  private static final class Replay {
+    private final TraceFile.Cursor cursor;
+
+    /** How many times the trace has been replayed before the current block. */
+    private long pass;
+
+    private Replay(TraceFile.Cursor cursor) {
+      this.cursor = cursor;
+    }
+  }
+
+  @Override
+  public void init(Properties p) throws WorkloadException {
+    String path = p.getProperty(FILE_PROPERTY);
+    if (path == null) {
+      throw new WorkloadException("Missing property " + FILE_PROPERTY);
+    }
+    try {
+      trace = new TraceFile(path);
+    } catch (IOException e) {
+      throw new WorkloadException("Could not open trace " + path, e);
+    }
+    if (trace.getRecordCount() == 0) {
+      throw new WorkloadException("Trace " + path + " is empty");
+    }
+    table = p.getProperty(CoreWorkload.TABLENAME_PROPERTY, CoreWorkload.TABLENAME_PROPERTY_DEFAULT);
+    field = p.getProperty(FIELD_PROPERTY, FIELD_PROPERTY_DEFAULT);
+    fieldLength = Integer.parseInt(p.getProperty(FIELD_LENGTH_PROPERTY, FIELD_LENGTH_PROPERTY_DEFAULT));
+    loop = Boolean.parseBoolean(p.getProperty(LOOP_PROPERTY, LOOP_PROPERTY_DEFAULT));
+    speedup = Double.parseDouble(p.getProperty(SPEEDUP_PROPERTY, SPEEDUP_PROPERTY_DEFAULT));
+    String timing = p.getProperty(TIMING_PROPERTY, TIMING_PROPERTY_DEFAULT);
+    if (timing.equals("original")) {
+      originalTiming = true;
+    } else if (!timing.equals("none")) {
+      throw new WorkloadException("Unknown " + TIMING_PROPERTY + " \"" + timing + "\", use none or original");
+    }
+    if (speedup <= 0) {
+      throw new WorkloadException(SPEEDUP_PROPERTY + " must be positive");
+    }
+
+    TraceFile.Cursor cursor = trace.cursor();
+    cursor.seekBlock(0);
+    cursor.next();
+    firstTimestampUs = cursor.getTimestampUs();
+    cursor.seekBlock(trace.getBlockCount() - 1);
+    long lastTimestampUs = firstTimestampUs;
+    while (cursor.next()) {
+      lastTimestampUs = cursor.getTimestampUs();
+    }
+    // leave one gap of a microsecond between passes of a looped trace
+    passLengthUs = lastTimestampUs - firstTimestampUs + 1;
+  }
+
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    return new Replay(trace.cursor());
+  }
+
+  @Override
+  public void cleanup() throws WorkloadException {
+    try {
+      trace.close();
+    } catch (IOException e) {
+      throw new WorkloadException(e);
+    }
+  }
+
+  @Override
+  public boolean doInsert(DB db, Object threadstate) {
+    Replay replay = (Replay) threadstate;
+    TraceFile.Cursor cursor = replay.cursor;
+    do {
+      if (!advance(replay, false)) {
+        return false;
+      }
+    } while (!cursor.needsLoad());
+    int size = cursor.getOperation() == Operation.UPDATE ? cursor.getSize() : fieldLength;
+    Status status = db.insert(table, cursor.getKey(), values(size));
+    return null != status && status.isOk();
+  }
+
+  @Override
+  public boolean doTransaction(DB db, Object threadstate) {
+    Replay replay = (Replay) threadstate;
+    if (!advance(replay, loop)) {
+      return false;
+    }
+    TraceFile.Cursor cursor = replay.cursor;
+    if (originalTiming) {
+      awaitRecordedTime(replay);
+    }
+
+    String key = cursor.getKey();
+    switch (cursor.getOperation()) {
+    case READ:
+      db.read(table, key, null, new HashMap<String, ByteIterator>());
+      break;
+    case UPDATE:
+      db.update(table, key, values(cursor.getSize()));
+      break;
+    case INSERT:
+      db.insert(table, key, values(cursor.getSize()));
+      break;
+    case SCAN:
+      db.scan(table, key, cursor.getSize(), null, new Vector<HashMap<String, ByteIterator>>());
+      break;
+    default:
+      db.delete(table, key);
+      break;
+    }
+    return true;
+  }
+
+  /**
+   * Moves the cursor of a thread to its next record, claiming a new block when the current one
+   * is done.
+   *
+   * @param again Whether to start over from the beginning when the trace is exhausted.
+   * @return False when the trace is exhausted.
+   */
+  private boolean advance(Replay replay, boolean again) {
+    while (!replay.cursor.next()) {
+      long block = nextBlock.getAndIncrement();
+      if (!again && block >= trace.getBlockCount()) {
+        return false;
+      }
+      replay.pass = block / trace.getBlockCount();
+      replay.cursor.seekBlock(block % trace.getBlockCount());
+    }
+    return true;
+  }
+
+  private void awaitRecordedTime(Replay replay) {
+    startNs.compareAndSet(0, System.nanoTime());
+    long offsetUs = replay.pass * passLengthUs + replay.cursor.getTimestampUs() - firstTimestampUs;
+    long due = startNs.get() + (long) (TimeUnit.MICROSECONDS.toNanos(offsetUs) / speedup);
+    long start = System.nanoTime();
+    long now = start;
+    while (now < due) {
+      LockSupport.parkNanos(due - now);
+      now = System.nanoTime();
+    }
+    Measurements measurements = Measurements.getMeasurements();
+    measurements.addThrottleTimeNs(now - start);
+    measurements.setIntendedStartTimeNs(due);
+  }
+
+  private Map<String, ByteIterator> values(int size) {
+    Map<String, ByteIterator> values = new HashMap<>();
+    values.put(field, new RandomByteIterator(size));
+    return values;
+  }
+}
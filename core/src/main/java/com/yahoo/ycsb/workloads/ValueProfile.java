@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.ByteArrayByteIterator;
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.WorkloadException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The kind of content of generated field values, so that compression ratios and compression
+ * CPU costs of the store resemble those of real data. Selected with the "valueprofile"
+ * property of {@link CoreWorkload}:
+ * <ul>
+ * <li><b>random</b>: random printable bytes from the configured "valuegenerator" (the default,
+ * handled by the workload itself).</li>
+ * <li><b>json</b>: JSON-like documents with recurring field names, words from a small
+ * vocabulary, numbers and booleans, compressing about 3 to 5 times.</li>
+ * <li><b>numeric</b>: comma separated timestamps, counters and decimals, like metrics or
+ * sensor rows.</li>
+ * <li><b>corpus</b>: slices at random offsets of the file given by "valueprofile.corpus", for
+ * the compressibility of a sample of your own data.</li>
+ * </ul>
+ * Values are cut to the length chosen by the field length distribution.
+ */
+public abstract class ValueProfile {
+  /**
+   * The name of the property for the value profile.
+   */
+  public static final String VALUE_PROFILE_PROPERTY = "valueprofile";
+  public static final String VALUE_PROFILE_PROPERTY_DEFAULT = "random";
+
+  /**
+   * The name of the property for the sample file of the corpus profile.
+   */
+  public static final String CORPUS_FILE_PROPERTY = "valueprofile.corpus";
+
+  private static final String[] FIELDS = {
+      "id", "name", "email", "status", "created", "updated", "score", "tags", "active", "count",
+      "city", "country", "owner", "type", "version", "priority",
+  };
+
+  private static final String[] WORDS = {
+      "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet",
+      "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo", "sierra", "tango",
+      "uniform", "victor", "whiskey", "xray", "yankee", "zulu", "pending", "active", "closed",
+      "open", "london", "paris", "berlin", "tokyo", "madrid", "oslo", "admin", "user", "guest",
+      "blue", "green", "red", "small", "large", "primary", "secondary", "internal", "external",
+  };
+
+  /**
+   * Creates the profile configured in the properties.
+   *
+   * @return The profile, or null for random values.
+   */
+  public static ValueProfile create(Properties p) throws WorkloadException {
+    String name = p.getProperty(VALUE_PROFILE_PROPERTY, VALUE_PROFILE_PROPERTY_DEFAULT);
+    switch (name) {
+    case "random":
+      return null;
+    case "json":
+      return new Json();
+    case "numeric":
+      return new Numeric();
+    case "corpus":
+      String file = p.getProperty(CORPUS_FILE_PROPERTY);
+      if (file == null) {
+        throw new WorkloadException("The corpus value profile requires " + CORPUS_FILE_PROPERTY);
+      }
+      try {
+        return new Corpus(Files.readAllBytes(Paths.get(file)));
+      } catch (IOException e) {
+        throw new WorkloadException("Could not read the value corpus " + file, e);
+      }
+    default:
+      throw new WorkloadException("Unknown " + VALUE_PROFILE_PROPERTY + " \"" + name + "\"");
+    }
+  }
+
+  /**
+   * Generates a value of the given length.
+   */
+  public abstract ByteIterator next(int length);
+
+  /**
+   * Fills a fixed size array with text, dropping whatever does not fit.
+   */
+  private static final class Text {
+    private final byte[] out;
+    private int pos;
+
+    private Text(int length) {
+      out = new byte[length];
+    }
+
+    private boolean full() {
+      return pos == out.length;
+    }
+
+    private Text append(String s) {
+      for (int i = 0; i < s.length() && pos < out.length; i++) {
+        out[pos++] = (byte) s.charAt(i);
+      }
+      return this;
+    }
+
+    private Text append(char c) {
+      if (pos < out.length) {
+        out[pos++] = (byte) c;
+      }
+      return this;
+    }
+
+    private Text append(long number) {
+      return append(Long.toString(number));
+    }
+  }
+
+  /**
+   * JSON-like documents.
+   */
+  static final class Json extends ValueProfile {
+    @Override
+    public ByteIterator next(int length) {
+      Random random = ThreadLocalRandom.current();
+      Text text = new Text(length);
+      text.append('{');
+      for (int i = 0; !text.full(); i = (i + 1) % FIELDS.length) {
+        if (i > 0) {
+          text.append(',');
+        }
+        text.append('"').append(FIELDS[i]).append("\":");
+        switch (random.nextInt(4)) {
+        case 0:
+          text.append(random.nextInt(100000));
+          break;
+        case 1:
+          text.append(random.nextBoolean() ? "true" : "false");
+          break;
+        case 2:
+          text.append('[').append('"').append(WORDS[random.nextInt(WORDS.length)]).append("\",\"")
+              .append(WORDS[random.nextInt(WORDS.length)]).append("\"]");
+          break;
+        default:
+          text.append('"').append(WORDS[random.nextInt(WORDS.length)]).append('"');
+        }
+      }
+      return new ByteArrayByteIterator(text.out);
+    }
+  }
+
+  /**
+   * Rows of comma separated numbers.
+   */
+  static final class Numeric extends ValueProfile {
+    @Override
+    public ByteIterator next(int length) {
+      Random random = ThreadLocalRandom.current();
+      Text text = new Text(length);
+      long timestamp = System.currentTimeMillis();
+      while (!text.full()) {
+        timestamp += random.nextInt(1000);
+        text.append(timestamp).append(',')
+            .append(random.nextInt(10000)).append(',')
+            .append(random.nextInt(100)).append('.').append(random.nextInt(1000)).append('\n');
+      }
+      return new ByteArrayByteIterator(text.out);
+    }
+  }
+
+  /**
+   * Slices of a sample file.
+   */
+  static final class Corpus extends ValueProfile {
+    private final byte[] corpus;
+
+    Corpus(byte[] corpus) throws WorkloadException {
+      if (corpus.length == 0) {
+        throw new WorkloadException("The value corpus is empty");
+      }
+      this.corpus = corpus;
+    }
+
+    @Override
+    public ByteIterator next(int length) {
+      byte[] out = new byte[length];
+      int from = ThreadLocalRandom.current().nextInt(corpus.length);
+      for (int pos = 0; pos < length;) {
+        int chunk = Math.min(length - pos, corpus.length - from);
+        System.arraycopy(corpus, from, out, pos, chunk);
+        pos += chunk;
+        from = 0;
+      }
+      return new ByteArrayByteIterator(out);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import java.util.zip.Deflater;
+
+/**
+ * Measures how well generated values compress, for tests of value generators.
+ */
+public final class Compression {
+  private Compression() {
+  }
+
+  /**
+   * The number of bytes the data deflates to.
+   */
+  public static int deflatedSize(byte[] data) {
+    Deflater deflater = new Deflater();
+    deflater.setInput(data);
+    deflater.finish();
+    byte[] out = new byte[data.length * 2];
+    int size = deflater.deflate(out);
+    deflater.end();
+    return size;
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+public class TestArrivalScheduler {
+
+  @Test
+  public void fixedArrivalsAreEvenlySpaced() {
+    ArrivalScheduler scheduler = ArrivalScheduler.fixed(1000, 0);
+    long first = scheduler.next();
+    for (int i = 1; i < 100; i++) {
+      assertEquals(scheduler.next() - first, i * 1000000L);
+    }
+    assertEquals(scheduler.getRemaining(), 0);
+  }
+
+  @Test
+  public void poissonArrivalsHaveTheRequestedMeanRate() {
+    final int count = 100000;
+    ArrivalScheduler scheduler = ArrivalScheduler.poisson(10000, 0);
+    long first = scheduler.next();
+    long last = first;
+    for (int i = 1; i < count; i++) {
+      long next = scheduler.next();
+      assertTrue(next >= last);
+      last = next;
+    }
+    double meanGapUs = (last - first) / 1000.0 / (count - 1);
+    assertTrue(Math.abs(meanGapUs - 100) < 2, "mean gap was " + meanGapUs);
+  }
+
+  @Test
+  public void traceIsReplayedInALoop() {
+    ArrivalScheduler scheduler = ArrivalScheduler.trace(new long[] {10, 20, 30}, 0);
+    long t0 = scheduler.next();
+    assertEquals(scheduler.next() - t0, 10);
+    assertEquals(scheduler.next() - t0, 30);
+    assertEquals(scheduler.next() - t0, 60);
+    assertEquals(scheduler.next() - t0, 70);
+  }
+
+  @Test
+  public void stopsAfterTheOperationCount() {
+    ArrivalScheduler scheduler = ArrivalScheduler.fixed(1000000, 3);
+    assertEquals(scheduler.getRemaining(), 3);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(scheduler.next() != ArrivalScheduler.NO_MORE_ARRIVALS);
+    }
+    assertEquals(scheduler.next(), ArrivalScheduler.NO_MORE_ARRIVALS);
+    assertEquals(scheduler.getRemaining(), 0);
+  }
+
+  @Test
+  public void notConfiguredByDefault() throws Exception {
+    assertNull(ArrivalScheduler.create(new Properties(), 100, 0));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void poissonNeedsATarget() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(ArrivalScheduler.ARRIVAL_PROCESS_PROPERTY, "poisson");
+    ArrivalScheduler.create(p, 0, 0);
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.Test;
+
+public class TestAsyncDB {
+
+  /**
+   * Hands out stages that only complete when the test says so.
+   */
+  static class PendingDB extends AsyncDB {
+    final List<CompletableFuture<Status>> pending = new ArrayList<CompletableFuture<Status>>();
+
+    private CompletionStage<Status> next() {
+      CompletableFuture<Status> f = new CompletableFuture<Status>();
+      pending.add(f);
+      return f;
+    }
+
+    @Override
+    public CompletionStage<Status> read(String table, String key, Set<String> fields,
+                                        Map<String, ByteIterator> result) {
+      return next();
+    }
+
+    @Override
+    public CompletionStage<Status> scan(String table, String startkey, int recordcount, Set<String> fields,
+                                        Vector<HashMap<String, ByteIterator>> result) {
+      return next();
+    }
+
+    @Override
+    public CompletionStage<Status> update(String table, String key, Map<String, ByteIterator> values) {
+      return next();
+    }
+
+    @Override
+    public CompletionStage<Status> insert(String table, String key, Map<String, ByteIterator> values) {
+      return next();
+    }
+
+    @Override
+    public CompletionStage<Status> delete(String table, String key) {
+      return CompletableFuture.completedFuture(Status.NOT_FOUND);
+    }
+  }
+
+  @Test
+  public void blockingViewMapsFailuresToError() {
+    AsyncDB db = new AsyncDB() {
+      @Override
+      public CompletionStage<Status> read(String table, String key, Set<String> fields,
+                                          Map<String, ByteIterator> result) {
+        CompletableFuture<Status> f = new CompletableFuture<Status>();
+        f.completeExceptionally(new RuntimeException("boom"));
+        return f;
+      }
+
+      @Override
+      public CompletionStage<Status> scan(String table, String startkey, int recordcount, Set<String> fields,
+                                          Vector<HashMap<String, ByteIterator>> result) {
+        return CompletableFuture.completedFuture(null);
+      }
+
+      @Override
+      public CompletionStage<Status> update(String table, String key, Map<String, ByteIterator> values) {
+        return CompletableFuture.completedFuture(Status.OK);
+      }
+
+      @Override
+      public CompletionStage<Status> insert(String table, String key, Map<String, ByteIterator> values) {
+        return CompletableFuture.completedFuture(Status.OK);
+      }
+
+      @Override
+      public CompletionStage<Status> delete(String table, String key) {
+        return CompletableFuture.completedFuture(Status.NOT_FOUND);
+      }
+    };
+
+    DB blocking = db.toBlockingDB();
+    assertSame(db.toBlockingDB(), blocking);
+    assertEquals(blocking.read("t", "k", null, new HashMap<String, ByteIterator>()), Status.ERROR);
+    assertEquals(blocking.scan("t", "k", 1, null, new Vector<HashMap<String, ByteIterator>>()), Status.ERROR);
+    assertEquals(blocking.update("t", "k", new HashMap<String, ByteIterator>()), Status.OK);
+    assertEquals(blocking.delete("t", "k"), Status.NOT_FOUND);
+  }
+
+  @Test
+  public void wrapperReportsStatusOnCompletion() throws Exception {
+    Measurements.setProperties(new Properties());
+    PendingDB inner = new PendingDB();
+    AsyncDB db = new AsyncDBWrapper(inner, new Tracer.Builder("TestAsyncDB")
+        .conf(HTraceConfiguration.EMPTY).build());
+    db.init();
+
+    CompletionStage<Status> first = db.read("t", "a", null, new HashMap<String, ByteIterator>());
+    CompletionStage<Status> second = db.update("t", "b", new HashMap<String, ByteIterator>());
+    assertEquals(inner.pending.size(), 2);
+    assertFalse(first.toCompletableFuture().isDone());
+
+    inner.pending.get(1).completeExceptionally(new RuntimeException("boom"));
+    inner.pending.get(0).complete(Status.OK);
+
+    assertEquals(first.toCompletableFuture().get(), Status.OK);
+    assertEquals(second.toCompletableFuture().get(), Status.ERROR);
+    assertTrue(second.toCompletableFuture().isDone());
+  }
+}
@@ -36,4 +36,57 @@ public class TestByteIterator {
     assertFalse(itor.hasNext());
     assertEquals(0, itor.bytesLeft());
   }
+
+  @Test
+  public void testDeterministicByteIterator() {
+    byte[] whole = new DeterministicByteIterator("user1", "field0", 100).toArray();
+    assertEquals(100, whole.length);
+    for (byte b : whole) {
+      assertTrue(b >= '0' && b <= 'o');
+    }
+
+    // byte by byte and in odd sized chunks gives the same sequence
+    ByteIterator itor = new DeterministicByteIterator("user1", "field0", 100);
+    byte[] pieces = new byte[100];
+    pieces[0] = itor.nextByte();
+    pieces[1] = itor.nextByte();
+    pieces[2] = itor.nextByte();
+    int off = 3;
+    while (itor.hasNext()) {
+      byte[] chunk = new byte[13];
+      int end = itor.nextBuf(chunk, 0);
+      System.arraycopy(chunk, 0, pieces, off, end);
+      off += end;
+    }
+    assertEquals(100, off);
+    assertEquals(new String(whole), new String(pieces));
+    assertFalse(new String(whole).equals(new DeterministicByteIterator("user1", "field1", 100).toString()));
+
+    assertTrue(DeterministicByteIterator.verify("user1", "field0", 100, new ByteArrayByteIterator(whole)));
+    assertFalse(DeterministicByteIterator.verify("user2", "field0", 100, new ByteArrayByteIterator(whole)));
+    assertFalse(DeterministicByteIterator.verify("user1", "field0", 101, new ByteArrayByteIterator(whole)));
+    whole[77]++;
+    assertFalse(DeterministicByteIterator.verify("user1", "field0", 100, new ByteArrayByteIterator(whole)));
+  }
+
+  @Test
+  public void testFastRandomByteIterator() {
+    ByteIterator itor = new FastRandomByteIterator(1000);
+    assertEquals(1000, itor.bytesLeft());
+    itor.nextByte();
+    assertEquals(999, itor.toArray().length);
+    assertFalse(itor.hasNext());
+
+    itor.reset();
+    byte[] first = itor.toArray();
+    itor.reset();
+    assertEquals(new String(first), itor.toString());
+    assertFalse(new String(first).equals(new FastRandomByteIterator(1000).toString()));
+
+    byte[] random = new FastRandomByteIterator(64 * 1024).toArray();
+    byte[] compressible = new FastRandomByteIterator(64 * 1024, 4).toArray();
+    assertTrue(Compression.deflatedSize(random) > random.length * 0.7);
+    double ratio = (double) compressible.length / Compression.deflatedSize(compressible);
+    assertTrue("ratio " + ratio, ratio > 3.5 && ratio < 7);
+  }
 }
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+public class TestCoordinator {
+
+  @Test
+  public void sharesCoverTheRangeWithoutOverlap() {
+    long next = 100;
+    long total = 0;
+    for (int i = 0; i < 3; i++) {
+      long[] range = Coordinator.share(100, 1000, i, 3);
+      assertEquals(range[0], next);
+      next = range[0] + range[1];
+      total += range[1];
+    }
+    assertEquals(total, 1000);
+  }
+
+  @Test
+  public void ratesAreSplitBetweenWorkers() {
+    Properties props = new Properties();
+    props.setProperty(Client.OPERATION_COUNT_PROPERTY, "900");
+    props.setProperty(Client.TARGET_PROPERTY, "1000");
+    props.setProperty("phase.ramp.target", "300");
+    Coordinator coordinator = new Coordinator(props);
+    long target = 0;
+    for (int i = 0; i < 3; i++) {
+      List<String> assigned = Arrays.asList(coordinator.assignment(i, 3).split(" "));
+      assertTrue(assigned.contains("operationcount=300"));
+      assertTrue(assigned.contains("phase.ramp.target=100.0"));
+      for (String setting : assigned) {
+        if (setting.startsWith("target=")) {
+          target += Long.parseLong(setting.substring("target=".length()));
+        }
+      }
+    }
+    assertEquals(target, 1000);
+  }
+
+  @Test
+  public void histogramsSurviveTheWire() throws Exception {
+    Histogram histogram = new Histogram(3);
+    for (int i = 1; i <= 1000; i++) {
+      histogram.recordValue(i);
+    }
+    Histogram decoded = CoordinatedWorker.decode(CoordinatedWorker.encode(histogram));
+    assertEquals(decoded.getTotalCount(), 1000);
+    assertEquals(decoded.getValueAtPercentile(99), histogram.getValueAtPercentile(99));
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.Test;
+
+public class TestDBBatch {
+
+  /**
+   * Records the keys it was called with and fails for keys starting with "bad".
+   */
+  static class RecordingDB extends DB {
+    final List<String> calls = new ArrayList<>();
+
+    private Status answer(String op, String key) {
+      calls.add(op + ":" + key);
+      return key.startsWith("bad") ? Status.NOT_FOUND : Status.OK;
+    }
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      result.put("field0", new StringByteIterator(key));
+      return answer("read", key);
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      return answer("update", key);
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      return answer("insert", key);
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return answer("delete", key);
+    }
+  }
+
+  @Test
+  public void defaultBatchReadLoopsOverKeys() {
+    RecordingDB db = new RecordingDB();
+    List<Map<String, ByteIterator>> results = new ArrayList<>();
+    results.add(new HashMap<String, ByteIterator>());
+    results.add(new HashMap<String, ByteIterator>());
+
+    assertEquals(db.batchRead("t", Arrays.asList("a", "b"), null, results), Status.OK);
+    assertEquals(db.calls, Arrays.asList("read:a", "read:b"));
+    assertEquals(results.get(1).get("field0").toString(), "b");
+  }
+
+  @Test
+  public void defaultBatchReportsFirstFailureButRunsAllKeys() {
+    RecordingDB db = new RecordingDB();
+    List<Map<String, ByteIterator>> values = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      values.add(new HashMap<String, ByteIterator>());
+    }
+
+    assertEquals(db.batchUpdate("t", Arrays.asList("a", "bad1", "c"), values), Status.NOT_FOUND);
+    assertEquals(db.batchInsert("t", Arrays.asList("a", "b", "c"), values), Status.OK);
+    assertEquals(db.batchDelete("t", Arrays.asList("bad2", "b")), Status.NOT_FOUND);
+    assertEquals(db.calls, Arrays.asList("update:a", "update:bad1", "update:c",
+        "insert:a", "insert:b", "insert:c", "delete:bad2", "delete:b"));
+  }
+
+  @Test
+  public void wrapperMeasuresTheBatchAndCountsItsKeys() {
+    Measurements.setProperties(new Properties());
+    DB db = new DBWrapper(new RecordingDB(), new Tracer.Builder("TestDBBatch")
+        .conf(HTraceConfiguration.EMPTY).build());
+    List<Map<String, ByteIterator>> values = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      values.add(new HashMap<String, ByteIterator>());
+    }
+
+    assertEquals(db.batchInsert("t", Arrays.asList("a", "b", "c"), values), Status.OK);
+    Measurements measurements = Measurements.getMeasurements();
+    assertEquals(measurements.getKeyCounts().get("BATCH-INSERT").longValue(), 3L);
+    assertEquals(measurements.getStatusCounts().get("BATCH-INSERT").get(Status.OK).intValue(), 1);
+    // the batch latency is not split into made up latencies per key
+    assertFalse(measurements.getStatusCounts().containsKey("INSERT"));
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+public class TestPhaseSchedule {
+
+  private static Properties threePhases() {
+    Properties props = new Properties();
+    props.setProperty(PhaseSchedule.PHASES_PROPERTY, "ramp, steady,free");
+    props.setProperty("readproportion", "0.9");
+    props.setProperty("phase.ramp.duration", "10");
+    props.setProperty("phase.ramp.target", "1000");
+    props.setProperty("phase.ramp.targetend", "3000");
+    props.setProperty("phase.steady.duration", "5");
+    props.setProperty("phase.steady.target", "2000");
+    props.setProperty("phase.steady.readproportion", "0.5");
+    props.setProperty("phase.free.duration", "1");
+    return props;
+  }
+
+  @Test
+  public void phasesAreParsedInOrder() {
+    assertNull(PhaseSchedule.create(new Properties()));
+
+    PhaseSchedule schedule = PhaseSchedule.create(threePhases());
+    assertEquals(schedule.getPhases().size(), 3);
+    assertEquals(schedule.getPhases().get(1).getName(), "steady");
+    assertEquals(schedule.getDurationNs(), 16000000000L);
+    assertTrue(schedule.hasTargets());
+    assertEquals(schedule.getPhases().get(0).getProperties().getProperty("readproportion"), "0.9");
+    assertEquals(schedule.getPhases().get(1).getProperties().getProperty("readproportion"), "0.5");
+    assertTrue(schedule.getPhases().get(1).overrides("readproportion"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void phasesNeedADuration() {
+    Properties props = new Properties();
+    props.setProperty(PhaseSchedule.PHASES_PROPERTY, "a");
+    PhaseSchedule.create(props);
+  }
+
+  @Test
+  public void targetsRampWithinAPhase() {
+    PhaseSchedule schedule = PhaseSchedule.create(threePhases());
+    long start = schedule.start();
+    long second = 1000000000L;
+    assertEquals(schedule.phaseAt(start), 0);
+    assertEquals(schedule.targetAt(start), 1000.0, 1e-6);
+    assertEquals(schedule.targetAt(start + 5 * second), 2000.0, 1e-6);
+    assertEquals(schedule.phaseAt(start + 10 * second), 1);
+    assertEquals(schedule.targetAt(start + 12 * second), 2000.0, 1e-6);
+    assertEquals(schedule.phaseAt(start + 15 * second), 2);
+    assertEquals(schedule.targetAt(start + 15 * second), 0.0);
+    assertEquals(schedule.phaseAt(start + 100 * second), 2);
+  }
+
+  @Test
+  public void arrivalsFollowThePhaseTargets() {
+    PhaseSchedule schedule = PhaseSchedule.create(threePhases());
+    ArrivalScheduler scheduler = ArrivalScheduler.phased(schedule, false, 0);
+    long start = scheduler.next();
+    assertEquals(scheduler.next() - start, 1000000L);
+
+    // 10 seconds ramping from 1000 to 3000 ops/s hold about 20000 arrivals
+    int arrivals = 1;
+    while (scheduler.next() < start + 10000000000L) {
+      arrivals++;
+    }
+    assertTrue(Math.abs(arrivals - 20000) < 100, "arrivals: " + arrivals);
+  }
+}
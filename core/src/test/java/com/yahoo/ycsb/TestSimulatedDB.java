@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.testng.annotations.Test;
+
+public class TestSimulatedDB {
+
+  private static Properties properties(String servers, String queueDepth) {
+    Properties p = new Properties();
+    p.setProperty(SimulatedDB.SERVERS, servers);
+    p.setProperty(SimulatedDB.QUEUE_DEPTH, queueDepth);
+    p.setProperty(SimulatedDB.SERVICE_TIME, "10000");
+    p.setProperty(SimulatedDB.DISTRIBUTION, "constant");
+    p.setProperty(SimulatedDB.MEASURE, "false");
+    return p;
+  }
+
+  @Test
+  public void arrivalsQueueForTheEarliestFreeWorker() throws Exception {
+    SimulatedDB.Server server = new SimulatedDB.Server(properties("2", "1"));
+    long start = System.nanoTime();
+    long first = server.admit("READ");
+    long second = server.admit("READ");
+    long third = server.admit("READ");
+    assertEquals(server.admit("READ"), SimulatedDB.Server.REJECTED);
+
+    long service = TimeUnit.MILLISECONDS.toNanos(10);
+    assertTrue(first - start >= service && first - start < 2 * service);
+    assertTrue(second - start >= service && second - start < 2 * service);
+    // the third waits for one of the first two
+    assertTrue(third - Math.min(first, second) >= service);
+
+    server.leave();
+    assertTrue(server.admit("READ") - third >= 0);
+  }
+
+  @Test
+  public void syncAndAsyncOperationsTakeTheModeledTime() throws Exception {
+    Properties p = properties("1", "-1");
+    p.setProperty(SimulatedDB.MEASURE, "true");
+    Measurements.setProperties(p);
+
+    SimulatedDB db = new SimulatedDB();
+    db.setProperties(p);
+    db.init();
+    SimulatedAsyncDB async = new SimulatedAsyncDB();
+    async.setProperties(p);
+    async.init();
+
+    long start = System.nanoTime();
+    assertEquals(db.update("t", "k", new HashMap<String, ByteIterator>()), Status.OK);
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(10));
+
+    // both share the single worker so the second async operation queues behind the first
+    start = System.nanoTime();
+    CompletableFuture<Status> a = async.insert("t", "a", null).toCompletableFuture();
+    CompletableFuture<Status> b = async.insert("t", "b", null).toCompletableFuture();
+    assertEquals(a.get(), Status.OK);
+    assertEquals(b.get(), Status.OK);
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+
+    async.cleanup();
+    db.cleanup();
+
+    // the summary of the model goes out with the other measurements
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TextMeasurementsExporter exporter = new TextMeasurementsExporter(out);
+    Measurements.getMeasurements().exportMeasurements(exporter);
+    exporter.close();
+    String exported = out.toString("UTF-8");
+    assertTrue(exported.contains("[SIMULATED], Operations, 3"), exported);
+    assertTrue(exported.contains("[SIMULATED], Rejected, 0"), exported);
+  }
+
+  @Test
+  public void interruptedOperationsKeepTheInterrupt() throws Exception {
+    SimulatedDB db = new SimulatedDB();
+    db.setProperties(properties("1", "-1"));
+    db.init();
+    try {
+      Thread.currentThread().interrupt();
+      long start = System.nanoTime();
+      assertEquals(db.read("t", "k", null, new HashMap<String, ByteIterator>()), Status.OK);
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(10));
+      assertTrue(Thread.interrupted());
+    } finally {
+      db.cleanup();
+    }
+  }
+}
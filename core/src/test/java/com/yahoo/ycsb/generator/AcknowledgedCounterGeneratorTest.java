@@ -16,6 +16,10 @@
  */
 package com.yahoo.ycsb.generator;
 
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -32,7 +36,7 @@ public class AcknowledgedCounterGeneratorTest {
    */
   @Test
   public void testIncrementPastIntegerMaxValue() {
-    final long toTry = AcknowledgedCounterGenerator.WINDOW_SIZE * 3;
+    final long toTry = AcknowledgedCounterGenerator.SEGMENT_SIZE * 48L;
 
     AcknowledgedCounterGenerator generator =
         new AcknowledgedCounterGenerator(Integer.MAX_VALUE - 1000);
@@ -58,4 +62,43 @@ public class AcknowledgedCounterGeneratorTest {
     }
 
   }
+
+  /**
+   * Test that many outstanding values, acknowledged concurrently and out of order, neither
+   * fail nor hold the limit back once they are all acknowledged.
+   */
+  @Test
+  public void testConcurrentOutOfOrderAcknowledgements() throws Exception {
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(10);
+    final int threads = 4;
+    // more than the old fixed window of 2^20 outstanding values
+    final int perThread = 1 << 19;
+    final long[][] values = new long[threads][perThread];
+    for (int i = 0; i < perThread; i++) {
+      for (int t = 0; t < threads; t++) {
+        values[t][i] = generator.nextValue();
+      }
+    }
+    assertEquals(generator.lastValue().longValue(), 9L);
+
+    List<Thread> workers = new ArrayList<Thread>();
+    for (int t = 0; t < threads; t++) {
+      final long[] mine = values[t];
+      Thread worker = new Thread() {
+        @Override
+        public void run() {
+          // acknowledge newest first, so almost everything stays outstanding until the end
+          for (int i = mine.length - 1; i >= 0; i--) {
+            generator.acknowledge(mine[i]);
+          }
+        }
+      };
+      worker.start();
+      workers.add(worker);
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    assertEquals(generator.lastValue().longValue(), 10L + threads * perThread - 1);
+  }
 }
@@ -55,6 +55,16 @@ public class TestIncrementingPrintableStringGenerator {
     assertEquals(gen.lastValue(), "AA");
   }
   
+  @Test
+  public void valueAtMatchesTheSequence() throws Exception {
+    final IncrementingPrintableStringGenerator gen = 
+        new IncrementingPrintableStringGenerator(3, ATOC);
+    for (int i = 0; i < 30; i++) {
+      assertEquals(gen.valueAt(i), gen.nextValue());
+    }
+    assertEquals(gen.valueAt(0), "AAA");
+  }
+  
   @Test
   public void rolloverOneCharacterOK() throws Exception {
     // It would be silly to create a generator with one character.
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class TestShiftingHotspotGenerator {
+  private static final long SECOND = 1000000000L;
+
+  @Test
+  public void hotSetJumpsOncePerPeriod() {
+    // 100 items, hot set of 10 moving by 5 every second
+    ShiftingHotspotGenerator generator = new ShiftingHotspotGenerator(0, 99, 0.1, 0.9, 1000, 0.5, false);
+    assertEquals(generator.getHotSetSize(), 10);
+    assertEquals(generator.hotSetStart(0), 0);
+    assertEquals(generator.hotSetStart(SECOND - 1), 0);
+    assertEquals(generator.hotSetStart(SECOND), 5);
+    assertEquals(generator.hotSetStart(3 * SECOND), 15);
+    // wraps around at the upper bound
+    assertEquals(generator.hotSetStart(21 * SECOND), 5);
+  }
+
+  @Test
+  public void hotSetDriftsContinuously() {
+    ShiftingHotspotGenerator generator = new ShiftingHotspotGenerator(0, 99, 0.1, 0.9, 1000, 0.0, true);
+    assertEquals(generator.hotSetStart(SECOND / 2), 5);
+    assertEquals(generator.hotSetStart(SECOND), 10);
+    assertEquals(generator.hotSetStart(SECOND + SECOND / 10), 11);
+  }
+
+  @Test
+  public void operationsFollowTheHotSet() {
+    ShiftingHotspotGenerator generator = new ShiftingHotspotGenerator(1000, 1999, 0.1, 0.9, 1000, 0.0, false);
+    Random random = new Random(42);
+    int[] hot = new int[2];
+    for (int i = 0; i < 10000; i++) {
+      long before = generator.valueAt(0, random);
+      long after = generator.valueAt(2 * SECOND, random);
+      assertTrue(before >= 1000 && before <= 1999);
+      assertTrue(after >= 1000 && after <= 1999);
+      hot[0] += before < 1100 ? 1 : 0;
+      hot[1] += after >= 1200 && after < 1300 ? 1 : 0;
+    }
+    assertTrue(Math.abs(hot[0] - 9000) < 300, "hot before: " + hot[0]);
+    assertTrue(Math.abs(hot[1] - 9000) < 300, "hot after: " + hot[1]);
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class TestZetaCache {
+
+  private static double loop(long n, double theta) {
+    double sum = 0;
+    for (long i = 0; i < n; i++) {
+      sum += 1 / Math.pow(i + 1, theta);
+    }
+    return sum;
+  }
+
+  @AfterMethod
+  public void reset() {
+    ZetaCache.setCacheFile(null);
+    ZetaCache.clear();
+  }
+
+  @Test
+  public void parallelSumMatchesTheLoop() {
+    long n = 3000007;
+    assertEquals(ZetaCache.sum(0, n, 0.99), loop(n, 0.99), 1e-9);
+    assertEquals(ZetaCache.sum(1000, n, 0.5), loop(n, 0.5) - loop(1000, 0.5), 1e-6);
+  }
+
+  @Test
+  public void derivesValuesFromTheNearestKnownOne() {
+    ZetaCache.setCacheFile(null);
+    ZetaCache.clear();
+    assertEquals(ZetaCache.zeta(2000000, 0.99), loop(2000000, 0.99), 1e-9);
+    // extended from 2000000 and reduced from it
+    assertEquals(ZetaCache.zeta(2000100, 0.99), loop(2000100, 0.99), 1e-9);
+    assertEquals(ZetaCache.zeta(1999000, 0.99), loop(1999000, 0.99), 1e-9);
+  }
+
+  @Test
+  public void valuesSurviveInTheCacheFile() throws Exception {
+    File file = File.createTempFile("zeta", ".cache");
+    file.deleteOnExit();
+    ZetaCache.setCacheFile(file.getPath());
+    ZetaCache.clear();
+    long n = ZetaCache.PERSIST_MIN_ITEMS;
+    double zeta = ZetaCache.zeta(n, 0.8);
+    assertEquals(Files.readAllLines(file.toPath()).size(), 1);
+
+    // a bogus value proves the next lookup is served from the file
+    Files.write(file.toPath(), (ZetaCache.record(n, 0.8, 42.0) + "\n").getBytes("UTF-8"));
+    ZetaCache.clear();
+    assertEquals(ZetaCache.zeta(n, 0.8), 42.0);
+    assertEquals(ZetaCache.zeta(n + 10, 0.8), 42.0 + (loop(n + 10, 0.8) - zeta), 1e-6);
+  }
+
+  @Test
+  public void damagedLinesAreIgnored() throws Exception {
+    File file = File.createTempFile("zeta", ".cache");
+    file.deleteOnExit();
+    String record = ZetaCache.record(2000000, 0.99, 42.0);
+    // a truncated last line and one without a checksum still parse as numbers
+    Files.write(file.toPath(), (record.substring(0, record.lastIndexOf(' ') - 2) + "\n0.99 2000000 42.0\n")
+        .getBytes("UTF-8"));
+    ZetaCache.setCacheFile(file.getPath());
+    ZetaCache.clear();
+    assertEquals(ZetaCache.zeta(2000000, 0.99), loop(2000000, 0.99), 1e-9);
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Scanner;
+
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+public class TestIntervalHistogramSinks {
+
+  @Test
+  public void intervalsAreLoggedAndReplayed() throws Exception {
+    File log = File.createTempFile("intervals", ".hlog");
+    log.deleteOnExit();
+    Properties props = new Properties();
+    props.setProperty(Measurements.INTERVAL_LOG_PROPERTY, log.getPath());
+    Measurements measurements = new Measurements(props);
+
+    measurements.measure("READ", 10);
+    measurements.measure("READ", 20);
+    measurements.getSummary();
+    measurements.measure("READ", 1000);
+    measurements.measure("UPDATE", 5);
+    MeasurementsExporter exporter = new TextMeasurementsExporter(new ByteArrayOutputStream());
+    measurements.exportMeasurements(exporter);
+
+    final List<String> names = new ArrayList<>();
+    final List<Long> counts = new ArrayList<>();
+    IntervalHistogramLog.replay(log.getPath(), new IntervalHistogramSink() {
+      @Override
+      public void write(String name, long timestampMs, Histogram interval) {
+        names.add(name);
+        counts.add(interval.getTotalCount());
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+
+    long reads = 0;
+    for (int i = 0; i < names.size(); i++) {
+      if (names.get(i).equals("READ")) {
+        reads += counts.get(i);
+      }
+    }
+    assertEquals(reads, 3);
+    assertTrue(names.contains("UPDATE"));
+    assertEquals(names.get(0), "READ");
+    assertEquals((long) counts.get(0), 2);
+  }
+
+  @Test
+  public void prometheusServesTheLastInterval() throws Exception {
+    PrometheusEndpoint endpoint = new PrometheusEndpoint(0);
+    try {
+      Histogram interval = new Histogram(3);
+      interval.recordValue(100);
+      interval.recordValue(300);
+      endpoint.write("READ", System.currentTimeMillis(), interval);
+      endpoint.write("READ", System.currentTimeMillis(), interval);
+      endpoint.flush();
+
+      HttpURLConnection connection = (HttpURLConnection)
+          new URL("http://localhost:" + endpoint.getPort() + "/metrics").openConnection();
+      String body;
+      try (InputStream in = connection.getInputStream();
+           Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name()).useDelimiter("\\A")) {
+        body = scanner.next();
+      }
+      assertTrue(body.contains("ycsb_latency_us_count{operation=\"READ\"} 4"), body);
+      assertTrue(body.contains("ycsb_latency_us{operation=\"READ\",quantile=\"0.99\"} 300"), body);
+      assertTrue(body.contains("ycsb_latency_max_us{operation=\"READ\"} 300"), body);
+    } finally {
+      endpoint.close();
+    }
+  }
+
+  @Test
+  public void measurementsLeaveThePrometheusPortToTheClient() throws Exception {
+    PrometheusEndpoint endpoint = new PrometheusEndpoint(0);
+    try {
+      Properties props = new Properties();
+      props.setProperty(Measurements.PROMETHEUS_PORT_PROPERTY, String.valueOf(endpoint.getPort()));
+      // rebuilding the measurements must not bind the port again
+      new Measurements(props);
+      Measurements measurements = new Measurements(props);
+      measurements.addIntervalSink(endpoint);
+      measurements.measure("READ", 100);
+      measurements.exportMeasurements(new TextMeasurementsExporter(new ByteArrayOutputStream()));
+
+      // the export flushed the last interval and left the endpoint running
+      HttpURLConnection connection = (HttpURLConnection)
+          new URL("http://localhost:" + endpoint.getPort() + "/metrics").openConnection();
+      try (InputStream in = connection.getInputStream();
+           Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name()).useDelimiter("\\A")) {
+        String body = scanner.next();
+        assertTrue(body.contains("ycsb_latency_us_count{operation=\"READ\"} 1"), body);
+      }
+    } finally {
+      endpoint.close();
+    }
+  }
+}
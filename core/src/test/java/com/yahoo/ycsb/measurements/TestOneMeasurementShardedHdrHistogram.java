@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.testng.annotations.Test;
+
+public class TestOneMeasurementShardedHdrHistogram {
+
+  /**
+   * Collects the exported values by measurement name.
+   */
+  static class MapExporter implements MeasurementsExporter {
+    final Map<String, Number> values = new HashMap<>();
+
+    @Override
+    public void write(String metric, String measurement, int i) {
+      values.put(measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, long i) {
+      values.put(measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, double d) {
+      values.put(measurement, d);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @Test
+  public void mergesAllThreads() throws Exception {
+    final OneMeasurementShardedHdrHistogram m = new OneMeasurementShardedHdrHistogram("READ", new Properties());
+    final int threads = 8;
+    final int perThread = 10000;
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int latency = (t + 1) * 100;
+      workers[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < perThread; i++) {
+            m.measure(latency);
+          }
+        }
+      };
+      workers[t].start();
+    }
+    for (Thread t : workers) {
+      t.join();
+    }
+
+    assertTrue(m.getSummary().contains("Count=" + threads * perThread));
+
+    // more values after the first interval must be added to the totals
+    m.measure(5);
+    MapExporter exporter = new MapExporter();
+    m.exportMeasurements(exporter);
+    assertEquals(exporter.values.get("Operations").longValue(), threads * perThread + 1L);
+    assertEquals(exporter.values.get("MinLatency(us)").longValue(), 5L);
+    assertEquals(exporter.values.get("MaxLatency(us)").longValue(), 800L);
+  }
+
+  @Test
+  public void selectedByMeasurementType() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "shardedhdrhistogram");
+    Measurements mm = new Measurements(props);
+    mm.measure("UPDATE", 42);
+    MapExporter exporter = new MapExporter();
+    mm.exportMeasurements(exporter);
+    assertEquals(exporter.values.get("Operations").longValue(), 1L);
+  }
+}
@@ -16,12 +16,28 @@
  */
 package com.yahoo.ycsb.workloads;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.testng.annotations.Test;
 
+import com.yahoo.ycsb.AsyncDB;
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.WorkloadException;
 import com.yahoo.ycsb.generator.DiscreteGenerator;
 
 public class TestCoreWorkload {
@@ -67,4 +83,172 @@ public class TestCoreWorkload {
   public void createOperationChooserNullProperties() {
     CoreWorkload.createOperationGenerator(null);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void bulkLoadSplitsTheInsertRangeIntoSortedBatches() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "23");
+    p.setProperty(Client.DO_TRANSACTIONS_PROPERTY, "false");
+    p.setProperty(CoreWorkload.BULK_LOAD_PROPERTY, "true");
+    p.setProperty(CoreWorkload.BULK_LOAD_BATCH_SIZE_PROPERTY, "5");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "1");
+    CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final List<List<String>> batches = new ArrayList<>();
+    DB db = new DB() {
+      @Override
+      public Status bulkLoad(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+        assertEquals(values.size(), keys.size());
+        batches.add(new ArrayList<>(keys));
+        return Status.OK;
+      }
+
+      @Override
+      public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+        return Status.NOT_IMPLEMENTED;
+      }
+
+      @Override
+      public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                         Vector<HashMap<String, ByteIterator>> result) {
+        return Status.NOT_IMPLEMENTED;
+      }
+
+      @Override
+      public Status update(String table, String key, Map<String, ByteIterator> values) {
+        return Status.NOT_IMPLEMENTED;
+      }
+
+      @Override
+      public Status insert(String table, String key, Map<String, ByteIterator> values) {
+        return Status.NOT_IMPLEMENTED;
+      }
+
+      @Override
+      public Status delete(String table, String key) {
+        return Status.NOT_IMPLEMENTED;
+      }
+    };
+
+    // two threads with 12 and 11 records, loaded in batches of 5, 5, 2 and 5, 5, 1
+    for (int thread = 0; thread < 2; thread++) {
+      Object state = workload.initThread(p, thread, 2);
+      int inserts = 0;
+      while (workload.doInsert(db, state)) {
+        inserts++;
+      }
+      assertEquals(inserts, 12 - thread);
+    }
+    workload.cleanup();
+
+    Set<String> keys = new HashSet<>();
+    int[] sizes = new int[batches.size()];
+    for (int i = 0; i < batches.size(); i++) {
+      List<String> batch = batches.get(i);
+      sizes[i] = batch.size();
+      for (int k = 1; k < batch.size(); k++) {
+        assertTrue(batch.get(k - 1).compareTo(batch.get(k)) < 0);
+      }
+      keys.addAll(batch);
+    }
+    assertEquals(sizes, new int[] {5, 5, 2, 5, 5, 1});
+    assertEquals(keys.size(), 23);
+  }
+
+  @Test(expectedExceptions = WorkloadException.class)
+  public void orderedBulkLoadNeedsPaddingForTheLargestKey() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "23");
+    p.setProperty(Client.DO_TRANSACTIONS_PROPERTY, "false");
+    p.setProperty(CoreWorkload.BULK_LOAD_PROPERTY, "true");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    new CoreWorkload().init(p);
+  }
+
+  /**
+   * Records the keys it is asked to read, update or insert.
+   */
+  private static final class RecordingAsyncDB extends AsyncDB {
+    private final List<String> reads = new ArrayList<>();
+    private final List<String> updates = new ArrayList<>();
+    private final List<String> inserts = new ArrayList<>();
+
+    @Override
+    public CompletionStage<Status> read(String table, String key, Set<String> fields,
+                                        Map<String, ByteIterator> result) {
+      reads.add(key);
+      return CompletableFuture.completedFuture(Status.OK);
+    }
+
+    @Override
+    public CompletionStage<Status> scan(String table, String startkey, int recordcount, Set<String> fields,
+                                        Vector<HashMap<String, ByteIterator>> result) {
+      return CompletableFuture.completedFuture(Status.NOT_IMPLEMENTED);
+    }
+
+    @Override
+    public CompletionStage<Status> update(String table, String key, Map<String, ByteIterator> values) {
+      updates.add(key);
+      return CompletableFuture.completedFuture(Status.OK);
+    }
+
+    @Override
+    public CompletionStage<Status> insert(String table, String key, Map<String, ByteIterator> values) {
+      inserts.add(key);
+      return CompletableFuture.completedFuture(Status.OK);
+    }
+
+    @Override
+    public CompletionStage<Status> delete(String table, String key) {
+      return CompletableFuture.completedFuture(Status.NOT_IMPLEMENTED);
+    }
+  }
+
+  @Test
+  public void asyncTransactionsIssueEveryKeyOfABatch() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "100");
+    p.setProperty(CoreWorkload.BATCH_SIZE_PROPERTY, "4");
+    p.setProperty(CoreWorkload.LOW_ALLOCATION_PROPERTY, "true");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0.5");
+    CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    RecordingAsyncDB db = new RecordingAsyncDB();
+    Object state = workload.initThread(p, 0, 1);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(workload.doTransactionAsync(db, state).toCompletableFuture().get());
+    }
+    workload.cleanup();
+
+    assertEquals(db.reads.size() + db.updates.size(), 40);
+    assertEquals(db.reads.size() % 4, 0);
+  }
+
+  @Test
+  public void asyncBulkLoadInsertsTheSortedBatchesKeyByKey() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "12");
+    p.setProperty(Client.DO_TRANSACTIONS_PROPERTY, "false");
+    p.setProperty(CoreWorkload.BULK_LOAD_PROPERTY, "true");
+    p.setProperty(CoreWorkload.BULK_LOAD_BATCH_SIZE_PROPERTY, "5");
+    CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    RecordingAsyncDB db = new RecordingAsyncDB();
+    Object state = workload.initThread(p, 0, 1);
+    int inserts = 0;
+    while (workload.doInsertAsync(db, state).toCompletableFuture().get()) {
+      inserts++;
+    }
+    workload.cleanup();
+
+    assertEquals(inserts, 12);
+    assertEquals(new HashSet<>(db.inserts).size(), 12);
+    for (int k = 1; k < 5; k++) {
+      assertTrue(db.inserts.get(k - 1).compareTo(db.inserts.get(k)) < 0);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * Measures the bytes allocated per transaction by {@link CoreWorkload} with and without the
+ * lowallocation mode, using the per-thread allocation counter of the HotSpot JVM.
+ */
+public class TestCoreWorkloadAllocation {
+  private static final int WARMUP_OPS = 200000;
+  private static final int MEASURED_OPS = 200000;
+
+  /**
+   * Drains every value into a fixed buffer like a binding serializing it would, and
+   * returns without keeping any reference.
+   */
+  static class DrainingDB extends DB {
+    private final byte[] buf = new byte[1024];
+
+    private void drain(Map<String, ByteIterator> values) {
+      for (ByteIterator value : values.values()) {
+        while (value.hasNext()) {
+          value.nextBuf(buf, 0);
+        }
+      }
+    }
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      return Status.OK;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return Status.OK;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      drain(values);
+      return Status.OK;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      drain(values);
+      return Status.OK;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return Status.OK;
+    }
+  }
+
+  private static long bytesPerOp(boolean lowAllocation) throws Exception {
+    Properties p = new Properties();
+    p.setProperty("recordcount", "100000");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.REQUEST_DISTRIBUTION_PROPERTY, "uniform");
+    p.setProperty(CoreWorkload.LOW_ALLOCATION_PROPERTY, String.valueOf(lowAllocation));
+    Measurements.setProperties(p);
+
+    CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    DB db = new DrainingDB();
+    Object state = workload.initThread(p, 0, 1);
+
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+
+    for (int i = 0; i < WARMUP_OPS; i++) {
+      workload.doTransaction(db, state);
+    }
+    long before = bean.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < MEASURED_OPS; i++) {
+      workload.doTransaction(db, state);
+    }
+    long after = bean.getThreadAllocatedBytes(thread);
+    workload.cleanup();
+    return (after - before) / MEASURED_OPS;
+  }
+
+  @Test
+  public void lowAllocationModeAllocatesLessPerOperation() throws Exception {
+    if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)
+        || !((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .isThreadAllocatedMemoryEnabled()) {
+      throw new SkipException("per-thread allocation accounting is not available on this JVM");
+    }
+    long regular = bytesPerOp(false);
+    long reduced = bytesPerOp(true);
+    assertTrue(reduced * 2 < regular, "bytes allocated per operation: default=" + regular
+        + ", lowallocation=" + reduced);
+  }
+}
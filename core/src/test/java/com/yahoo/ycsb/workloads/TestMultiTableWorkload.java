@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.PhaseSchedule;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.Measurements;
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+public class TestMultiTableWorkload {
+
+  @Test
+  public void tablesLoadTheirRecordsAndShareTheTransactions() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(MultiTableWorkload.TABLES_PROPERTY, "small,large");
+    p.setProperty("recordcount", "10");
+    p.setProperty("fieldcount", "2");
+    p.setProperty("readproportion", "1");
+    p.setProperty("updateproportion", "0");
+    p.setProperty("table.small.fieldcount", "1");
+    p.setProperty("table.small.proportion", "3");
+    p.setProperty("table.large.recordcount", "30");
+    MultiTableWorkload workload = new MultiTableWorkload();
+    workload.init(p);
+    Object state = workload.initThread(p, 0, 1);
+
+    TableDB db = new TableDB();
+    for (int i = 0; i < 40; i++) {
+      assertTrue(workload.doInsert(db, state));
+    }
+    assertFalse(workload.doInsert(db, state));
+    assertEquals(db.inserts.get("small").intValue(), 10);
+    assertEquals(db.inserts.get("large").intValue(), 30);
+    assertEquals(db.fields.get("small").intValue(), 1);
+    assertEquals(db.fields.get("large").intValue(), 2);
+
+    for (int i = 0; i < 4000; i++) {
+      assertTrue(workload.doTransaction(db, state));
+    }
+    int small = db.reads.get("small");
+    assertEquals(small + db.reads.get("large"), 4000);
+    assertTrue(small > 2800 && small < 3200, "reads of small " + small);
+    workload.cleanup();
+  }
+
+  @Test
+  public void phasesKeepTheTableOverrides() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(MultiTableWorkload.TABLES_PROPERTY, "reads,updates");
+    p.setProperty("recordcount", "10");
+    p.setProperty("readproportion", "0");
+    p.setProperty("updateproportion", "1");
+    p.setProperty("table.reads.readproportion", "1");
+    p.setProperty("table.reads.updateproportion", "0");
+    p.setProperty(PhaseSchedule.PHASES_PROPERTY, "steady");
+    p.setProperty("phase.steady.duration", "60");
+    PhaseSchedule.setCurrent(PhaseSchedule.create(p));
+    try {
+      MultiTableWorkload workload = new MultiTableWorkload();
+      workload.init(p);
+      Object state = workload.initThread(p, 0, 1);
+      TableDB db = new TableDB();
+      for (int i = 0; i < 100; i++) {
+        assertTrue(workload.doTransaction(db, state));
+      }
+      assertEquals(db.reads.get("reads").intValue() + db.updates.get("updates").intValue(), 100);
+      assertFalse(db.reads.containsKey("updates"));
+      assertFalse(db.updates.containsKey("reads"));
+      workload.cleanup();
+    } finally {
+      PhaseSchedule.setCurrent(null);
+    }
+  }
+
+  @Test
+  public void latenciesAreAlsoRecordedPerTable() {
+    Measurements measurements = new Measurements(new Properties());
+    measurements.measure("READ", "small", 10);
+    assertFalse(measurements.getIntervalHistograms().containsKey("READ@small"));
+    measurements.setPerTable();
+    measurements.measure("READ", "small", 10);
+    measurements.measure("READ", "large", 20);
+    Map<String, Histogram> histograms = measurements.getIntervalHistograms();
+    // the first call took the interval with the first latency
+    assertEquals(histograms.get("READ").getTotalCount(), 2);
+    assertEquals(histograms.get("READ@small").getTotalCount(), 1);
+    assertEquals(histograms.get("READ@large").getMaxValue(), 20);
+  }
+
+  static class TableDB extends DB {
+    private final Map<String, Integer> inserts = new HashMap<>();
+    private final Map<String, Integer> fields = new HashMap<>();
+    private final Map<String, Integer> reads = new HashMap<>();
+    private final Map<String, Integer> updates = new HashMap<>();
+
+    @Override
+    public Status read(String table, String key, Set<String> fieldset, Map<String, ByteIterator> result) {
+      reads.merge(table, 1, Integer::sum);
+      return Status.OK;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fieldset,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return Status.OK;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      updates.merge(table, 1, Integer::sum);
+      return Status.OK;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      inserts.merge(table, 1, Integer::sum);
+      fields.put(table, values.size());
+      return Status.OK;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return Status.OK;
+    }
+  }
+}
@@ -19,28 +19,38 @@ package com.yahoo.ycsb.workloads;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.TreeMap;
 import java.util.Vector;
 
+import com.yahoo.ycsb.BasicDB;
+import com.yahoo.ycsb.BasicTSDB;
 import com.yahoo.ycsb.ByteIterator;
 import com.yahoo.ycsb.Client;
 import com.yahoo.ycsb.DB;
 import com.yahoo.ycsb.NumericByteIterator;
 import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.StringByteIterator;
+import com.yahoo.ycsb.TimeseriesAdapter;
+import com.yahoo.ycsb.TimeseriesDB;
+import com.yahoo.ycsb.TimeseriesPoint;
+import com.yahoo.ycsb.TimeseriesQuery;
 import com.yahoo.ycsb.Utils;
 import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.generator.IncrementingPrintableStringGenerator;
 import com.yahoo.ycsb.measurements.Measurements;
 
 import org.testng.annotations.Test;
@@ -485,6 +495,162 @@ public class TestTimeSeriesWorkload {
     } catch (WorkloadException e) { }
   }
   
+  @Test
+  public void timeseriesDBGetsTypedOperations() throws Exception {
+    final Properties p = getUTProperties();
+    p.put(TimeSeriesWorkload.QUERY_TIMESPAN_PROPERTY, "120");
+    final TimeSeriesWorkload wl = getWorkload(p, true);
+    final Object threadState = wl.initThread(p, 0, 1);
+    final RecordingTSDB db = new RecordingTSDB();
+    db.setProperties(p);
+    db.init();
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(wl.doInsert(db, threadState));
+    }
+    assertEquals(db.inserts, 5);
+    assertEquals(db.lastTimestamp, 1451606460L);
+    assertEquals(db.lastTags.keySet().toString(), "[AA, AB]");
+
+    wl.doTransactionScan(db, threadState);
+    assertEquals(db.scans, 1);
+    assertEquals(db.lastEnd - db.lastTimestamp, 120);
+    assertEquals(db.lastTags.get("AA").toString(), "[AAAA]");
+
+    // the same query encoded for a plain DB parses back to the same call
+    final TimeseriesQuery query = wl.nextQuery((TimeSeriesWorkload.ThreadState) threadState, "AAAA", 1);
+    final Set<String> fields = new TimeseriesAdapter(db, p).fields(query, true);
+    assertEquals(db.scan("usertable", "AAAA", 0, fields, new Vector<HashMap<String, ByteIterator>>()), Status.OK);
+    assertEquals(db.lastTimestamp, query.getStartTimestamp());
+    assertEquals(db.lastEnd, query.getEndTimestamp());
+    assertEquals(db.lastTags, query.getTags());
+
+    // updates reach an overridden update()
+    wl.doTransactionUpdate(db, threadState);
+    assertEquals(db.updates, 1);
+    assertNotNull(db.lastTags.get(TimeSeriesWorkload.TIMESTAMP_KEY_PROPERTY_DEFAULT));
+  }
+  
+  @Test
+  public void adapterKeepsTheConfiguredFunctions() throws Exception {
+    final Properties p = getUTProperties();
+    p.put(TimeSeriesWorkload.QUERY_TIMESPAN_PROPERTY, "120");
+    p.put(TimeSeriesWorkload.GROUPBY_PROPERTY, "avg");
+    p.put(TimeSeriesWorkload.GROUPBY_KEYS_PROPERTY, "0,1");
+    p.put(TimeSeriesWorkload.DOWNSAMPLING_FUNCTION_PROPERTY, "sum");
+    p.put(TimeSeriesWorkload.DOWNSAMPLING_INTERVAL_PROPERTY, "60");
+    final TimeSeriesWorkload wl = getWorkload(p, true);
+    final Object threadState = wl.initThread(p, 0, 1);
+    final TimeseriesQuery query = wl.nextQuery((TimeSeriesWorkload.ThreadState) threadState, "AAAA", 1);
+    final TimeseriesAdapter adapter = new TimeseriesAdapter(new MockDB(), p);
+    assertTrue(adapter.fields(query, false).contains("YCSBGB=avg"));
+    assertTrue(adapter.fields(query, false).contains("YCSBDS=sum60"));
+    assertTrue(adapter.fields(query, true).contains("YCSBDS=sum=60"));
+  }
+  
+  @Test
+  public void insertsAreBatched() throws Exception {
+    final Properties p = getUTProperties();
+    p.put(TimeSeriesWorkload.INSERT_BATCH_SIZE_PROPERTY, "3");
+    final TimeSeriesWorkload wl = getWorkload(p, true);
+    final Object threadState = wl.initThread(p, 0, 1);
+    final RecordingTSDB tsdb = new RecordingTSDB();
+    tsdb.setProperties(p);
+    tsdb.init();
+    for (int i = 0; i < 7; i++) {
+      assertTrue(wl.doInsert(tsdb, threadState));
+    }
+    assertEquals(tsdb.inserts, 6);
+    wl.finishThread(tsdb, threadState);
+    assertEquals(tsdb.inserts, 7);
+
+    // plain DBs get the batch through batchInsert
+    final Object plainState = wl.initThread(p, 0, 1);
+    final MockDB db = new MockDB();
+    for (int i = 0; i < 4; i++) {
+      assertTrue(wl.doInsert(db, plainState));
+    }
+    wl.finishThread(db, plainState);
+    assertEquals(db.keys.size(), 4);
+    assertNotNull(db.values.get(3).get(TimeSeriesWorkload.TIMESTAMP_KEY_PROPERTY_DEFAULT));
+  }
+  
+  @Test
+  public void batchesAreDueWithTheirFirstPoint() throws Exception {
+    final Properties p = getUTProperties();
+    p.put(TimeSeriesWorkload.INSERT_BATCH_SIZE_PROPERTY, "3");
+    p.put(Measurements.MEASUREMENT_INTERVAL, "both");
+    final TimeSeriesWorkload wl = getWorkload(p, true);
+    final Object threadState = wl.initThread(p, 0, 1);
+    final RecordingTSDB tsdb = new RecordingTSDB();
+    tsdb.setProperties(p);
+    tsdb.init();
+    // the singleton may have been created by an earlier test without intended times
+    final Measurements measurements = new Measurements(p);
+    wl.measurements = measurements;
+    tsdb.measurements = measurements;
+    for (int i = 0; i < 3; i++) {
+      measurements.setIntendedStartTimeNs(1000 + i);
+      assertTrue(wl.doInsert(tsdb, threadState));
+    }
+    assertEquals(tsdb.inserts, 3);
+    assertEquals(tsdb.lastIntendedStartNs, 1000);
+  }
+  
+  @Test
+  public void highCardinalitySeriesAreGeneratedOnDemand() throws Exception {
+    final Properties p = getUTProperties();
+    p.put(CoreWorkload.FIELD_COUNT_PROPERTY, "100000");
+    p.put(TimeSeriesWorkload.TAG_COUNT_PROPERTY, "3");
+    p.put(TimeSeriesWorkload.TAG_CARDINALITY_PROPERTY, "100000,1000,100");
+    final TimeSeriesWorkload wl = getWorkload(p, true);
+    assertNull(wl.keys);
+    assertNull(wl.tagValues);
+    assertEquals(wl.totalCardinality, 1000000000000000L);
+    
+    final IncrementingPrintableStringGenerator keys = new IncrementingPrintableStringGenerator(4);
+    final Object threadState = wl.initThread(p, 1, 2);
+    final MockDB db = new MockDB();
+    for (int i = 0; i < 3; i++) {
+      assertTrue(wl.doInsert(db, threadState));
+    }
+    assertEquals(db.keys.get(0), keys.valueAt(50000));
+    assertEquals(db.values.get(0).get("AA").toString(), "AAAA");
+    assertEquals(db.values.get(2).get("AC").toString(), keys.valueAt(2));
+    
+    // shuffled keys are still a permutation
+    p.put(CoreWorkload.FIELD_COUNT_PROPERTY, "70001");
+    p.put(TimeSeriesWorkload.RANDOMIZE_TIMESERIES_ORDER_PROPERTY, "true");
+    final TimeSeriesWorkload shuffled = getWorkload(p, true);
+    final Set<String> seen = new HashSet<String>();
+    for (int i = 0; i < 70001; i++) {
+      seen.add(shuffled.keyAt(i));
+    }
+    assertEquals(seen.size(), 70001);
+  }
+  
+  @Test
+  public void basicTSDBWritesABatchAsOneWrite() throws Exception {
+    final Properties p = getUTProperties();
+    p.put(BasicDB.SIMULATE_DELAY, "100");
+    p.put(BasicDB.RANDOMIZE_DELAY, "false");
+    p.put(BasicDB.VERBOSE, "false");
+    final BasicTSDB db = new BasicTSDB();
+    db.setProperties(p);
+    db.init();
+    final List<TimeseriesPoint> points = new ArrayList<TimeseriesPoint>();
+    for (int i = 0; i < 4; i++) {
+      points.add(new TimeseriesPoint("AAAA", new HashMap<String, String>(), 1451606400L + i, (long) i));
+    }
+
+    final long start = System.nanoTime();
+    assertEquals(new TimeseriesAdapter(db, p).insertPoints("t", points), Status.OK);
+    final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    db.cleanup();
+    // one simulated delay for the batch rather than one per point
+    assertTrue(elapsedMs >= 100 && elapsedMs < 300, "took " + elapsedMs + "ms");
+  }
+
   /** Helper method that generates unit testing defaults for the properties map */
   private Properties getUTProperties() {
     final Properties p = new Properties();
@@ -574,4 +740,57 @@ public class TestTimeSeriesWorkload {
       }
     }
   }
-}
\ No newline at end of file
+  
+  static class RecordingTSDB extends TimeseriesDB {
+    private int inserts;
+    private int updates;
+    private int scans;
+    private long lastTimestamp;
+    private long lastEnd;
+    private long lastIntendedStartNs;
+    private Measurements measurements = Measurements.getMeasurements();
+    private Map<String, ?> lastTags;
+
+    @Override
+    protected Status read(String metric, long timestamp, Map<String, List<String>> tags) {
+      lastTimestamp = timestamp;
+      lastTags = tags;
+      return Status.OK;
+    }
+
+    @Override
+    protected Status scan(String metric, long startTs, long endTs, Map<String, List<String>> tags,
+                          AggregationOperation aggreg, int timeValue, TimeUnit timeUnit) {
+      scans++;
+      lastTimestamp = startTs;
+      lastEnd = endTs;
+      lastTags = tags;
+      return Status.OK;
+    }
+
+    @Override
+    protected Status insert(String metric, long timestamp, long value, Map<String, ByteIterator> tags) {
+      return insert(timestamp, tags);
+    }
+
+    @Override
+    protected Status insert(String metric, long timestamp, double value, Map<String, ByteIterator> tags) {
+      return insert(timestamp, tags);
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      updates++;
+      lastTags = values;
+      return Status.OK;
+    }
+
+    private Status insert(long timestamp, Map<String, ByteIterator> tags) {
+      inserts++;
+      lastIntendedStartNs = measurements.getIntendedtartTimeNs();
+      lastTimestamp = timestamp;
+      lastTags = new TreeMap<String, ByteIterator>(tags);
+      return Status.OK;
+    }
+  }
+}
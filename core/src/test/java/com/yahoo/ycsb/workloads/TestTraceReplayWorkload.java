@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.Workload.Operation;
+import com.yahoo.ycsb.measurements.Measurements;
+import org.testng.annotations.Test;
+
+public class TestTraceReplayWorkload {
+
+  @Test
+  public void convertedTraceReadsBack() throws Exception {
+    File file = File.createTempFile("trace", ".bin");
+    file.deleteOnExit();
+    String text = "# timestamp op key size\n" +
+        "10 READ user1 0\n" +
+        "\n" +
+        "20 update user2 300\n" +
+        "35 SCAN user3 50\n";
+    assertEquals(TraceFile.convert(new BufferedReader(new StringReader(text)), file.getPath()), 3);
+
+    try (TraceFile trace = new TraceFile(file.getPath())) {
+      assertEquals(trace.getRecordCount(), 3);
+      assertEquals(trace.getBlockCount(), 1);
+      TraceFile.Cursor cursor = trace.cursor();
+      assertTrue(cursor.seekBlock(0));
+      assertTrue(cursor.next());
+      assertEquals(cursor.getTimestampUs(), 10);
+      assertEquals(cursor.getOperation(), Operation.READ);
+      assertEquals(cursor.getKey(), "user1");
+      assertTrue(cursor.next());
+      assertEquals(cursor.getOperation(), Operation.UPDATE);
+      assertEquals(cursor.getSize(), 300);
+      assertTrue(cursor.next());
+      assertEquals(cursor.getTimestampUs(), 35);
+      assertEquals(cursor.getOperation(), Operation.SCAN);
+      assertEquals(cursor.getKey(), "user3");
+      assertEquals(cursor.getSize(), 50);
+      assertFalse(cursor.next());
+      assertFalse(cursor.seekBlock(1));
+    }
+  }
+
+  @Test
+  public void threadsReplayEveryRecordOnce() throws Exception {
+    File file = File.createTempFile("trace", ".bin");
+    file.deleteOnExit();
+    final int records = 10000;
+    try (TraceFile.Writer writer = new TraceFile.Writer(file.getPath(), 7)) {
+      for (int i = 0; i < records; i++) {
+        writer.add(i, i % 2 == 0 ? Operation.READ : Operation.UPDATE, "user" + i, 10);
+      }
+    }
+
+    Properties props = new Properties();
+    props.setProperty(TraceReplayWorkload.FILE_PROPERTY, file.getPath());
+    final TraceReplayWorkload workload = new TraceReplayWorkload();
+    workload.init(props);
+    final CountingDB db = new CountingDB();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final Object state = workload.initThread(props, t, 4);
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          while (workload.doTransaction(db, state)) {
+            // replaying
+          }
+        }
+      });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    workload.cleanup();
+
+    assertEquals(db.counts.size(), records);
+    for (AtomicInteger count : db.counts.values()) {
+      assertEquals(count.get(), 1);
+    }
+    assertEquals(db.updates.get(), records / 2);
+  }
+
+  @Test
+  public void originalTimingFollowsTheTrace() throws Exception {
+    File file = File.createTempFile("trace", ".bin");
+    file.deleteOnExit();
+    try (TraceFile.Writer writer = new TraceFile.Writer(file.getPath())) {
+      writer.add(1000000, Operation.READ, "user1", 0);
+      writer.add(1100000, Operation.READ, "user2", 0);
+      writer.add(1400000, Operation.READ, "user3", 0);
+    }
+
+    Properties props = new Properties();
+    props.setProperty(TraceReplayWorkload.FILE_PROPERTY, file.getPath());
+    props.setProperty(TraceReplayWorkload.TIMING_PROPERTY, "original");
+    props.setProperty(TraceReplayWorkload.SPEEDUP_PROPERTY, "2");
+    TraceReplayWorkload workload = new TraceReplayWorkload();
+    workload.init(props);
+    Object state = workload.initThread(props, 0, 1);
+    CountingDB db = new CountingDB();
+
+    Measurements.getMeasurements().takeThrottleTimeNs();
+    long start = System.nanoTime();
+    int operations = 0;
+    while (workload.doTransaction(db, state)) {
+      operations++;
+    }
+    long elapsedMs = (System.nanoTime() - start) / 1000000;
+    long throttleMs = Measurements.getMeasurements().takeThrottleTimeNs() / 1000000;
+    workload.cleanup();
+
+    assertEquals(operations, 3);
+    // 400ms of trace at twice the speed
+    assertTrue(elapsedMs >= 200 && elapsedMs < 1000, "took " + elapsedMs + "ms");
+    // the waits are reported as throttling, not as time spent in the workload
+    assertTrue(throttleMs >= 150 && throttleMs <= elapsedMs, "throttled " + throttleMs + "ms");
+  }
+
+  @Test
+  public void loadInsertsEveryKeyOnce() throws Exception {
+    File file = File.createTempFile("trace", ".bin");
+    file.deleteOnExit();
+    try (TraceFile.Writer writer = new TraceFile.Writer(file.getPath(), 2)) {
+      writer.add(1, Operation.READ, "user1", 0);
+      writer.add(2, Operation.UPDATE, "user2", 300);
+      writer.add(3, Operation.READ, "user1", 0);
+      writer.add(4, Operation.INSERT, "user3", 10);
+      writer.add(5, Operation.READ, "user3", 0);
+      writer.add(6, Operation.UPDATE, "user2", 10);
+      writer.add(7, Operation.DELETE, "user4", 0);
+    }
+
+    Properties props = new Properties();
+    props.setProperty(TraceReplayWorkload.FILE_PROPERTY, file.getPath());
+    props.setProperty(TraceReplayWorkload.LOOP_PROPERTY, "true");
+    TraceReplayWorkload workload = new TraceReplayWorkload();
+    workload.init(props);
+    Object state = workload.initThread(props, 0, 1);
+    CountingDB db = new CountingDB();
+    int inserts = 0;
+    while (workload.doInsert(db, state)) {
+      inserts++;
+    }
+    workload.cleanup();
+
+    // user3 is inserted by the trace itself
+    assertEquals(inserts, 3);
+    assertEquals(db.counts.keySet(), new HashSet<>(Arrays.asList("user1", "user2", "user4")));
+  }
+
+  static class CountingDB extends DB {
+    final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    final AtomicInteger updates = new AtomicInteger();
+
+    private Status count(String key) {
+      AtomicInteger count = counts.putIfAbsent(key, new AtomicInteger(1));
+      if (count != null) {
+        count.incrementAndGet();
+      }
+      return Status.OK;
+    }
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      return count(key);
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return count(startkey);
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      updates.incrementAndGet();
+      return count(key);
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      return count(key);
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return count(key);
+    }
+  }
+}
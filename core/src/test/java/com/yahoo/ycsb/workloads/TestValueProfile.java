@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import com.yahoo.ycsb.Compression;
+import com.yahoo.ycsb.WorkloadException;
+import org.testng.annotations.Test;
+
+public class TestValueProfile {
+
+  @Test
+  public void profilesFillTheLengthWithTheirContent() throws Exception {
+    Properties p = new Properties();
+    assertNull(ValueProfile.create(p));
+
+    p.setProperty(ValueProfile.VALUE_PROFILE_PROPERTY, "json");
+    String json = new String(ValueProfile.create(p).next(4096).toArray(), StandardCharsets.US_ASCII);
+    assertEquals(json.length(), 4096);
+    assertTrue(json.startsWith("{\"id\":"), json);
+    double ratio = 4096.0 / Compression.deflatedSize(json.getBytes(StandardCharsets.US_ASCII));
+    assertTrue(ratio > 2.5, "ratio " + ratio);
+
+    p.setProperty(ValueProfile.VALUE_PROFILE_PROPERTY, "numeric");
+    String numeric = new String(ValueProfile.create(p).next(1000).toArray(), StandardCharsets.US_ASCII);
+    assertEquals(numeric.length(), 1000);
+    assertTrue(numeric.matches("[0-9,.\\n]+"), numeric);
+  }
+
+  @Test
+  public void corpusSlicesWrapAround() throws Exception {
+    byte[] value = new ValueProfile.Corpus("abc".getBytes(StandardCharsets.US_ASCII)).next(10).toArray();
+    String s = new String(value, StandardCharsets.US_ASCII);
+    assertTrue("abcabcabcabcabc".contains(s), s);
+  }
+
+  @Test(expectedExceptions = WorkloadException.class)
+  public void corpusNeedsAFile() throws Exception {
+    Properties p = new Properties();
+    p.setProperty(ValueProfile.VALUE_PROFILE_PROPERTY, "corpus");
+    ValueProfile.create(p);
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db.embedded;
+
+import com.yahoo.ycsb.ByteArrayByteIterator;
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.DBException;
+import com.yahoo.ycsb.Status;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A dependency free key-value store living in the client JVM, so that every workload,
+ * including scans and {@code dataintegrity} checks, can run end to end on one machine.
+ * <p>
+ * Each table keeps its records in a concurrent hash map for point operations and its keys
+ * in a concurrent skip list for ordered scans. A record is a single byte array holding the
+ * length prefixed field names and values, so reads hand out slices of it without copying.
+ * The store is shared by all client threads and, unless {@code embedded.file} is set, lives
+ * as long as the JVM.
+ *
+ * See {@code embedded/README.md} for details.
+ */
+public class EmbeddedClient extends DB {
+
+  static final String PROPERTY_FILE = "embedded.file";
+
+  private static final ConcurrentMap<String, Table> TABLES = new ConcurrentHashMap<>();
+
+  /** Guarded by {@code EmbeddedClient.class}. */
+  private static Path file = null;
+  private static int references = 0;
+
+  @Override
+  public void init() throws DBException {
+    synchronized (EmbeddedClient.class) {
+      if (references == 0) {
+        final String path = getProperties().getProperty(PROPERTY_FILE);
+        file = path == null || path.isEmpty() ? null : Paths.get(path);
+        if (file != null && Files.exists(file)) {
+          try {
+            load(file);
+          } catch (final IOException e) {
+            throw new DBException("Unable to load " + file, e);
+          }
+        }
+      }
+      references++;
+    }
+  }
+
+  @Override
+  public void cleanup() throws DBException {
+    synchronized (EmbeddedClient.class) {
+      if (--references == 0 && file != null) {
+        try {
+          save(file);
+        } catch (final IOException e) {
+          throw new DBException("Unable to save " + file, e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public Status read(final String table, final String key, final Set<String> fields,
+      final Map<String, ByteIterator> result) {
+    final byte[] record = table(table).records.get(key);
+    if (record == null) {
+      return Status.NOT_FOUND;
+    }
+    decode(record, fields, result);
+    return Status.OK;
+  }
+
+  @Override
+  public Status scan(final String table, final String startkey, final int recordcount, final Set<String> fields,
+      final Vector<HashMap<String, ByteIterator>> result) {
+    final Table t = table(table);
+    int count = 0;
+    for (final String key : t.index.tailSet(startkey)) {
+      if (count >= recordcount) {
+        break;
+      }
+      final byte[] record = t.records.get(key);
+      if (record == null) {
+        // deleted after the key was seen
+        continue;
+      }
+      final HashMap<String, ByteIterator> values = new HashMap<>();
+      decode(record, fields, values);
+      result.add(values);
+      count++;
+    }
+    return Status.OK;
+  }
+
+  @Override
+  public Status update(final String table, final String key, final Map<String, ByteIterator> values) {
+    final byte[] updated = table(table).records.computeIfPresent(key, (k, record) -> {
+        final Map<String, ByteIterator> merged = new HashMap<>();
+        decode(record, null, merged);
+        merged.putAll(values);
+        return encode(merged);
+      });
+    return updated == null ? Status.NOT_FOUND : Status.OK;
+  }
+
+  @Override
+  public Status insert(final String table, final String key, final Map<String, ByteIterator> values) {
+    final Table t = table(table);
+    t.records.put(key, encode(values));
+    t.index.add(key);
+    return Status.OK;
+  }
+
+  @Override
+  public Status delete(final String table, final String key) {
+    final Table t = table(table);
+    if (t.records.remove(key) == null) {
+      return Status.NOT_FOUND;
+    }
+    t.index.remove(key);
+    // an insert racing with the delete may have found its key still indexed
+    if (t.records.containsKey(key)) {
+      t.index.add(key);
+    }
+    return Status.OK;
+  }
+
+  private static Table table(final String name) {
+    Table t = TABLES.get(name);
+    if (t == null) {
+      t = TABLES.computeIfAbsent(name, n -> new Table());
+    }
+    return t;
+  }
+
+  /**
+   * Serializes the fields as a sequence of name length, name, value length and value.
+   */
+  static byte[] encode(final Map<String, ByteIterator> values) {
+    final byte[][] names = new byte[values.size()][];
+    final byte[][] data = new byte[values.size()][];
+    int size = 0;
+    int i = 0;
+    for (final Map.Entry<String, ByteIterator> value : values.entrySet()) {
+      names[i] = value.getKey().getBytes(UTF_8);
+      data[i] = value.getValue().toArray();
+      size += 8 + names[i].length + data[i].length;
+      i++;
+    }
+    final ByteBuffer buf = ByteBuffer.allocate(size);
+    for (i = 0; i < names.length; i++) {
+      buf.putInt(names[i].length).put(names[i]).putInt(data[i].length).put(data[i]);
+    }
+    return buf.array();
+  }
+
+  /**
+   * Adds the requested fields of the record to the result, without copying the values.
+   */
+  static void decode(final byte[] record, final Set<String> fields, final Map<String, ByteIterator> result) {
+    final ByteBuffer buf = ByteBuffer.wrap(record);
+    while (buf.hasRemaining()) {
+      final int nameLen = buf.getInt();
+      final String name = new String(record, buf.position(), nameLen, UTF_8);
+      buf.position(buf.position() + nameLen);
+      final int valueLen = buf.getInt();
+      if (fields == null || fields.contains(name)) {
+        result.put(name, new ByteArrayByteIterator(record, buf.position(), valueLen));
+      }
+      buf.position(buf.position() + valueLen);
+    }
+  }
+
+  /**
+   * Replaces the contents of the store with the tables saved in the file.
+   */
+  private static void load(final Path path) throws IOException {
+    TABLES.clear();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      final int tables = in.readInt();
+      for (int i = 0; i < tables; i++) {
+        final Table t = table(in.readUTF());
+        while (in.readBoolean()) {
+          final String key = in.readUTF();
+          final byte[] record = new byte[in.readInt()];
+          in.readFully(record);
+          t.records.put(key, record);
+          t.index.add(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes every table to the file, records in key order.
+   */
+  private static void save(final Path path) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+      out.writeInt(TABLES.size());
+      for (final Map.Entry<String, Table> table : TABLES.entrySet()) {
+        out.writeUTF(table.getKey());
+        for (final String key : table.getValue().index) {
+          final byte[] record = table.getValue().records.get(key);
+          if (record != null) {
+            out.writeBoolean(true);
+            out.writeUTF(key);
+            out.writeInt(record.length);
+            out.write(record);
+          }
+        }
+        out.writeBoolean(false);
+      }
+    }
+  }
+
+  /**
+   * The records of a table. Every present record has its key in the index, the index may
+   * briefly hold keys of records being deleted which scans skip.
+   */
+  static final class Table {
+    private final ConcurrentHashMap<String, byte[]> records = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> index = new ConcurrentSkipListSet<>();
+  }
+}
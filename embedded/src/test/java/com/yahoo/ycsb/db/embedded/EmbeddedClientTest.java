@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.db.embedded;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.StringByteIterator;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class EmbeddedClientTest {
+
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private static final String MOCK_KEY0 = "0";
+  private static final String MOCK_KEY1 = "1";
+  private static final String MOCK_KEY2 = "2";
+  private static final int NUM_RECORDS = 10;
+
+  private EmbeddedClient instance;
+  private String table;
+
+  @Before
+  public void setup() throws Exception {
+    instance = new EmbeddedClient();
+    instance.setProperties(new Properties());
+    instance.init();
+    // the store outlives the client so every test gets its own table
+    table = "ycsb" + UUID.randomUUID();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    instance.cleanup();
+  }
+
+  private static Map<String, ByteIterator> data() {
+    final Map<String, String> copy = new HashMap<>();
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      copy.put("field" + i, "value" + i);
+    }
+    return StringByteIterator.getByteIteratorMap(copy);
+  }
+
+  @Test
+  public void insertAndRead() throws Exception {
+    assertEquals(Status.OK, instance.insert(table, MOCK_KEY0, data()));
+
+    final Map<String, ByteIterator> result = new HashMap<>();
+    assertEquals(Status.OK, instance.read(table, MOCK_KEY0, null, result));
+    assertEquals(NUM_RECORDS, result.size());
+    assertEquals("value3", result.get("field3").toString());
+
+    result.clear();
+    assertEquals(Status.OK, instance.read(table, MOCK_KEY0, Collections.singleton("field1"), result));
+    assertEquals(1, result.size());
+    assertEquals("value1", result.get("field1").toString());
+
+    assertEquals(Status.NOT_FOUND, instance.read(table, MOCK_KEY1, null, result));
+  }
+
+  @Test
+  public void insertAndDelete() throws Exception {
+    assertEquals(Status.OK, instance.insert(table, MOCK_KEY1, data()));
+    assertEquals(Status.OK, instance.delete(table, MOCK_KEY1));
+    assertEquals(Status.NOT_FOUND, instance.delete(table, MOCK_KEY1));
+    assertEquals(Status.NOT_FOUND, instance.read(table, MOCK_KEY1, null, new HashMap<String, ByteIterator>()));
+  }
+
+  @Test
+  public void insertUpdateAndRead() throws Exception {
+    assertEquals(Status.NOT_FOUND, instance.update(table, MOCK_KEY2, data()));
+    assertEquals(Status.OK, instance.insert(table, MOCK_KEY2, data()));
+
+    final Map<String, String> newValues = new HashMap<>();
+    newValues.put("field0", "updated");
+    assertEquals(Status.OK, instance.update(table, MOCK_KEY2, StringByteIterator.getByteIteratorMap(newValues)));
+
+    final Map<String, ByteIterator> result = new HashMap<>();
+    assertEquals(Status.OK, instance.read(table, MOCK_KEY2, null, result));
+    assertEquals(NUM_RECORDS, result.size());
+    assertEquals("updated", result.get("field0").toString());
+    assertEquals("value1", result.get("field1").toString());
+  }
+
+  @Test
+  public void insertAndScanInKeyOrder() throws Exception {
+    for (int i = 9; i >= 0; i--) {
+      assertEquals(Status.OK, instance.insert(table, "user" + i, data()));
+    }
+    instance.delete(table, "user4");
+
+    final Vector<HashMap<String, ByteIterator>> result = new Vector<>();
+    assertEquals(Status.OK, instance.scan(table, "user3", 3, Collections.singleton("field0"), result));
+    assertEquals(3, result.size());
+    assertEquals(1, result.get(0).size());
+
+    result.clear();
+    assertEquals(Status.OK, instance.scan(table, "user8", 10, null, result));
+    assertEquals(2, result.size());
+  }
+
+  @Test
+  public void recordsAreSavedAndLoaded() throws Exception {
+    final Properties properties = new Properties();
+    properties.setProperty(EmbeddedClient.PROPERTY_FILE, new File(tmpFolder.getRoot(), "store").getAbsolutePath());
+
+    // the client from setup holds a reference, release it so the file is used
+    instance.cleanup();
+    final EmbeddedClient writer = new EmbeddedClient();
+    writer.setProperties(properties);
+    writer.init();
+    writer.insert(table, MOCK_KEY0, data());
+    writer.cleanup();
+
+    instance = new EmbeddedClient();
+    instance.setProperties(properties);
+    instance.init();
+    final Map<String, ByteIterator> result = new HashMap<>();
+    assertEquals(Status.OK, instance.read(table, MOCK_KEY0, null, result));
+    assertEquals("value9", result.get("field9").toString());
+  }
+}
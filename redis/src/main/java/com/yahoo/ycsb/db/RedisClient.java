@@ -34,10 +34,13 @@ import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisCommands;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.HashSet;
@@ -173,4 +176,113 @@ public class RedisClient extends DB {
     return Status.OK;
   }
 
+  /*
+   * The batch operations below send all commands of a batch through one
+   * pipeline, i.e. in a single round trip. Redis Cluster connections cannot
+   * pipeline across slots, so they fall back to one command per key.
+   */
+
+  @Override
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+      List<Map<String, ByteIterator>> results) {
+    if (!(jedis instanceof Jedis)) {
+      return super.batchRead(table, keys, fields, results);
+    }
+    Pipeline pipeline = ((Jedis) jedis).pipelined();
+    Status status = Status.OK;
+    if (fields == null) {
+      List<Response<Map<String, String>>> responses = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        responses.add(pipeline.hgetAll(key));
+      }
+      pipeline.sync();
+      for (int i = 0; i < keys.size(); i++) {
+        Map<String, ByteIterator> result = results.get(i);
+        StringByteIterator.putAllAsByteIterators(result, responses.get(i).get());
+        if (result.isEmpty()) {
+          status = Status.ERROR;
+        }
+      }
+    } else {
+      String[] fieldArray = fields.toArray(new String[fields.size()]);
+      List<Response<List<String>>> responses = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        responses.add(pipeline.hmget(key, fieldArray));
+      }
+      pipeline.sync();
+      for (int i = 0; i < keys.size(); i++) {
+        Map<String, ByteIterator> result = results.get(i);
+        List<String> values = responses.get(i).get();
+        for (int j = 0; j < fieldArray.length && j < values.size(); j++) {
+          result.put(fieldArray[j], new StringByteIterator(values.get(j)));
+        }
+        if (result.isEmpty()) {
+          status = Status.ERROR;
+        }
+      }
+    }
+    return status;
+  }
+
+  @Override
+  public Status batchInsert(String table, List<String> keys,
+      List<Map<String, ByteIterator>> values) {
+    if (!(jedis instanceof Jedis)) {
+      return super.batchInsert(table, keys, values);
+    }
+    Pipeline pipeline = ((Jedis) jedis).pipelined();
+    List<Response<String>> responses = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      String key = keys.get(i);
+      responses.add(pipeline.hmset(key, StringByteIterator.getStringMap(values.get(i))));
+      pipeline.zadd(INDEX_KEY, hash(key), key);
+    }
+    pipeline.sync();
+    return allOk(responses);
+  }
+
+  @Override
+  public Status batchUpdate(String table, List<String> keys,
+      List<Map<String, ByteIterator>> values) {
+    if (!(jedis instanceof Jedis)) {
+      return super.batchUpdate(table, keys, values);
+    }
+    Pipeline pipeline = ((Jedis) jedis).pipelined();
+    List<Response<String>> responses = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      responses.add(pipeline.hmset(keys.get(i), StringByteIterator.getStringMap(values.get(i))));
+    }
+    pipeline.sync();
+    return allOk(responses);
+  }
+
+  @Override
+  public Status batchDelete(String table, List<String> keys) {
+    if (!(jedis instanceof Jedis)) {
+      return super.batchDelete(table, keys);
+    }
+    Pipeline pipeline = ((Jedis) jedis).pipelined();
+    List<Response<Long>> deleted = new ArrayList<>(keys.size());
+    List<Response<Long>> unindexed = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      deleted.add(pipeline.del(key));
+      unindexed.add(pipeline.zrem(INDEX_KEY, key));
+    }
+    pipeline.sync();
+    for (int i = 0; i < keys.size(); i++) {
+      if (deleted.get(i).get() == 0 && unindexed.get(i).get() == 0) {
+        return Status.ERROR;
+      }
+    }
+    return Status.OK;
+  }
+
+  private static Status allOk(List<Response<String>> responses) {
+    for (Response<String> response : responses) {
+      if (!"OK".equals(response.get())) {
+        return Status.ERROR;
+      }
+    }
+    return Status.OK;
+  }
 }